@@ -1,14 +1,18 @@
 package net.glowstone;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
+import net.glowstone.block.BlockEditSession;
+import net.glowstone.block.BlockTickScheduler;
 import net.glowstone.block.GlowBlock;
+import net.glowstone.block.ItemTable;
+import net.glowstone.block.MaterialValueManager;
 import net.glowstone.block.blocktype.BlockTnt;
+import net.glowstone.chunk.GlowChunk;
 import net.glowstone.entity.GlowEntity;
 import net.glowstone.entity.GlowPlayer;
 import net.glowstone.net.message.play.game.ExplosionMessage;
@@ -29,7 +33,7 @@ import org.bukkit.event.block.BlockIgniteEvent.IgniteCause;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.util.BlockVector;
+import org.bukkit.util.NumberConversions;
 import org.bukkit.util.Vector;
 
 public final class Explosion {
@@ -125,9 +129,7 @@ public final class Explosion {
             return true;
         }
 
-        Set<BlockVector> droppedBlocks = calculateBlocks();
-
-        List<Block> blocks = toBlockList(droppedBlocks);
+        List<Block> blocks = calculateBlocks();
         EntityExplodeEvent event = EventFactory.getInstance().callEvent(
                 new EntityExplodeEvent(source, location, blocks, yield));
         if (event.isCancelled()) {
@@ -138,9 +140,12 @@ public final class Explosion {
 
         playOutSoundAndParticles();
 
+        // the blocks are removed chunk by chunk, with a single pass of physics afterwards
+        BlockEditSession edits = new BlockEditSession(world, true);
         for (Block block : blocks) {
-            handleBlockExplosion((GlowBlock) block);
+            handleBlockExplosion((GlowBlock) block, edits);
         }
+        edits.flush();
 
         if (incendiary) {
             for (Block block : blocks) {
@@ -151,8 +156,11 @@ public final class Explosion {
         damageEntities();
         Collection<GlowPlayer> affectedPlayers
                 = collectPlayersInRadius(EXPLOSION_VISIBILITY_RADIUS);
-        for (GlowPlayer player : affectedPlayers) {
-            playOutExplosion(player, blocks);
+        if (!affectedPlayers.isEmpty()) {
+            List<Record> records = createRecords(blocks);
+            for (GlowPlayer player : affectedPlayers) {
+                playOutExplosion(player, records);
+            }
         }
 
         return true;
@@ -161,53 +169,83 @@ public final class Explosion {
     ///////////////////////////////////////////////////
     // Calculate all the dropping blocks
 
-    private Set<BlockVector> calculateBlocks() {
+    private List<Block> calculateBlocks() {
         if (!breakBlocks) {
-            return new HashSet<>();
+            return new ArrayList<>();
         }
 
-        Set<BlockVector> blocks = new HashSet<>();
+        // blocks hit by several rays are only created once, keyed by their packed position
+        Long2ObjectOpenHashMap<GlowBlock> blocks = new Long2ObjectOpenHashMap<>();
+        MaterialValueManager materialValues = world.getServer().getMaterialValueManager();
 
-        RAY_DIRECTIONS.forEach(v -> calculateRay(v, blocks));
+        for (Vector direction : RAY_DIRECTIONS) {
+            calculateRay(direction.getX(), direction.getY(), direction.getZ(), materialValues,
+                    blocks);
+        }
 
-        return blocks;
+        return new ArrayList<>(blocks.values());
     }
 
-    private void calculateRay(Vector direction, Collection<BlockVector> result) {
-        Location current = location.clone();
+    private void calculateRay(double directionX, double directionY, double directionZ,
+            MaterialValueManager materialValues, Long2ObjectOpenHashMap<GlowBlock> result) {
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        // consecutive steps mostly stay in the same chunk, so only look it up when leaving it
+        GlowChunk chunk = null;
 
         float currentPower = calculateStartPower();
 
         while (currentPower > 0) {
-            GlowBlock block = world.getBlockAt(current);
+            int blockX = NumberConversions.floor(x);
+            int blockY = NumberConversions.floor(y);
+            int blockZ = NumberConversions.floor(z);
+            if (chunk == null || chunk.getX() != blockX >> 4 || chunk.getZ() != blockZ >> 4) {
+                chunk = world.getChunkAt(blockX >> 4, blockZ >> 4);
+            }
+            Material type = Material.getMaterial(chunk.getType(blockX & 0xf, blockZ & 0xf,
+                    blockY));
 
-            if (block.getType() != Material.AIR) {
-                double blastDurability = getBlastDurability(block) / 5d;
+            if (type != Material.AIR) {
+                double blastDurability = materialValues.getValues(type).getBlastResistance() / 5d;
                 blastDurability += 0.3F;
                 blastDurability *= 0.3F;
                 currentPower -= blastDurability;
 
                 if (currentPower > 0) {
-                    result.add(new BlockVector(block.getX(), block.getY(), block.getZ()));
+                    long key = BlockTickScheduler.pack(blockX, blockY, blockZ);
+                    if (!result.containsKey(key)) {
+                        result.put(key, world.getBlockAt(blockX, blockY, blockZ));
+                    }
                 }
             }
 
-            current.add(direction);
+            x += directionX;
+            y += directionY;
+            z += directionZ;
             currentPower -= 0.225f;
         }
     }
 
-    private void handleBlockExplosion(GlowBlock block) {
-        if (block.getType() == Material.AIR
-                || block.getType() == Material.BARRIER
-                || block.getType() == Material.BEDROCK) {
+    private void handleBlockExplosion(GlowBlock block, BlockEditSession edits) {
+        Material type = block.getType();
+        if (type == Material.AIR || type == Material.BARRIER || type == Material.BEDROCK) {
             return;
-        } else if (block.getType() == Material.TNT) {
+        } else if (type == Material.TNT) {
             BlockTnt.igniteBlock(block, true);
             return;
         }
 
-        block.breakNaturally(yield);
+        Location dropLocation = null;
+        for (ItemStack drop : ItemTable.instance().getBlock(type).getMinedDrops(block)) {
+            if (ThreadLocalRandom.current().nextFloat() < yield) {
+                if (dropLocation == null) {
+                    dropLocation = block.getLocation();
+                }
+                world.dropItemNaturally(dropLocation, drop);
+            }
+        }
+        edits.setType(block.getX(), block.getY(), block.getZ(), Material.AIR);
     }
 
     private float calculateStartPower() {
@@ -217,19 +255,6 @@ public final class Explosion {
         return rand * power;
     }
 
-    private double getBlastDurability(GlowBlock block) {
-        return block.getMaterialValues().getBlastResistance();
-    }
-
-    private List<Block> toBlockList(Collection<BlockVector> locations) {
-        List<Block> blocks = new ArrayList<>(locations.size());
-        blocks.addAll(locations.stream()
-                .map(location -> world.getBlockAt(
-                        location.getBlockX(), location.getBlockY(), location.getBlockZ()))
-                .collect(Collectors.toList()));
-        return blocks;
-    }
-
     private void setBlockOnFire(GlowBlock block) {
         if (ThreadLocalRandom.current().nextInt(3) != 0) {
             return;
@@ -362,17 +387,19 @@ public final class Explosion {
         }
     }
 
-    private void playOutExplosion(GlowPlayer player, Iterable<Block> blocks) {
-        Collection<Record> records = new ArrayList<>();
-
+    private List<Record> createRecords(List<Block> blocks) {
+        List<Record> records = new ArrayList<>(blocks.size());
+        int originX = (int) location.getX();
+        int originY = (int) location.getY();
+        int originZ = (int) location.getZ();
         for (Block block : blocks) {
-            Location blockLocation = block.getLocation();
-            byte x = (byte) (blockLocation.getBlockX() - (int) this.location.getX());
-            byte y = (byte) (blockLocation.getBlockY() - (int) this.location.getY());
-            byte z = (byte) (blockLocation.getBlockZ() - (int) this.location.getZ());
-            records.add(new Record(x, y, z));
+            records.add(new Record((byte) (block.getX() - originX), (byte) (block.getY() - originY),
+                    (byte) (block.getZ() - originZ)));
         }
+        return records;
+    }
 
+    private void playOutExplosion(GlowPlayer player, List<Record> records) {
         Vector velocity = player.getVelocity();
         ExplosionMessage message = new ExplosionMessage(
                 (float) location.getX(), (float) location.getY(), (float) location.getZ(), power,
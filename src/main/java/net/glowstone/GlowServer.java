@@ -132,6 +132,7 @@ import net.glowstone.map.GlowMapView;
 import net.glowstone.net.GameServer;
 import net.glowstone.net.GlowSession;
 import net.glowstone.net.SessionRegistry;
+import net.glowstone.net.message.EncodedMessage;
 import net.glowstone.net.message.play.player.AdvancementsMessage;
 import net.glowstone.net.message.status.StatusRequestMessage;
 import net.glowstone.net.query.QueryServer;
@@ -1598,6 +1599,53 @@ public class GlowServer implements Server {
         return config.getInt(Key.COMPRESSION_THRESHOLD);
     }
 
+    /**
+     * Get the deflate level to use for network compression defined in the config.
+     *
+     * @return The compression level from 0 to 9, or -1 for the default level.
+     */
+    public int getCompressionLevel() {
+        return config.getInt(Key.COMPRESSION_LEVEL);
+    }
+
+    /**
+     * Get whether outgoing play messages are buffered and flushed once per tick.
+     *
+     * @return True if network writes are batched.
+     */
+    public boolean isBatchingNetworkWrites() {
+        return config.getBoolean(Key.BATCH_NETWORK_WRITES);
+    }
+
+    /**
+     * Get the maximum number of chunks sent to each player per tick defined in the config.
+     *
+     * @return The per-player chunk send budget.
+     */
+    public int getChunksPerTick() {
+        return config.getInt(Key.CHUNKS_PER_TICK);
+    }
+
+    /**
+     * Get the number of threads each world generates new chunks on. A value of 0 in the config
+     * means one thread per processor.
+     *
+     * @return The number of chunk generation threads.
+     */
+    public int getGenerationThreads() {
+        int threads = config.getInt(Key.GENERATION_THREADS);
+        return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /**
+     * Get the maximum number of changed chunks each world writes per tick during an autosave.
+     *
+     * @return The per-world autosave chunk budget.
+     */
+    public int getAutosaveChunksPerTick() {
+        return config.getInt(Key.AUTOSAVE_CHUNKS_PER_TICK);
+    }
+
     /**
      * Get the default game difficulty defined in the config.
      *
@@ -2148,9 +2196,7 @@ public class GlowServer implements Server {
      * @param message the packet to broadcast.
      */
     public void broadcastPacket(Message message) {
-        for (GlowPlayer player : getRawOnlinePlayers()) {
-            player.getSession().send(message);
-        }
+        EncodedMessage.broadcast(message, getRawOnlinePlayers());
     }
 
     @Override
@@ -6,14 +6,17 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.flowpowered.network.Message;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
@@ -22,6 +25,8 @@ import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import net.glowstone.block.BlockTickScheduler;
+import net.glowstone.block.BlockTickScheduler.ScheduledTick;
 import net.glowstone.block.GlowBlock;
 import net.glowstone.block.ItemTable;
 import net.glowstone.block.blocktype.BlockType;
@@ -52,14 +57,17 @@ import net.glowstone.generator.structures.GlowStructure;
 import net.glowstone.io.WorldMetadataService.WorldFinalValues;
 import net.glowstone.io.WorldStorageProvider;
 import net.glowstone.io.entity.EntityStorage;
+import net.glowstone.net.message.EncodedMessage;
 import net.glowstone.net.message.play.entity.EntityStatusMessage;
 import net.glowstone.net.message.play.game.BlockChangeMessage;
+import net.glowstone.net.message.play.game.NamedSoundEffectMessage;
+import net.glowstone.net.message.play.game.PlayEffectMessage;
+import net.glowstone.net.message.play.game.PlayParticleMessage;
 import net.glowstone.net.message.play.player.ServerDifficultyMessage;
 import net.glowstone.util.BlockStateDelegate;
 import net.glowstone.util.GameRuleManager;
 import net.glowstone.util.RayUtil;
 import net.glowstone.util.TickUtil;
-import net.glowstone.util.collection.ConcurrentSet;
 import net.glowstone.util.config.WorldConfig;
 import org.bukkit.BlockChangeDelegate;
 import org.bukkit.Chunk;
@@ -196,9 +204,12 @@ public class GlowWorld implements World {
     @Getter
     private final long seed;
     /**
-     * Contains how regular blocks should be pulsed.
+     * The scheduled block ticks, which pulse blocks such as liquids, fire and redstone.
+     *
+     * @return the block tick scheduler
      */
-    private final ConcurrentSet<Location> tickMap = new ConcurrentSet<>();
+    @Getter
+    private final BlockTickScheduler blockTicks = new BlockTickScheduler(this::markChunkChanged);
     private final Spigot spigot = new Spigot() {
         @Override
         public void playEffect(Location location, Effect effect) {
@@ -315,6 +326,11 @@ public class GlowWorld implements World {
      * The time until the next full-save.
      */
     private int saveTimer = AUTOSAVE_TIME;
+    /**
+     * The chunks the current autosave has yet to look at. They are saved a few per tick, so that
+     * an autosave does not stall a single tick.
+     */
+    private final Queue<GlowChunk> autosaveQueue = new ArrayDeque<>();
     /**
      * The check to autosave.
      */
@@ -461,6 +477,9 @@ public class GlowWorld implements World {
 
         activeChunksSet.clear();
 
+        // apply the chunks loaded and generated off the world thread since the last tick
+        chunkManager.pulse();
+
         // We should pulse our tickmap, so blocks get updated.
         pulseTickMap();
 
@@ -556,7 +575,37 @@ public class GlowWorld implements World {
             saveTimer = AUTOSAVE_TIME;
             chunkManager.unloadOldChunks();
             if (autoSave) {
-                save(true);
+                autosave();
+            }
+        }
+        saveQueuedChunks();
+    }
+
+    /**
+     * Saves the world data and players, and queues the loaded chunks to be saved over the next
+     * ticks by {@link #saveQueuedChunks()}.
+     */
+    private void autosave() {
+        EventFactory.getInstance().callEvent(new WorldSaveEvent(this));
+        writeWorldData(true);
+        autosaveQueue.clear();
+        Collections.addAll(autosaveQueue, chunkManager.getLoadedChunks());
+        for (GlowPlayer player : getRawPlayers()) {
+            player.saveData(true);
+        }
+    }
+
+    /**
+     * Saves up to the configured number of changed chunks from the autosave queue. Unchanged
+     * chunks are skipped without counting against the limit.
+     */
+    private void saveQueuedChunks() {
+        int budget = server.getAutosaveChunksPerTick();
+        GlowChunk chunk;
+        while (budget > 0 && (chunk = autosaveQueue.poll()) != null) {
+            if (chunk.isLoaded() && chunk.isDirty()) {
+                chunkManager.performSave(chunk);
+                budget--;
             }
         }
     }
@@ -657,9 +706,25 @@ public class GlowWorld implements World {
         return true;
     }
 
+    /**
+     * Sends a block change to the players who have the chunk containing the block loaded, and to
+     * those it is about to be sent to, who hold the change back until they have the chunk.
+     *
+     * @param chunkKey the chunk containing the changed block
+     * @param message the block change
+     */
     public void broadcastBlockChangeInRange(GlowChunk.Key chunkKey, BlockChangeMessage message) {
-        getRawPlayers().stream().filter(player -> player.canSeeChunk(chunkKey))
-                .forEach(player -> player.sendBlockChangeForce(message));
+        GlowChunk chunk = chunkManager.getChunkIfPresent(chunkKey);
+        if (chunk == null) {
+            // nobody is streaming a chunk which doesn't even have an object
+            return;
+        }
+        for (GlowPlayer player : chunk.getRawViewers()) {
+            player.sendBlockChangeForce(message);
+        }
+        for (GlowPlayer player : chunk.getRawPendingViewers()) {
+            player.sendBlockChangeForce(message);
+        }
     }
 
     private void maybeStrikeLightningInChunk(int cx, int cz) {
@@ -1030,11 +1095,14 @@ public class GlowWorld implements World {
         writeWorldData(async);
 
         // save chunkManager
-        maybeAsync(async, () -> {
-            for (GlowChunk chunk : chunkManager.getLoadedChunks()) {
-                chunkManager.performSave(chunk);
-            }
-        });
+        // chunks are captured here, on the thread which changes them, and then serialized and
+        // written by the chunk I/O threads; only a synchronous save waits for them
+        for (GlowChunk chunk : chunkManager.getLoadedChunks()) {
+            chunkManager.saveIfDirty(chunk);
+        }
+        if (!async) {
+            chunkManager.flushSaves();
+        }
 
         // save players
         for (GlowPlayer player : getRawPlayers()) {
@@ -1226,8 +1294,8 @@ public class GlowWorld implements World {
 
     @Override
     public void getChunkAtAsync(int x, int z, ChunkLoadCallback cb) {
-        ServerProvider.getServer().getScheduler()
-                .runTaskAsynchronously(null, () -> cb.onLoad(chunkManager.getChunk(x, z)));
+        chunkManager.loadChunkAsync(x, z, true).whenComplete((loaded, ex) ->
+                server.getScheduler().runTask(null, () -> cb.onLoad(chunkManager.getChunk(x, z))));
     }
 
     @Override
@@ -1329,14 +1397,12 @@ public class GlowWorld implements World {
             return false;
         }
 
-        Key key = GlowChunk.Key.of(x, z);
+        GlowChunk chunk = getChunkAt(x, z);
         boolean result = false;
 
-        for (GlowPlayer player : getRawPlayers()) {
-            if (player.canSeeChunk(key)) {
-                player.getSession().send(getChunkAt(x, z).toMessage());
-                result = true;
-            }
+        for (GlowPlayer player : chunk.getRawViewers()) {
+            player.getSession().send(chunk.toMessage());
+            result = true;
         }
 
         return result;
@@ -1749,9 +1815,10 @@ public class GlowWorld implements World {
         checkNotNull(location);
         checkNotNull(effect);
         int radiusSquared = radius * radius;
-        getRawPlayers().stream()
+        EncodedMessage.broadcast(createEffectMessage(location, effect, data), getRawPlayers()
+                .stream()
                 .filter(player -> player.getLocation().distanceSquared(location) <= radiusSquared)
-                .forEach(player -> player.playEffect(location, effect, data));
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -1780,9 +1847,17 @@ public class GlowWorld implements World {
         checkNotNull(effect);
         checkNotNull(exclude);
         int radiusSquared = radius * radius;
-        getRawPlayers().stream().filter(player -> !player.equals(exclude)
-                && player.getLocation().distanceSquared(location) <= radiusSquared)
-                .forEach(player -> player.playEffect(location, effect, data));
+        EncodedMessage.broadcast(createEffectMessage(location, effect, data), getRawPlayers()
+                .stream()
+                .filter(player -> !player.equals(exclude)
+                        && player.getLocation().distanceSquared(location) <= radiusSquared)
+                .collect(Collectors.toList()));
+    }
+
+    private static PlayEffectMessage createEffectMessage(Location location, Effect effect,
+            int data) {
+        return new PlayEffectMessage(effect.getId(), location.getBlockX(), location.getBlockY(),
+                location.getBlockZ(), data, false);
     }
 
     @Override
@@ -1804,9 +1879,11 @@ public class GlowWorld implements World {
         checkNotNull(sound);
 
         double radiusSquared = Math.pow(volume * 16, 2);
-        getRawPlayers().stream()
+        Message message = new NamedSoundEffectMessage(GlowSound.getVanillaId(sound), category,
+                location.getX(), location.getY(), location.getZ(), volume, pitch);
+        EncodedMessage.broadcast(message, getRawPlayers().stream()
                 .filter(player -> player.getLocation().distanceSquared(location) <= radiusSquared)
-                .forEach(player -> player.playSound(location, sound, category, volume, pitch));
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -1925,6 +2002,7 @@ public class GlowWorld implements World {
         if (EventFactory.getInstance().callEvent(new WorldUnloadEvent(this)).isCancelled()) {
             return false;
         }
+        chunkManager.shutdown();
         try {
             storage.getChunkIoService().unload();
             storage.getScoreboardIoService().unload();
@@ -2059,12 +2137,16 @@ public class GlowWorld implements World {
                     "wrong data type " + data.getClass() + " should be " + particle.getDataType());
         }
 
-        for (GlowPlayer player : getRawPlayers()) {
-            if (!player.getWorld().equals(this)) {
-                continue;
-            }
-            player.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, extra, data);
-        }
+        boolean isLongDistance = GlowParticle.isLongDistance(particle);
+        double rangeSquared = isLongDistance ? 262144.0D : 1024.0D;
+        Message message = new PlayParticleMessage(GlowParticle.getId(particle), isLongDistance,
+                (float) location.getX(), (float) location.getY(), (float) location.getZ(),
+                (float) offsetX, (float) offsetY, (float) offsetZ, (float) extra, count,
+                GlowParticle.getExtData(particle, data));
+        EncodedMessage.broadcast(message, getRawPlayers().stream()
+                .filter(player -> player.getWorld().equals(this)
+                        && player.getLocation().distanceSquared(location) <= rangeSquared)
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -2137,53 +2219,59 @@ public class GlowWorld implements World {
 
     private void pulseTickMap() {
         ItemTable itemTable = ItemTable.instance();
-        for (Location location : tickMap) {
-            GlowChunk chunk = (GlowChunk) location.getChunk();
+        for (ScheduledTick tick : blockTicks.pollDue()) {
+            int x = tick.getX();
+            int y = tick.getY();
+            int z = tick.getZ();
+            GlowChunk chunk = chunkManager.getChunk(x >> 4, z >> 4);
             if (!chunk.isLoaded()) {
+                // the tick was saved along with the chunk
                 continue;
             }
-            int typeId = chunk.getType(
-                    location.getBlockX() & 0xF, location.getBlockZ() & 0xF, location.getBlockY());
-            BlockType type = itemTable.getBlock(typeId);
+            BlockType type = itemTable.getBlock(chunk.getType(x & 0xF, z & 0xF, y));
             if (type == null) {
-                cancelPulse(location);
                 continue;
             }
-            GlowBlock block = new GlowBlock(chunk, location.getBlockX(), location
-                    .getBlockY(), location.getBlockZ());
-            Integer speed = type.getPulseTickSpeed(block);
-            boolean once = type.isPulseOnce(block);
-            if (speed == 0) {
+            GlowBlock block = new GlowBlock(chunk, x, y, z);
+            int speed = type.getPulseTickSpeed(block);
+            if (speed <= 0) {
                 continue;
             }
-            if (fullTime % speed == 0) {
-                type.receivePulse(block);
-                if (once) {
-                    cancelPulse(location);
-                }
+            if (tick.isAligned() && blockTicks.getCurrentTick() % speed != 0) {
+                blockTicks.schedule(x, y, z, blockTicks.getAlignedDelay(speed),
+                        tick.getPriority());
+                continue;
             }
+            if (!type.isPulseOnce(block)) {
+                // schedule the next pulse first, so that the block can cancel it while pulsing
+                blockTicks.schedule(x, y, z, blockTicks.getAlignedDelay(speed),
+                        tick.getPriority());
+            }
+            type.receivePulse(block);
         }
     }
 
-    public ConcurrentSet<Location> getTickMap() {
-        // TODO: replace with a facade
-        return tickMap;
+    private void markChunkChanged(int chunkX, int chunkZ) {
+        GlowChunk chunk = chunkManager.getChunkIfPresent(GlowChunk.Key.of(chunkX, chunkZ));
+        if (chunk != null) {
+            chunk.markChanged();
+        }
     }
 
     public void requestPulse(GlowBlock block) {
-        requestPulse(block.getLocation());
+        blockTicks.request(block.getX(), block.getY(), block.getZ());
     }
 
     public void requestPulse(Location location) {
-        tickMap.add(location);
+        blockTicks.request(location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
 
     public void cancelPulse(GlowBlock block) {
-        cancelPulse(block.getLocation());
+        blockTicks.cancel(block.getX(), block.getY(), block.getZ());
     }
 
     public void cancelPulse(Location location) {
-        tickMap.remove(location);
+        blockTicks.cancel(location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
 
     @Override
@@ -0,0 +1,197 @@
+package net.glowstone.block;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.glowstone.GlowWorld;
+import net.glowstone.block.entity.BlockEntity;
+import net.glowstone.chunk.GlowChunk;
+import net.glowstone.entity.GlowPlayer;
+import net.glowstone.net.message.play.game.BlockChangeMessage;
+import org.bukkit.Material;
+
+/**
+ * Changes many blocks of a world at once.
+ *
+ * <p>Each block is written straight to its chunk, so later reads through the world already see
+ * it, but nothing is sent to clients and no physics is applied until {@link #flush()}. The
+ * flush then handles the changes chunk by chunk: a chunk with few changes has them queued with
+ * each of its viewers, who send them as one multi-block change, while a chunk with many changes
+ * is sent to its viewers again in full. Players still waiting for a chunk are always queued the
+ * individual changes, which they hold back until the chunk has been sent.
+ *
+ * <p>Unlike {@link GlowBlock#setTypeIdAndData(int, byte, boolean)}, no special cases such as
+ * the other half of a double plant are handled; exactly the given blocks are changed.
+ */
+public final class BlockEditSession {
+
+    /**
+     * Chunks with more changes than this are resent in full rather than change by change.
+     */
+    private static final int RESEND_THRESHOLD = 64;
+
+    private final GlowWorld world;
+    private final boolean applyPhysics;
+    private final Map<GlowChunk.Key, ChunkChanges> chunks = new LinkedHashMap<>();
+    private ChunkChanges lastChunk;
+
+    /**
+     * Creates an edit session.
+     *
+     * @param world the world to change blocks in
+     * @param applyPhysics whether to apply physics to the changed blocks when flushing
+     */
+    public BlockEditSession(GlowWorld world, boolean applyPhysics) {
+        this.world = world;
+        this.applyPhysics = applyPhysics;
+    }
+
+    /**
+     * Sets the type and data of a block. The block entity at the position, if any, is replaced
+     * by a new one for the type.
+     *
+     * @param x the x coordinate of the block
+     * @param y the y coordinate of the block
+     * @param z the z coordinate of the block
+     * @param type the new type ID
+     * @param data the new data value
+     */
+    public void setTypeIdAndData(int x, int y, int z, int type, int data) {
+        if (y < 0 || y >= GlowChunk.DEPTH) {
+            return;
+        }
+        ChunkChanges changes = getChanges(x >> 4, z >> 4);
+        GlowChunk chunk = changes.chunk;
+        int chunkX = x & 0xf;
+        int chunkZ = z & 0xf;
+        int oldState = chunk.getType(chunkX, chunkZ, y) << 4
+                | chunk.getMetaData(chunkX, chunkZ, y);
+        chunk.setTypeAndData(chunkX, chunkZ, y, type, data);
+        // a block changed twice keeps the state from before its first change
+        changes.changes.putIfAbsent(y << 8 | chunkZ << 4 | chunkX, new Change(x, y, z, oldState));
+    }
+
+    /**
+     * Sets the type of a block, with a data value of 0.
+     *
+     * @param x the x coordinate of the block
+     * @param y the y coordinate of the block
+     * @param z the z coordinate of the block
+     * @param type the new type
+     */
+    public void setType(int x, int y, int z, Material type) {
+        setTypeIdAndData(x, y, z, type.getId(), 0);
+    }
+
+    /**
+     * Returns the number of blocks changed since the last flush.
+     *
+     * @return the number of changed blocks
+     */
+    public int getChangeCount() {
+        int count = 0;
+        for (ChunkChanges changes : chunks.values()) {
+            count += changes.changes.size();
+        }
+        return count;
+    }
+
+    /**
+     * Sends the changes to the viewers of their chunks and applies physics to the changed blocks,
+     * if enabled. The session can be used again afterwards.
+     */
+    public void flush() {
+        for (ChunkChanges changes : chunks.values()) {
+            GlowChunk chunk = changes.chunk;
+            boolean resend = changes.changes.size() > RESEND_THRESHOLD;
+            if (resend) {
+                // the chunk data includes the block entities
+                for (GlowPlayer player : chunk.getRawViewers()) {
+                    player.sendAfterBlockChanges(chunk.toMessage());
+                }
+                if (chunk.getRawPendingViewers().isEmpty()) {
+                    continue;
+                }
+            }
+            // players still waiting for the chunk may get a copy from before the changes, so they
+            // hold the block changes back until they have it
+            for (Change change : changes.changes.values()) {
+                int chunkX = change.x & 0xf;
+                int chunkZ = change.z & 0xf;
+                BlockChangeMessage message = new BlockChangeMessage(change.x, change.y, change.z,
+                        chunk.getType(chunkX, chunkZ, change.y),
+                        chunk.getMetaData(chunkX, chunkZ, change.y));
+                for (GlowPlayer player : chunk.getRawPendingViewers()) {
+                    player.sendBlockChangeForce(message);
+                }
+                if (resend) {
+                    continue;
+                }
+                for (GlowPlayer player : chunk.getRawViewers()) {
+                    player.sendBlockChangeForce(message);
+                }
+                BlockEntity entity = chunk.getEntity(chunkX, change.y, chunkZ);
+                if (entity != null) {
+                    entity.updateInRange();
+                }
+            }
+        }
+
+        if (applyPhysics) {
+            for (ChunkChanges changes : chunks.values()) {
+                GlowChunk chunk = changes.chunk;
+                for (Change change : changes.changes.values()) {
+                    int chunkX = change.x & 0xf;
+                    int chunkZ = change.z & 0xf;
+                    GlowBlock block = new GlowBlock(chunk, change.x, change.y, change.z);
+                    block.applyPhysics(Material.getMaterial(change.oldState >> 4),
+                            chunk.getType(chunkX, chunkZ, change.y), (byte) (change.oldState & 0xf),
+                            (byte) chunk.getMetaData(chunkX, chunkZ, change.y));
+                }
+            }
+        }
+
+        chunks.clear();
+        lastChunk = null;
+    }
+
+    private ChunkChanges getChanges(int chunkX, int chunkZ) {
+        if (lastChunk != null && lastChunk.chunk.getX() == chunkX
+                && lastChunk.chunk.getZ() == chunkZ) {
+            return lastChunk;
+        }
+        lastChunk = chunks.computeIfAbsent(GlowChunk.Key.of(chunkX, chunkZ),
+                key -> new ChunkChanges(world.getChunkAt(chunkX, chunkZ)));
+        return lastChunk;
+    }
+
+    /**
+     * The changed blocks of one chunk, by position within the chunk.
+     */
+    private static final class ChunkChanges {
+
+        private final GlowChunk chunk;
+        private final Map<Integer, Change> changes = new LinkedHashMap<>();
+
+        private ChunkChanges(GlowChunk chunk) {
+            this.chunk = chunk;
+        }
+    }
+
+    /**
+     * A changed block, with its state from before the first change in this session.
+     */
+    private static final class Change {
+
+        private final int x;
+        private final int y;
+        private final int z;
+        private final int oldState;
+
+        private Change(int x, int y, int z, int oldState) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.oldState = oldState;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package net.glowstone.block;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import lombok.Getter;
+
+/**
+ * The scheduled block ticks of a world.
+ *
+ * <p>Block ticks are kept in a queue ordered by the tick they are due on, so that each tick only
+ * visits the blocks which are actually due. Positions are packed into longs, and every scheduled
+ * tick is also filed under its chunk so that it can be saved and discarded along with that chunk.
+ *
+ * <p>Ticks are counted by {@link #pollDue()} rather than taken from the world time, so changing
+ * the time neither stalls nor floods the queue.
+ *
+ * <p>Every change to the ticks of a chunk is reported to a {@link ChunkListener}, so that the chunk
+ * knows to save them.
+ *
+ * <p>Safe to use from any thread.
+ */
+public final class BlockTickScheduler {
+
+    private static final Comparator<ScheduledTick> ORDER = Comparator
+            .comparingLong(ScheduledTick::getDue)
+            .thenComparingInt(ScheduledTick::getPriority)
+            .thenComparingLong(tick -> tick.sequence);
+
+    /**
+     * The scheduled ticks, including cancelled ones which have not been polled yet.
+     */
+    private final PriorityQueue<ScheduledTick> queue = new PriorityQueue<>(ORDER);
+
+    /**
+     * The scheduled tick of each packed position.
+     */
+    private final Long2ObjectOpenHashMap<ScheduledTick> scheduled = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The scheduled ticks in each chunk, by packed position.
+     */
+    private final Long2ObjectOpenHashMap<Long2ObjectOpenHashMap<ScheduledTick>> chunks
+            = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The number of ticks polled so far.
+     *
+     * @return the current tick
+     */
+    @Getter
+    private long currentTick;
+
+    private long sequence;
+
+    private final ChunkListener listener;
+
+    /**
+     * Creates a scheduler which doesn't report changes.
+     */
+    public BlockTickScheduler() {
+        this((chunkX, chunkZ) -> {
+        });
+    }
+
+    /**
+     * Creates a scheduler which reports each chunk whose scheduled ticks change.
+     *
+     * @param listener called when a tick is scheduled, cancelled or polled in a chunk
+     */
+    public BlockTickScheduler(ChunkListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Packs a block position into a long.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate, from 0 to 4095
+     * @param z the z coordinate
+     * @return the packed position
+     */
+    public static long pack(int x, int y, int z) {
+        return (x & 0x3FFFFFFL) << 38 | (z & 0x3FFFFFFL) << 12 | y & 0xFFFL;
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    public static int unpackY(long position) {
+        return (int) (position & 0xFFF);
+    }
+
+    public static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Schedules a block tick for the given number of ticks from now, unless the block already has
+     * one.
+     *
+     * @param x the x coordinate of the block
+     * @param y the y coordinate of the block
+     * @param z the z coordinate of the block
+     * @param delay the number of ticks until the block is due; at least 1 is used
+     * @param priority the order among the blocks due on the same tick, lowest first
+     * @return true if the tick was scheduled, false if the block already had one
+     */
+    public boolean schedule(int x, int y, int z, int delay, int priority) {
+        return schedule(x, y, z, delay, priority, false);
+    }
+
+    /**
+     * Schedules a block tick for the next tick which is a multiple of the block's pulse speed,
+     * unless the block already has one. The speed is only looked up once the block is polled, so
+     * the block may still change type before then.
+     *
+     * @param x the x coordinate of the block
+     * @param y the y coordinate of the block
+     * @param z the z coordinate of the block
+     * @return true if the tick was scheduled, false if the block already had one
+     */
+    public boolean request(int x, int y, int z) {
+        return schedule(x, y, z, 1, 0, true);
+    }
+
+    private synchronized boolean schedule(int x, int y, int z, int delay, int priority,
+            boolean aligned) {
+        long position = pack(x, y, z);
+        if (scheduled.containsKey(position)) {
+            return false;
+        }
+        ScheduledTick tick = new ScheduledTick(position, currentTick + Math.max(delay, 1),
+                priority, aligned, sequence++);
+        scheduled.put(position, tick);
+        queue.add(tick);
+        long chunk = chunkKey(x >> 4, z >> 4);
+        Long2ObjectOpenHashMap<ScheduledTick> chunkTicks = chunks.get(chunk);
+        if (chunkTicks == null) {
+            chunkTicks = new Long2ObjectOpenHashMap<>();
+            chunks.put(chunk, chunkTicks);
+        }
+        chunkTicks.put(position, tick);
+        listener.ticksChanged(x >> 4, z >> 4);
+        return true;
+    }
+
+    /**
+     * Cancels the scheduled tick of a block, if it has one.
+     *
+     * @param x the x coordinate of the block
+     * @param y the y coordinate of the block
+     * @param z the z coordinate of the block
+     */
+    public synchronized void cancel(int x, int y, int z) {
+        long position = pack(x, y, z);
+        ScheduledTick tick = scheduled.remove(position);
+        if (tick != null) {
+            tick.cancelled = true;
+            removeFromChunk(position);
+            listener.ticksChanged(x >> 4, z >> 4);
+        }
+    }
+
+    /**
+     * Checks whether a block has a scheduled tick.
+     *
+     * @param x the x coordinate of the block
+     * @param y the y coordinate of the block
+     * @param z the z coordinate of the block
+     * @return true if the block has a scheduled tick
+     */
+    public synchronized boolean isScheduled(int x, int y, int z) {
+        return scheduled.containsKey(pack(x, y, z));
+    }
+
+    /**
+     * Advances to the next tick, and removes and returns the block ticks which are due.
+     *
+     * @return the due ticks, in the order they should run
+     */
+    public synchronized List<ScheduledTick> pollDue() {
+        currentTick++;
+        List<ScheduledTick> due = new ArrayList<>();
+        ScheduledTick tick;
+        while ((tick = queue.peek()) != null && tick.due <= currentTick) {
+            queue.poll();
+            if (!tick.cancelled) {
+                scheduled.remove(tick.position);
+                removeFromChunk(tick.position);
+                listener.ticksChanged(tick.getX() >> 4, tick.getZ() >> 4);
+                due.add(tick);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Returns the number of ticks until the next tick which is a multiple of the given period.
+     *
+     * @param period the period, in ticks
+     * @return the delay, from 1 to {@code period}
+     */
+    public synchronized int getAlignedDelay(int period) {
+        return period - (int) (currentTick % period);
+    }
+
+    /**
+     * Returns the number of ticks until a scheduled tick is due.
+     *
+     * @param tick the scheduled tick
+     * @return the delay, or 0 if the tick is overdue
+     */
+    public synchronized int getDelay(ScheduledTick tick) {
+        return (int) Math.max(tick.due - currentTick, 0);
+    }
+
+    /**
+     * Returns the block ticks scheduled in a chunk.
+     *
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     * @return the scheduled ticks, in no particular order
+     */
+    public synchronized List<ScheduledTick> getScheduledTicks(int chunkX, int chunkZ) {
+        Long2ObjectOpenHashMap<ScheduledTick> chunkTicks = chunks.get(chunkKey(chunkX, chunkZ));
+        return chunkTicks == null ? new ArrayList<>(0) : new ArrayList<>(chunkTicks.values());
+    }
+
+    /**
+     * Checks whether any block ticks are scheduled in a chunk.
+     *
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     * @return true if the chunk has scheduled ticks
+     */
+    public synchronized boolean hasScheduledTicks(int chunkX, int chunkZ) {
+        return chunks.containsKey(chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Discards the block ticks scheduled in a chunk which is being unloaded. They are restored
+     * from the chunk's saved data when it is loaded again.
+     *
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     */
+    public synchronized void unloadChunk(int chunkX, int chunkZ) {
+        Long2ObjectOpenHashMap<ScheduledTick> chunkTicks = chunks.remove(chunkKey(chunkX, chunkZ));
+        if (chunkTicks == null) {
+            return;
+        }
+        for (ScheduledTick tick : chunkTicks.values()) {
+            scheduled.remove(tick.position);
+            tick.cancelled = true;
+        }
+    }
+
+    private void removeFromChunk(long position) {
+        long chunk = chunkKey(unpackX(position) >> 4, unpackZ(position) >> 4);
+        Long2ObjectOpenHashMap<ScheduledTick> chunkTicks = chunks.get(chunk);
+        if (chunkTicks != null && chunkTicks.remove(position) != null && chunkTicks.isEmpty()) {
+            chunks.remove(chunk);
+        }
+    }
+
+    /**
+     * Told when the scheduled ticks of a chunk change, so the chunk can be saved again.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        /**
+         * Called when a tick is scheduled, cancelled or polled in a chunk.
+         *
+         * @param chunkX the x coordinate of the chunk
+         * @param chunkZ the z coordinate of the chunk
+         */
+        void ticksChanged(int chunkX, int chunkZ);
+    }
+
+    /**
+     * A block tick in the queue.
+     */
+    public static final class ScheduledTick {
+
+        @Getter
+        private final long position;
+        @Getter
+        private final long due;
+        @Getter
+        private final int priority;
+        /**
+         * Whether the tick should wait for the next multiple of the block's pulse speed once it
+         * is due.
+         *
+         * @return true if the tick is aligned to the pulse speed
+         */
+        @Getter
+        private final boolean aligned;
+        private final long sequence;
+        private boolean cancelled;
+
+        private ScheduledTick(long position, long due, int priority, boolean aligned,
+                long sequence) {
+            this.position = position;
+            this.due = due;
+            this.priority = priority;
+            this.aligned = aligned;
+            this.sequence = sequence;
+        }
+
+        public int getX() {
+            return unpackX(position);
+        }
+
+        public int getY() {
+            return unpackY(position);
+        }
+
+        public int getZ() {
+            return unpackZ(position);
+        }
+    }
+}
@@ -230,8 +230,7 @@ public class GlowBlock implements Block {
         byte oldData = getData();
 
         GlowChunk chunk = (GlowChunk) world.getChunkAt(this);
-        chunk.setType(x & 0xf, z & 0xf, y, type);
-        chunk.setMetaData(x & 0xf, z & 0xf, y, data);
+        chunk.setTypeAndData(x & 0xf, z & 0xf, y, type, data);
 
         if (oldTypeId == Material.DOUBLE_PLANT
                 && getRelative(BlockFace.UP).getType() == Material.DOUBLE_PLANT) {
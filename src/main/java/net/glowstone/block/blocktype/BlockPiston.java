@@ -70,7 +70,6 @@ public class BlockPiston extends BlockDirectional {
             me.isBlockIndirectlyPowered() ? 0 : 1, rawFace, me.getTypeId());
 
         GlowChunk chunk = me.getChunk();
-        GlowChunk.Key chunkKey = GlowChunk.Key.of(chunk.getX(), chunk.getZ());
         GlowWorld world = me.getWorld();
 
         if (me.isBlockIndirectlyPowered() && !isPistonExtended(me)) {
@@ -96,7 +95,7 @@ public class BlockPiston extends BlockDirectional {
                 blocks.add(block);
             }
 
-            world.getRawPlayers().stream().filter(player -> player.canSeeChunk(chunkKey))
+            chunk.getRawViewers()
                 .forEach(player -> player.getSession().send(message));
             world.playSound(me.getLocation(), Sound.BLOCK_PISTON_EXTEND, SoundCategory.BLOCKS, 0.5f,
                 0.75f);
@@ -120,7 +119,7 @@ public class BlockPiston extends BlockDirectional {
             return;
         }
 
-        world.getRawPlayers().stream().filter(player -> player.canSeeChunk(chunkKey))
+        chunk.getRawViewers()
             .forEach(player -> player.getSession().send(message));
         world.playSound(me.getLocation(), Sound.BLOCK_PISTON_CONTRACT, SoundCategory.BLOCKS, 0.5f,
             0.75f);
@@ -162,7 +161,6 @@ public class BlockPiston extends BlockDirectional {
         int y = block.getY();
         int z = block.getZ();
         GlowChunk chunk = (GlowChunk) world.getChunkAt(block);
-        chunk.setType(x & 0xf, z & 0xf, y, type);
-        chunk.setMetaData(x & 0xf, z & 0xf, y, data);
+        chunk.setTypeAndData(x & 0xf, z & 0xf, y, type, data);
     }
 }
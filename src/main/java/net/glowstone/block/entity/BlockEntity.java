@@ -4,7 +4,6 @@ import lombok.Getter;
 import net.glowstone.block.GlowBlock;
 import net.glowstone.block.GlowBlockState;
 import net.glowstone.chunk.GlowChunk;
-import net.glowstone.chunk.GlowChunk.Key;
 import net.glowstone.entity.GlowPlayer;
 import net.glowstone.util.nbt.CompoundTag;
 
@@ -36,12 +35,13 @@ public abstract class BlockEntity {
     // Utility stuff
 
     /**
-     * Update this BlockEntity's visible state to all players in range.
+     * Update this BlockEntity's visible state to all players in range, and mark its chunk as
+     * changed so that the new state is saved.
      */
     public final void updateInRange() {
-        Key key = GlowChunk.Key.of(block.getX() >> 4, block.getZ() >> 4);
-        block.getWorld().getRawPlayers().stream().filter(player -> player.canSeeChunk(key))
-            .forEach(this::update);
+        GlowChunk chunk = block.getChunk();
+        chunk.markChanged();
+        chunk.getRawViewers().forEach(this::update);
     }
 
     ////////////////////////////////////////////////////////////////////////////
@@ -104,6 +104,23 @@ public abstract class BlockEntity {
         tag.putInt("z", block.getZ());
     }
 
+    /**
+     * Check whether this BlockEntity has changed since its chunk was last saved in a way that
+     * {@link #updateInRange()} was not called for, such as the contents of an inventory.
+     *
+     * @return true if this BlockEntity needs to be saved again
+     */
+    public boolean isDirty() {
+        return false;
+    }
+
+    /**
+     * Record that the current state of this BlockEntity has been saved along with its chunk.
+     */
+    public void markSaved() {
+        // nothing by default
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // Overridable stuff
 
@@ -1,5 +1,6 @@
 package net.glowstone.block.entity;
 
+import java.util.Arrays;
 import lombok.Getter;
 import net.glowstone.block.GlowBlock;
 import net.glowstone.inventory.GlowInventory;
@@ -14,6 +15,12 @@ public abstract class ContainerEntity extends BlockEntity {
 
     @Getter
     private final GlowInventory inventory;
+    /**
+     * Copies of the inventory contents and title as they were when the chunk was last saved. The
+     * contents are changed in place from many places, so they are compared rather than tracked.
+     */
+    private ItemStack[] savedContents;
+    private String savedTitle;
 
     public ContainerEntity(GlowBlock block, GlowInventory inventory) {
         super(block);
@@ -41,4 +48,22 @@ public abstract class ContainerEntity extends BlockEntity {
             tag.putString("CustomName", inventory.getTitle());
         }
     }
+
+    @Override
+    public boolean isDirty() {
+        return !inventory.getTitle().equals(savedTitle)
+            || !Arrays.equals(inventory.getContents(), savedContents);
+    }
+
+    @Override
+    public void markSaved() {
+        ItemStack[] contents = inventory.getContents();
+        for (int i = 0; i < contents.length; i++) {
+            if (contents[i] != null) {
+                contents[i] = contents[i].clone();
+            }
+        }
+        savedContents = contents;
+        savedTitle = inventory.getTitle();
+    }
 }
@@ -6,10 +6,19 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import lombok.Getter;
 import net.glowstone.EventFactory;
@@ -21,6 +30,7 @@ import net.glowstone.generator.GlowChunkData;
 import net.glowstone.generator.GlowChunkGenerator;
 import net.glowstone.generator.biomegrid.MapLayer;
 import net.glowstone.io.ChunkIoService;
+import net.glowstone.io.ChunkIoService.DecodedChunk;
 import org.bukkit.Material;
 import org.bukkit.block.Biome;
 import org.bukkit.event.world.ChunkLoadEvent;
@@ -69,6 +79,43 @@ public final class ChunkManager {
      */
     private final Multiset<Key> lockSet = ConcurrentHashMultiset.create();
 
+    /**
+     * The chunks which are currently being prepared by {@link #prepareChunk(int, int)}.
+     */
+    private final ConcurrentMap<Key, CompletableFuture<GlowChunk>> preparing =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The chunks which are currently being read by {@link #loadChunkAsync(int, int, boolean)}.
+     */
+    private final ConcurrentMap<Key, CompletableFuture<Boolean>> reading =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The chunks which are currently being generated by
+     * {@link #loadChunkAsync(int, int, boolean)}.
+     */
+    private final ConcurrentMap<Key, CompletableFuture<Boolean>> generating =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The executor on which new chunks are generated. This is a fork-join pool if the generator
+     * can generate several chunks at once, and a single thread otherwise. Generated chunks are
+     * handed back to the world thread to be applied.
+     */
+    private final ExecutorService generationExecutor;
+
+    /**
+     * The work handed back to the world thread by chunk loading and preparation, run at the start
+     * of each {@linkplain #pulse() pulse}.
+     */
+    private final Queue<Runnable> worldTasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Runs tasks on the world thread, by queueing them for the next {@linkplain #pulse() pulse}.
+     */
+    private final Executor worldExecutor = worldTasks::add;
+
     /**
      * Creates a new chunk manager with the specified I/O service and world generator.
      *
@@ -82,6 +129,35 @@ public final class ChunkManager {
         this.generator = generator;
         biomeGrid = MapLayer.initialize(
                 world.getSeed(), world.getEnvironment(), world.getWorldType());
+        int threads = world.getServer().getGenerationThreads();
+        if (threads > 1 && generator instanceof GlowChunkGenerator
+                && ((GlowChunkGenerator) generator).isParallelCapable()) {
+            generationExecutor = new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread =
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(
+                        "Glowstone-generator-" + world.getName() + "-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        } else {
+            generationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Glowstone-generator-" + world.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs the chunk work which has been handed back to the world thread: applying chunks which
+     * have been generated, and populating chunks which are being prepared. Called at the start
+     * of each world tick.
+     */
+    public void pulse() {
+        Runnable task;
+        while ((task = worldTasks.poll()) != null) {
+            task.run();
+        }
     }
 
     /**
@@ -93,14 +169,20 @@ public final class ChunkManager {
      */
     public GlowChunk getChunk(int x, int z) {
         Key key = GlowChunk.Key.of(x, z);
-        if (chunks.containsKey(key)) {
-            return chunks.get(key);
-        } else {
-            // only create chunk if it's not in the map already
-            GlowChunk chunk = new GlowChunk(world, x, z);
-            chunks.put(key, chunk);
-            return chunk;
-        }
+        // only create chunk if it's not in the map already; chunks may be requested from the
+        // preparation thread and the world thread at the same time
+        return chunks.computeIfAbsent(key, k -> new GlowChunk(world, x, z));
+    }
+
+    /**
+     * Gets the chunk object representing the specified coordinates if there is one, without
+     * creating it.
+     *
+     * @param key The coordinates of the chunk.
+     * @return The chunk, which might not be loaded, or null if there is no object for it.
+     */
+    public GlowChunk getChunkIfPresent(Key key) {
+        return chunks.get(key);
     }
 
     /**
@@ -146,9 +228,15 @@ public final class ChunkManager {
      * @return true if the chunk was loaded or generated successfully, false otherwise
      */
     public boolean loadChunk(GlowChunk chunk, boolean generate) {
+        if (chunk.isLoaded()) {
+            // loaded asynchronously in the meantime
+            return true;
+        }
+
         // try to load chunk
         try {
             if (service.read(chunk)) {
+                chunk.markSaved(chunk.getVersion());
                 EventFactory.getInstance()
                         .callEvent(new ChunkLoadEvent(chunk, false));
                 return true;
@@ -167,16 +255,34 @@ public final class ChunkManager {
             return false;
         }
 
-        // get generating
+        return generateNewChunk(chunk);
+    }
+
+    /**
+     * Generates a chunk which could not be read from disk; handles exceptions.
+     */
+    private boolean generateNewChunk(GlowChunk chunk) {
+        GeneratedChunk generated;
         try {
-            generateChunk(chunk, chunk.getX(), chunk.getZ());
+            generated = generateChunk(chunk.getX(), chunk.getZ());
         } catch (Throwable ex) {
             GlowServer.logger.log(Level.SEVERE,
                     "Error while generating chunk (" + chunk.getX() + "," + chunk.getZ() + ")",
                     ex);
             return false;
         }
+        return applyGeneratedChunk(chunk, generated);
+    }
 
+    /**
+     * Initializes a chunk with the blocks and biomes generated for it, unless it has been loaded
+     * in the meantime. Must be called on the world thread.
+     */
+    private boolean applyGeneratedChunk(GlowChunk chunk, GeneratedChunk generated) {
+        if (chunk.isLoaded()) {
+            return true;
+        }
+        generated.initialize(chunk);
         EventFactory.getInstance().callEvent(new ChunkLoadEvent(chunk, true));
 
         // right now, forcePopulate takes care of populating chunks that players actually see.
@@ -189,22 +295,141 @@ public final class ChunkManager {
     }
 
     /**
-     * Unload chunks with no locks on them.
+     * Loads a chunk without blocking the calling thread. The chunk is read and decoded by the
+     * chunk I/O service and, if needed and allowed, generated on the chunk generation threads.
+     * Chunks are generated in parallel if the generator supports it, and the result is the same
+     * as when they are generated one at a time. The chunk is initialized and the load event is
+     * called on the world thread, which also completes the returned future.
+     *
+     * @param x The X coordinate of the chunk to load.
+     * @param z The Z coordinate of the chunk to load.
+     * @param generate Whether to generate the chunk if needed.
+     * @return A future completing with true on success, false on failure.
+     */
+    public CompletableFuture<Boolean> loadChunkAsync(int x, int z, boolean generate) {
+        GlowChunk chunk = getChunk(x, z);
+        if (chunk.isLoaded()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        Key key = GlowChunk.Key.of(x, z);
+        CompletableFuture<Boolean> read = reading.get(key);
+        if (read == null) {
+            CompletableFuture<Boolean> created = new CompletableFuture<>();
+            read = reading.putIfAbsent(key, created);
+            if (read == null) {
+                read = created;
+                service.readAsync(chunk).whenCompleteAsync((decoded, ex) -> {
+                    reading.remove(key, created);
+                    created.complete(applyReadChunk(chunk, decoded, ex));
+                }, worldExecutor);
+            }
+        }
+        if (!generate) {
+            return read;
+        }
+        CompletableFuture<Boolean> generated = generating.get(key);
+        if (generated == null) {
+            CompletableFuture<Boolean> created = new CompletableFuture<>();
+            generated = generating.putIfAbsent(key, created);
+            if (generated == null) {
+                generated = created;
+                read.thenCompose(success -> {
+                    if (success || chunk.isLoaded()
+                            || world.getServer().isGenerationDisabled()) {
+                        return CompletableFuture.completedFuture(success || chunk.isLoaded());
+                    }
+                    return generateChunkAsync(x, z).thenApplyAsync(generatedChunk ->
+                            generatedChunk != null && applyGeneratedChunk(chunk, generatedChunk),
+                            worldExecutor);
+                }).whenComplete((success, ex) -> {
+                    generating.remove(key, created);
+                    if (ex != null) {
+                        created.completeExceptionally(ex);
+                    } else {
+                        created.complete(success);
+                    }
+                });
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * Initializes a chunk from the data read for it off the world thread, and calls the load
+     * event; handles exceptions. Must be called on the world thread.
+     *
+     * @param chunk the chunk to initialize
+     * @param decoded the data read for the chunk, if reading it succeeded
+     * @param readError the error which occurred while reading the chunk, if any
+     * @return true if the chunk was loaded, false if it isn't stored or couldn't be read
+     */
+    private boolean applyReadChunk(GlowChunk chunk, DecodedChunk decoded, Throwable readError) {
+        if (chunk.isLoaded()) {
+            // loaded synchronously in the meantime
+            return true;
+        }
+        Throwable error = readError;
+        if (error == null) {
+            try {
+                if (!decoded.applyTo(chunk)) {
+                    return false;
+                }
+                chunk.markSaved(chunk.getVersion());
+                EventFactory.getInstance().callEvent(new ChunkLoadEvent(chunk, false));
+                return true;
+            } catch (Throwable ex) {
+                error = ex;
+            }
+        }
+        GlowServer.logger.log(Level.SEVERE,
+                "Error while loading chunk (" + chunk.getX() + "," + chunk.getZ() + ")", error);
+        // as in loadChunk, the chunk may have been left half initialized
+        chunk.unload(false, false);
+        return false;
+    }
+
+    /**
+     * Generates a chunk on the chunk generation threads, without applying it to the chunk.
+     *
+     * @return a future completing with the generated chunk, or null if generation failed
+     */
+    private CompletableFuture<GeneratedChunk> generateChunkAsync(int x, int z) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return generateChunk(x, z);
+                } catch (Throwable ex) {
+                    GlowServer.logger.log(Level.SEVERE,
+                            "Error while generating chunk (" + x + "," + z + ")", ex);
+                    return null;
+                }
+            }, generationExecutor);
+        } catch (RejectedExecutionException ex) {
+            // the world is shutting down
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Unload chunks with no locks on them. Chunks which are locked, or which are still being read
+     * or generated, are kept.
      */
     public void unloadOldChunks() {
         Iterator<Entry<Key, GlowChunk>> chunksEntryIter = chunks.entrySet().iterator();
         while (chunksEntryIter.hasNext()) {
             Entry<Key, GlowChunk> entry = chunksEntryIter.next();
-            if (!lockSet.contains(entry.getKey())) {
-                if (!entry.getValue().unload(true, true)) {
-                    GlowServer.logger.warning(
-                            "Failed to unload chunk " + world.getName() + ":" + entry.getKey());
-                }
+            Key key = entry.getKey();
+            if (lockSet.contains(key) || reading.containsKey(key)
+                    || generating.containsKey(key)) {
+                continue;
+            }
+            if (!entry.getValue().unload(true, true)) {
+                GlowServer.logger.warning(
+                        "Failed to unload chunk " + world.getName() + ":" + key);
             }
             if (!entry.getValue().isLoaded()) {
-                //GlowServer.logger.info("Removing from cache " + entry.getKey());
+                //GlowServer.logger.info("Removing from cache " + key);
                 chunksEntryIter.remove();
-                lockSet.setCount(entry.getKey(), 0);
             }
         }
     }
@@ -263,9 +488,98 @@ public final class ChunkManager {
     }
 
     /**
-     * Initialize a single chunk from the chunk generator.
+     * Loads, generates and populates a chunk and its eight neighbors, so that it can be streamed
+     * to players without blocking the tick. Must be called on the world thread.
+     *
+     * <p>The chunks are read and generated off the world thread. Once the 5x5 chunks around this
+     * one are available, the 3x3 chunks around it are populated on the world thread, since their
+     * populators may write into this chunk and its neighbors. The 5x5 chunks are kept loaded
+     * until then. Once the returned future completes, the chunk will no longer be changed by
+     * population.
+     *
+     * @param x The X coordinate.
+     * @param z The Z coordinate.
+     * @return A future completing on the world thread with the prepared chunk.
+     */
+    public CompletableFuture<GlowChunk> prepareChunk(int x, int z) {
+        Key key = GlowChunk.Key.of(x, z);
+        CompletableFuture<GlowChunk> future = preparing.get(key);
+        if (future != null) {
+            return future;
+        }
+        if (isPrepared(x, z)) {
+            return CompletableFuture.completedFuture(getChunk(x, z));
+        }
+        CompletableFuture<GlowChunk> created = new CompletableFuture<>();
+        preparing.put(key, created);
+
+        // populating the 3x3 chunks around this one needs the 5x5 chunks around it
+        ChunkLock lock = new ChunkLock(this, "preparing " + key);
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[25];
+        for (int i = 0; i < loads.length; i++) {
+            int x2 = x + i % 5 - 2;
+            int z2 = z + i / 5 - 2;
+            lock.acquire(GlowChunk.Key.of(x2, z2));
+            loads[i] = loadChunkAsync(x2, z2, true);
+        }
+        CompletableFuture.allOf(loads).whenCompleteAsync((result, loadEx) -> {
+            try {
+                for (int x2 = x - 1; x2 <= x + 1; ++x2) {
+                    for (int z2 = z - 1; z2 <= z + 1; ++z2) {
+                        forcePopulation(x2, z2);
+                    }
+                }
+                created.complete(getChunk(x, z));
+            } catch (Throwable ex) {
+                created.completeExceptionally(ex);
+            } finally {
+                preparing.remove(key, created);
+                lock.clear();
+            }
+        }, worldExecutor);
+        return created;
+    }
+
+    /**
+     * Checks whether a chunk and its eight neighbors are loaded and populated.
+     */
+    private boolean isPrepared(int x, int z) {
+        for (int x2 = x - 1; x2 <= x + 1; ++x2) {
+            for (int z2 = z - 1; z2 <= z + 1; ++z2) {
+                GlowChunk chunk = chunks.get(GlowChunk.Key.of(x2, z2));
+                if (chunk == null || !chunk.isLoaded() || !chunk.isPopulated()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the chunk generation threads. Chunks which still have to be generated afterwards are
+     * only generated by synchronous loads.
      */
-    private void generateChunk(GlowChunk chunk, int x, int z) {
+    public void shutdown() {
+        generationExecutor.shutdown();
+    }
+
+    /**
+     * Blocks until all chunk saves started by {@link #performSave(GlowChunk)} are on disk.
+     */
+    public void flushSaves() {
+        try {
+            service.flush();
+        } catch (IOException ex) {
+            GlowServer.logger.log(Level.SEVERE, "Error while saving chunks of " + world, ex);
+        }
+    }
+
+    /**
+     * Generate the blocks and biomes of a single chunk with the chunk generator. Safe to call off
+     * the world thread, as long as the generator is only called from one thread at a time or
+     * {@linkplain GlowChunkGenerator#isParallelCapable() supports} parallel generation.
+     */
+    private GeneratedChunk generateChunk(int x, int z) {
         Random random = new Random(x * 341873128712L + z * 132897987541L);
         BiomeGrid biomes = new BiomeGrid();
 
@@ -307,10 +621,7 @@ public final class ChunkManager {
                         sections[i] = ChunkSection.fromStateArray(extSections[i]);
                     }
                 }
-                chunk.initializeSections(sections);
-                chunk.setBiomes(biomes.biomes);
-                chunk.automaticHeightMap();
-                return;
+                return new GeneratedChunk(sections, biomes.biomes);
             }
         }
 
@@ -323,10 +634,7 @@ public final class ChunkManager {
                     sections[i] = ChunkSection.fromIdArray(extSections[i]);
                 }
             }
-            chunk.initializeSections(sections);
-            chunk.setBiomes(biomes.biomes);
-            chunk.automaticHeightMap();
-            return;
+            return new GeneratedChunk(sections, biomes.biomes);
         }
 
         // normal sections
@@ -338,10 +646,7 @@ public final class ChunkManager {
                     sections[i] = ChunkSection.fromIdArray(blockSections[i]);
                 }
             }
-            chunk.initializeSections(sections);
-            chunk.setBiomes(biomes.biomes);
-            chunk.automaticHeightMap();
-            return;
+            return new GeneratedChunk(sections, biomes.biomes);
         }
 
         // deprecated flat generation
@@ -362,9 +667,7 @@ public final class ChunkManager {
             }
             sections[sy] = sec;
         }
-        chunk.initializeSections(sections);
-        chunk.setBiomes(biomes.biomes);
-        chunk.automaticHeightMap();
+        return new GeneratedChunk(sections, biomes.biomes);
     }
 
     /**
@@ -383,7 +686,7 @@ public final class ChunkManager {
 
         chunk.setPopulated(false);
         try {
-            generateChunk(chunk, x, z);
+            generateChunk(x, z).initialize(chunk);
             populateChunk(x, z, false);  // should this be forced?
         } catch (Throwable ex) {
             GlowServer.logger.log(Level.SEVERE,
@@ -403,7 +706,9 @@ public final class ChunkManager {
     }
 
     /**
-     * Performs the save for the given chunk using the storage provider.
+     * Performs the save for the given chunk using the storage provider. The state of the chunk is
+     * captured immediately, while serializing and writing it to disk happens on the chunk I/O
+     * threads. This must be called on the thread which changes the chunk.
      *
      * @param chunk The chunk to save.
      * @return True if the save was successful.
@@ -411,7 +716,9 @@ public final class ChunkManager {
     public boolean performSave(GlowChunk chunk) {
         if (chunk.isLoaded()) {
             try {
-                service.write(chunk);
+                int version = chunk.getVersion();
+                service.writeAsync(chunk);
+                chunk.markSaved(version);
                 return true;
             } catch (IOException ex) {
                 GlowServer.logger.log(Level.SEVERE, "Error while saving " + chunk, ex);
@@ -421,6 +728,17 @@ public final class ChunkManager {
         return false;
     }
 
+    /**
+     * Saves a chunk if it has changed since it was loaded or last saved.
+     *
+     * @param chunk The chunk to save.
+     * @return True if the chunk is unchanged or was saved successfully.
+     * @see GlowChunk#isDirty()
+     */
+    public boolean saveIfDirty(GlowChunk chunk) {
+        return chunk.isLoaded() && (!chunk.isDirty() || performSave(chunk));
+    }
+
     public int[] getBiomeGridAtLowerRes(int x, int z, int sizeX, int sizeZ) {
         return biomeGrid[1].generateValues(x, z, sizeX, sizeZ);
     }
@@ -509,6 +827,29 @@ public final class ChunkManager {
         }
     }
 
+    /**
+     * The blocks and biomes generated for a chunk, which have not been applied to it yet.
+     */
+    private static final class GeneratedChunk {
+
+        private final ChunkSection[] sections;
+        private final byte[] biomes;
+
+        private GeneratedChunk(ChunkSection[] sections, byte[] biomes) {
+            this.sections = sections;
+            this.biomes = biomes;
+        }
+
+        /**
+         * Initializes a chunk which is not loaded with the generated blocks and biomes.
+         */
+        void initialize(GlowChunk chunk) {
+            chunk.initializeSections(sections);
+            chunk.setBiomes(biomes);
+            chunk.automaticHeightMap();
+        }
+    }
+
     /**
      * A BiomeGrid implementation for chunk generation.
      */
@@ -0,0 +1,432 @@
+package net.glowstone.chunk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import lombok.Getter;
+import net.glowstone.GlowServer;
+import net.glowstone.GlowWorld;
+import net.glowstone.chunk.ChunkManager.ChunkLock;
+import net.glowstone.chunk.GlowChunk.Key;
+import net.glowstone.util.TickUtil;
+import net.glowstone.util.nbt.CompoundTag;
+import net.glowstone.util.nbt.NbtInputStream;
+import net.glowstone.util.nbt.NbtOutputStream;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Generates, populates and saves a rectangle of chunks ahead of player traffic.
+ *
+ * <p>Chunks are prepared in a spiral from the center of the rectangle outwards, a few at a time
+ * so that the world generation threads stay busy without the tick falling behind. Progress is
+ * saved in the world folder, so that an interrupted run can be {@linkplain #resume resumed}.
+ */
+public final class ChunkPregenerator implements Runnable {
+
+    /**
+     * The name of the file in the world folder which the progress is saved to.
+     */
+    public static final String STATE_FILE = "pregen.dat";
+
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+    private static final int UNLOAD_INTERVAL = TickUtil.secondsToTicks(15);
+    /**
+     * A tick taking longer than this means the server is falling behind, and no chunks are
+     * started until it catches up.
+     */
+    private static final long LATE_TICK = TimeUnit.MILLISECONDS.toNanos(75);
+
+    @Getter
+    private final GlowWorld world;
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+    /**
+     * The number of chunks in the rectangle.
+     *
+     * @return the total number of chunks
+     */
+    @Getter
+    private final long total;
+    private final CommandSender reporter;
+    private final Spiral spiral;
+    private final int maxInFlight;
+    private final ChunkLock lock;
+    private final Map<Key, Integer> lockCounts = new HashMap<>();
+    /**
+     * The chunks which have been started and have not completed yet, by spiral index.
+     */
+    private final TreeMap<Long, Key> inFlight = new TreeMap<>();
+    private final Queue<Long> completed = new ConcurrentLinkedQueue<>();
+    private final long startIndex;
+    /**
+     * The number of chunks which have been prepared, including those prepared before the run
+     * was resumed.
+     *
+     * @return the number of completed chunks
+     */
+    @Getter
+    private long done;
+    private long nextIndex;
+    private long startTime;
+    private long lastTick;
+    private long lastReport;
+    private int ticks;
+    private BukkitTask task;
+    /**
+     * Whether the run has been stopped, and is only waiting for the chunks in flight to finish
+     * before releasing their locks.
+     */
+    private boolean stopped;
+
+    /**
+     * Creates a pre-generation run for a rectangle of chunks.
+     *
+     * @param world the world to generate chunks in
+     * @param x1 the x coordinate of one corner chunk
+     * @param z1 the z coordinate of one corner chunk
+     * @param x2 the x coordinate of the opposite corner chunk
+     * @param z2 the z coordinate of the opposite corner chunk
+     * @param reporter who to send progress reports to
+     */
+    public ChunkPregenerator(GlowWorld world, int x1, int z1, int x2, int z2,
+            CommandSender reporter) {
+        this(world, Math.min(x1, x2), Math.min(z1, z2), Math.max(x1, x2), Math.max(z1, z2), 0,
+                reporter);
+    }
+
+    private ChunkPregenerator(GlowWorld world, int minX, int minZ, int maxX, int maxZ,
+            long startIndex, CommandSender reporter) {
+        this.world = world;
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+        this.reporter = reporter;
+        total = (maxX - minX + 1L) * (maxZ - minZ + 1L);
+        this.startIndex = Math.min(startIndex, total);
+        spiral = new Spiral();
+        for (long i = 0; i < this.startIndex; i++) {
+            spiral.next();
+        }
+        done = nextIndex = this.startIndex;
+        maxInFlight = Math.max(2, world.getServer().getGenerationThreads() * 2);
+        lock = world.newChunkLock("pregen");
+    }
+
+    /**
+     * Loads the saved progress of an interrupted run in a world.
+     *
+     * @param world the world
+     * @param reporter who to send progress reports to
+     * @return the run, or null if there is no saved progress
+     * @throws IOException if the saved progress can't be read
+     */
+    public static ChunkPregenerator resume(GlowWorld world, CommandSender reporter)
+            throws IOException {
+        File file = new File(world.getWorldFolder(), STATE_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (NbtInputStream in = new NbtInputStream(new FileInputStream(file))) {
+            CompoundTag tag = in.readCompound();
+            return new ChunkPregenerator(world, tag.getInt("MinX"), tag.getInt("MinZ"),
+                    tag.getInt("MaxX"), tag.getInt("MaxZ"), tag.getLong("Done"), reporter);
+        }
+    }
+
+    /**
+     * Starts preparing chunks, on the main thread once per tick.
+     */
+    public void start() {
+        startTime = lastTick = lastReport = System.nanoTime();
+        task = world.getServer().getScheduler().runTaskTimer(null, this, 1, 1);
+        report("Pre-generating " + total + " chunks in " + world.getName() + " from ["
+                + minX + ", " + minZ + "] to [" + maxX + ", " + maxZ + "]"
+                + (startIndex > 0 ? ", resuming after " + startIndex : "") + ".");
+    }
+
+    /**
+     * Stops preparing chunks and saves the progress. The chunks which are already being
+     * prepared are finished in the background, and keep their neighbors locked until then.
+     */
+    public void stop() {
+        if (task == null || stopped) {
+            return;
+        }
+        stopped = true;
+        saveState();
+        report("Stopped pre-generating " + world.getName() + " at " + getProgress() + ".");
+        if (inFlight.isEmpty()) {
+            cancel();
+        }
+    }
+
+    public boolean isRunning() {
+        return task != null && !stopped;
+    }
+
+    private void cancel() {
+        task.cancel();
+        task = null;
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        boolean late = now - lastTick > LATE_TICK;
+        lastTick = now;
+
+        if (world.getServer().getWorld(world.getUID()) != world) {
+            // the world has been unloaded, and its chunk manager has gone with it
+            if (!stopped) {
+                saveState();
+                report("Stopped pre-generating " + world.getName() + " at " + getProgress()
+                        + ", because the world was unloaded.");
+            }
+            cancel();
+            return;
+        }
+
+        Long index;
+        while ((index = completed.poll()) != null) {
+            Key key = inFlight.remove(index);
+            for (int x = key.getX() - 2; x <= key.getX() + 2; x++) {
+                for (int z = key.getZ() - 2; z <= key.getZ() + 2; z++) {
+                    unlock(Key.of(x, z));
+                }
+            }
+            done++;
+        }
+
+        if (stopped) {
+            if (inFlight.isEmpty()) {
+                cancel();
+            }
+            return;
+        }
+
+        if (done == total) {
+            cancel();
+            world.getChunkManager().unloadOldChunks();
+            new File(world.getWorldFolder(), STATE_FILE).delete();
+            report("Finished pre-generating " + total + " chunks in " + world.getName()
+                    + " in " + formatDuration(now - startTime) + ".");
+            return;
+        }
+
+        if (!late) {
+            while (nextIndex < total && inFlight.size() < maxInFlight) {
+                Key key = spiral.next();
+                // populating a chunk's neighbors touches the chunks up to two away from it
+                for (int x = key.getX() - 2; x <= key.getX() + 2; x++) {
+                    for (int z = key.getZ() - 2; z <= key.getZ() + 2; z++) {
+                        lock(Key.of(x, z));
+                    }
+                }
+                long started = nextIndex++;
+                inFlight.put(started, key);
+                world.getChunkManager().prepareChunk(key.getX(), key.getZ())
+                        .whenComplete((chunk, ex) -> {
+                            if (ex != null) {
+                                GlowServer.logger.log(Level.SEVERE, "Error while pre-generating "
+                                        + "chunk (" + key.getX() + "," + key.getZ() + ")", ex);
+                            }
+                            completed.add(started);
+                        });
+            }
+        }
+
+        if (++ticks % UNLOAD_INTERVAL == 0) {
+            // save and unload the finished chunks, rather than waiting for the next autosave
+            world.getChunkManager().unloadOldChunks();
+            saveState();
+        }
+        if (now - lastReport >= REPORT_INTERVAL) {
+            lastReport = now;
+            report("Pre-generating " + world.getName() + ": " + getProgress() + ".");
+        }
+    }
+
+    /**
+     * Describes the progress of this run: the chunks done, the rate and the estimated time
+     * left.
+     *
+     * @return the progress
+     */
+    public String getProgress() {
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        double rate = seconds > 0 ? (done - startIndex) / seconds : 0;
+        String progress = done + "/" + total + " chunks ("
+                + String.format("%.1f", 100.0 * done / total) + "%), "
+                + String.format("%.1f", rate) + " chunks/s";
+        if (rate > 0 && done < total) {
+            progress += ", about " + formatDuration((long) ((total - done) / rate * 1e9))
+                    + " left";
+        }
+        return progress;
+    }
+
+    private static String formatDuration(long nanos) {
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+        if (seconds < 60) {
+            return seconds + "s";
+        } else if (seconds < 3600) {
+            return seconds / 60 + "m " + seconds % 60 + "s";
+        } else {
+            return seconds / 3600 + "h " + seconds / 60 % 60 + "m";
+        }
+    }
+
+    private void lock(Key key) {
+        if (lockCounts.merge(key, 1, Integer::sum) == 1) {
+            lock.acquire(key);
+        }
+    }
+
+    private void unlock(Key key) {
+        if (lockCounts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1)
+                == null) {
+            lock.release(key);
+        }
+    }
+
+    /**
+     * Saves the progress. Chunks complete out of order, so only those before the first one still
+     * in flight are counted as done.
+     */
+    private void saveState() {
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("MinX", minX);
+        tag.putInt("MinZ", minZ);
+        tag.putInt("MaxX", maxX);
+        tag.putInt("MaxZ", maxZ);
+        tag.putLong("Done", inFlight.isEmpty() ? nextIndex : inFlight.firstKey());
+        File file = new File(world.getWorldFolder(), STATE_FILE);
+        try (NbtOutputStream out = new NbtOutputStream(new FileOutputStream(file))) {
+            out.writeTag(tag);
+        } catch (IOException ex) {
+            GlowServer.logger.log(Level.WARNING, "Error while saving pre-generation progress of "
+                    + world.getName(), ex);
+        }
+    }
+
+    private void report(String message) {
+        if (reporter instanceof Player && !((Player) reporter).isOnline()) {
+            GlowServer.logger.info(message);
+        } else {
+            reporter.sendMessage(message);
+        }
+    }
+
+    /**
+     * Walks the rectangle in a square spiral around its center. Each side of each ring is clipped
+     * to the rectangle before it is walked, so only the positions inside it are visited, however
+     * thin the rectangle is.
+     */
+    private final class Spiral {
+
+        private final int centerX = Math.floorDiv(minX + maxX, 2);
+        private final int centerZ = Math.floorDiv(minZ + maxZ, 2);
+        private int ring;
+        /**
+         * The side of the current ring being walked, clockwise from the top.
+         */
+        private int side = -1;
+        /**
+         * The coordinate which is the same along the side.
+         */
+        private int fixed;
+        /**
+         * The next coordinate along the side.
+         */
+        private int position;
+        private int step;
+        private int remaining;
+
+        Key next() {
+            while (remaining == 0) {
+                if (++side == 4) {
+                    side = 0;
+                    ring++;
+                }
+                startSide();
+            }
+            remaining--;
+            int along = position;
+            position += step;
+            return side % 2 == 0 ? Key.of(along, fixed) : Key.of(fixed, along);
+        }
+
+        /**
+         * Clips the current side to the rectangle. Each side ends just before the corner which
+         * the next one starts at.
+         */
+        private void startSide() {
+            if (ring == 0 && side > 0) {
+                // the center is a ring of its own
+                remaining = 0;
+                return;
+            }
+            int from;
+            int to;
+            switch (side) {
+                case 0:
+                    fixed = centerZ - ring;
+                    from = centerX - ring;
+                    to = ring == 0 ? centerX : centerX + ring - 1;
+                    break;
+                case 1:
+                    fixed = centerX + ring;
+                    from = centerZ - ring;
+                    to = centerZ + ring - 1;
+                    break;
+                case 2:
+                    fixed = centerZ + ring;
+                    from = centerX + ring;
+                    to = centerX - ring + 1;
+                    break;
+                default:
+                    fixed = centerX - ring;
+                    from = centerZ + ring;
+                    to = centerZ - ring + 1;
+                    break;
+            }
+            int min;
+            int max;
+            boolean inside;
+            if (side % 2 == 0) {
+                min = minX;
+                max = maxX;
+                inside = fixed >= minZ && fixed <= maxZ;
+            } else {
+                min = minZ;
+                max = maxZ;
+                inside = fixed >= minX && fixed <= maxX;
+            }
+            if (!inside) {
+                remaining = 0;
+                return;
+            }
+            step = side < 2 ? 1 : -1;
+            if (step > 0) {
+                position = Math.max(from, min);
+                remaining = Math.max(0, Math.min(to, max) - position + 1);
+            } else {
+                position = Math.min(from, max);
+                remaining = Math.max(0, position - Math.max(to, min) + 1);
+            }
+        }
+    }
+}
@@ -41,12 +41,28 @@ public final class ChunkSection {
      * The number of bits per block used in the global palette.
      */
     public static final int GLOBAL_PALETTE_BITS_PER_BLOCK = 13;
+    /**
+     * The largest number of entries a section palette can have.
+     */
+    private static final int MAX_PALETTE_SIZE = 256;
+    /**
+     * The number of slots in the palette lookup table; twice the largest palette size, so that
+     * probe sequences stay short.
+     */
+    private static final int LOOKUP_SIZE = MAX_PALETTE_SIZE * 2;
 
     /**
      * The palette.
      */
     @Nullable
     private IntList palette;
+    /**
+     * An open-addressed hash table from type to palette index, kept alongside the palette. Each
+     * slot holds {@code (type + 1) << 8 | index}, or 0 if it is empty. Null whenever the palette
+     * is.
+     */
+    @Nullable
+    private int[] paletteLookup;
     private VariableValueArray data;
     /**
      * The sky light array. This array is always set, even in dimensions without skylight.
@@ -65,6 +81,16 @@ public final class ChunkSection {
      * The number of non-air blocks in this section, used to determine whether it is empty.
      */
     private int count;
+    /**
+     * Whether the type data, palette and lookup table are shared with a {@linkplain #snapshot()
+     * snapshot}, and must be copied before they are next written to.
+     */
+    private boolean typesShared;
+    /**
+     * Whether the light arrays are shared with a snapshot, and must be copied before they are next
+     * written to.
+     */
+    private boolean lightShared;
 
     /**
      * Create a new, empty ChunkSection.
@@ -144,8 +170,21 @@ public final class ChunkSection {
         }
         this.data = data;
         this.palette = palette;
+        this.paletteLookup = palette == null ? null : createLookup(palette);
         this.skyLight = skyLight;
         this.blockLight = blockLight;
+        recount();
+    }
+
+    private ChunkSection(VariableValueArray data, @Nullable IntList palette,
+            @Nullable int[] paletteLookup, NibbleArray skyLight, NibbleArray blockLight,
+            int count) {
+        this.data = data;
+        this.palette = palette;
+        this.paletteLookup = paletteLookup;
+        this.skyLight = skyLight;
+        this.blockLight = blockLight;
+        this.count = count;
     }
 
     /**
@@ -241,6 +280,51 @@ public final class ChunkSection {
         return (y & 0xf) << 8 | z << 4 | x;
     }
 
+    private static int hashSlot(int type) {
+        // Fibonacci hashing: the top 9 bits of the product index the 512 slots
+        return type * 0x9E3779B9 >>> 23;
+    }
+
+    /**
+     * Finds a type in a palette lookup table.
+     *
+     * @param lookup the lookup table
+     * @param type the type to find
+     * @return the palette index of the type, or -1 if it is not in the palette
+     */
+    private static int lookupIndex(int[] lookup, int type) {
+        int key = type + 1;
+        for (int slot = hashSlot(type); ; slot = slot + 1 & LOOKUP_SIZE - 1) {
+            int entry = lookup[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (entry >>> 8 == key) {
+                return entry & 0xFF;
+            }
+        }
+    }
+
+    private static void lookupInsert(int[] lookup, int type, int index) {
+        int slot = hashSlot(type);
+        while (lookup[slot] != 0) {
+            slot = slot + 1 & LOOKUP_SIZE - 1;
+        }
+        lookup[slot] = (type + 1) << 8 | index;
+    }
+
+    private static int[] createLookup(IntList palette) {
+        if (palette.size() > MAX_PALETTE_SIZE) {
+            throw new IllegalArgumentException("A section palette can have at most "
+                    + MAX_PALETTE_SIZE + " entries; got " + palette.size());
+        }
+        int[] lookup = new int[LOOKUP_SIZE];
+        for (int i = 0; i < palette.size(); i++) {
+            lookupInsert(lookup, palette.getInt(i), i);
+        }
+        return lookup;
+    }
+
     /**
      * Loads the contents of this chunk section from the given type array, initializing the
      * palette.
@@ -253,33 +337,52 @@ public final class ChunkSection {
                     + types.length);
         }
 
-        // Build the palette, and the count
-        this.count = 0;
-        this.palette = new IntArrayList();
-        for (char type : types) {
+        // Build the palette, the count and the palette index of each block in a single pass
+        int count = 0;
+        IntList palette = new IntArrayList();
+        int[] lookup = new int[LOOKUP_SIZE];
+        byte[] indices = new byte[ARRAY_SIZE];
+        for (int i = 0; i < ARRAY_SIZE; i++) {
+            char type = types[i];
             if (type != 0) {
                 count++;
             }
-
-            if (!palette.contains(type)) {
+            if (palette == null) {
+                continue;
+            }
+            int index = lookupIndex(lookup, type);
+            if (index == -1) {
+                index = palette.size();
+                if (index == MAX_PALETTE_SIZE) {
+                    // Too many types for a section palette; the global palette is used
+                    palette = null;
+                    continue;
+                }
                 palette.add(type);
+                lookupInsert(lookup, type, index);
             }
+            indices[i] = (byte) index;
         }
+        this.count = count;
+        typesShared = false;
+
         // Now that we've built a palette, build the list
-        int bitsPerBlock = VariableValueArray.calculateNeededBits(palette.size());
-        if (bitsPerBlock < 4) {
-            bitsPerBlock = 4;
-        } else if (bitsPerBlock > 8) {
-            palette = null;
-            bitsPerBlock = GLOBAL_PALETTE_BITS_PER_BLOCK;
-        }
-        this.data = new VariableValueArray(bitsPerBlock, ARRAY_SIZE);
-        for (int i = 0; i < ARRAY_SIZE; i++) {
-            if (palette != null) {
-                data.set(i, palette.indexOf(types[i]));
-            } else {
+        if (palette == null) {
+            this.palette = null;
+            this.paletteLookup = null;
+            this.data = new VariableValueArray(GLOBAL_PALETTE_BITS_PER_BLOCK, ARRAY_SIZE);
+            for (int i = 0; i < ARRAY_SIZE; i++) {
                 data.set(i, types[i]);
             }
+        } else {
+            this.palette = palette;
+            this.paletteLookup = lookup;
+            this.data = new VariableValueArray(
+                    Math.max(4, VariableValueArray.calculateNeededBits(palette.size() - 1)),
+                    ARRAY_SIZE);
+            for (int i = 0; i < ARRAY_SIZE; i++) {
+                data.set(i, indices[i] & 0xFF);
+            }
         }
     }
 
@@ -311,14 +414,48 @@ public final class ChunkSection {
     }
 
     /**
-     * Take a snapshot of this section which will not reflect future changes.
+     * <p>Take a snapshot of this section which will not reflect future changes.</p>
+     *
+     * <p>The snapshot shares its arrays with this section until either of them is next written
+     * to, at which point the writer copies the arrays it changes. Taking a snapshot is therefore
+     * cheap, and a snapshot of a section which is not changed afterwards costs no copying at
+     * all. A snapshot may be read from another thread once it has been handed over.</p>
      *
      * @return The snapshot for this section.
      */
     public ChunkSection snapshot() {
-        return new ChunkSection(data
-                .clone(), palette == null ? null : new IntArrayList(palette), skyLight
-                .snapshot(), blockLight.snapshot());
+        typesShared = true;
+        lightShared = true;
+        ChunkSection snapshot = new ChunkSection(data, palette, paletteLookup, skyLight,
+                blockLight, count);
+        snapshot.typesShared = true;
+        snapshot.lightShared = true;
+        return snapshot;
+    }
+
+    /**
+     * Copies the type data, palette and lookup table if they are shared with a snapshot.
+     */
+    private void unshareTypes() {
+        if (typesShared) {
+            data = data.clone();
+            if (palette != null) {
+                palette = new IntArrayList(palette);
+                paletteLookup = paletteLookup.clone();
+            }
+            typesShared = false;
+        }
+    }
+
+    /**
+     * Copies the light arrays if they are shared with a snapshot.
+     */
+    private void unshareLight() {
+        if (lightShared) {
+            skyLight = skyLight.snapshot();
+            blockLight = blockLight.snapshot();
+            lightShared = false;
+        }
     }
 
     /**
@@ -347,6 +484,10 @@ public final class ChunkSection {
      */
     public void setType(int x, int y, int z, char value) {
         int oldType = getType(x, y, z);
+        if (oldType == value) {
+            return;
+        }
+        unshareTypes();
         if (oldType != 0) {
             count--;
         }
@@ -356,16 +497,15 @@ public final class ChunkSection {
 
         int encoded;
         if (palette != null) {
-            encoded = palette.indexOf(value);
+            encoded = lookupIndex(paletteLookup, value);
             if (encoded == -1) {
                 encoded = palette.size();
-                palette.add(value);
                 if (encoded > data.getLargestPossibleValue()) {
                     // This is the situation where it can become expensive:
                     // resize the array
                     if (data.getBitsPerValue() == 8) {
                         data = data.increaseBitsPerValueTo(GLOBAL_PALETTE_BITS_PER_BLOCK);
-                        // No longer using the global palette; need to manually
+                        // Switching to the global palette; need to manually
                         // recalculate
                         for (int i = 0; i < ARRAY_SIZE; i++) {
                             int oldValue = data.get(i);
@@ -373,12 +513,17 @@ public final class ChunkSection {
                             data.set(i, newValue);
                         }
                         palette = null;
+                        paletteLookup = null;
                         encoded = value;
                     } else {
-                        // Using the global palette: automatically resize
+                        // Still using a section palette: one more bit per block
                         data = data.increaseBitsPerValueTo(data.getBitsPerValue() + 1);
                     }
                 }
+                if (palette != null) {
+                    palette.add(value);
+                    lookupInsert(paletteLookup, value, encoded);
+                }
             }
         } else {
             encoded = value;
@@ -424,6 +569,7 @@ public final class ChunkSection {
      * @param light The new light level.
      */
     public void setBlockLight(int x, int y, int z, byte light) {
+        unshareLight();
         blockLight.set(index(x, y, z), light);
     }
 
@@ -448,6 +594,7 @@ public final class ChunkSection {
      * @param light The new light level.
      */
     public void setSkyLight(int x, int y, int z, byte light) {
+        unshareLight();
         skyLight.set(index(x, y, z), light);
     }
 
@@ -0,0 +1,195 @@
+package net.glowstone.chunk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import lombok.Data;
+import net.glowstone.GlowServer;
+import net.glowstone.chunk.GlowChunk.Key;
+import net.glowstone.net.message.play.game.BlockChangeMessage;
+import net.glowstone.net.message.play.game.ChunkDataMessage;
+
+/**
+ * Queues the chunks that still have to be streamed to a single player.
+ *
+ * <p>Chunks are loaded, generated and populated by {@link ChunkManager#prepareChunk(int, int)}.
+ * Once a chunk is prepared, it is captured on the world thread and serialized on a shared worker
+ * pool. The player's pulse only picks up chunks that are already serialized, closest first and
+ * up to a per-tick budget, so moving quickly never blocks the world tick.
+ *
+ * <p>Not thread-safe; should only be used from the player's world thread.
+ */
+public final class ChunkStreamer {
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * The executor which serializes prepared chunks into {@link ChunkDataMessage}s.
+     */
+    private static final ExecutorService encodeExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable,
+                        "Glowstone-chunk-encoder-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * The chunks which have been requested but not yet sent.
+     */
+    private final Map<Key, CompletableFuture<ChunkDataMessage>> pending = new HashMap<>();
+
+    /**
+     * Block changes in pending chunks, which must be replayed after the chunk has been sent
+     * because they may have happened after it was serialized.
+     */
+    private final Map<Key, List<BlockChangeMessage>> deferredBlockChanges = new HashMap<>();
+
+    /**
+     * Starts preparing and serializing a chunk for this player.
+     *
+     * @param chunkManager the chunk manager of the player's world
+     * @param key the chunk to send
+     * @param skylight whether to include skylight data
+     */
+    public void enqueue(ChunkManager chunkManager, Key key, boolean skylight) {
+        if (pending.containsKey(key)) {
+            return;
+        }
+        // the prepared chunk is captured on the world thread, which completes the preparation
+        pending.put(key, chunkManager.prepareChunk(key.getX(), key.getZ())
+                .thenApply(chunk -> chunk.captureMessage(skylight))
+                .thenApplyAsync(Supplier::get, encodeExecutor));
+    }
+
+    /**
+     * Checks whether a chunk has been requested but not yet sent.
+     *
+     * @param key the chunk to check
+     * @return true if the chunk is pending
+     */
+    public boolean isPending(Key key) {
+        return pending.containsKey(key);
+    }
+
+    /**
+     * Returns the chunks which have been requested but not yet sent.
+     *
+     * @return the pending chunks; a live view
+     */
+    public Set<Key> getPendingKeys() {
+        return Collections.unmodifiableSet(pending.keySet());
+    }
+
+    /**
+     * Stops streaming a chunk that is no longer needed.
+     *
+     * @param key the chunk to stop streaming
+     * @return true if the chunk was pending, i.e. it has never been sent to the client
+     */
+    public boolean cancel(Key key) {
+        CompletableFuture<ChunkDataMessage> future = pending.remove(key);
+        deferredBlockChanges.remove(key);
+        if (future == null) {
+            return false;
+        }
+        future.thenAccept(message -> message.getData().release());
+        return true;
+    }
+
+    /**
+     * Stops streaming all pending chunks.
+     */
+    public void clear() {
+        for (CompletableFuture<ChunkDataMessage> future : pending.values()) {
+            future.thenAccept(message -> message.getData().release());
+        }
+        pending.clear();
+        deferredBlockChanges.clear();
+    }
+
+    /**
+     * Holds back a block change in a pending chunk until that chunk has been sent.
+     *
+     * @param key the chunk containing the changed block
+     * @param message the block change
+     * @return true if the change was deferred, false if the chunk is not pending
+     */
+    public boolean deferBlockChange(Key key, BlockChangeMessage message) {
+        if (!pending.containsKey(key)) {
+            return false;
+        }
+        deferredBlockChanges.computeIfAbsent(key, k -> new ArrayList<>()).add(message);
+        return true;
+    }
+
+    /**
+     * Removes and returns the chunks which are ready to be sent, closest to the given position
+     * first.
+     *
+     * @param x the X coordinate of the player
+     * @param z the Z coordinate of the player
+     * @param budget the maximum number of chunks to return
+     * @return the chunks to send
+     */
+    public List<ReadyChunk> pollReady(double x, double z, int budget) {
+        List<Key> ready = new ArrayList<>();
+        for (Entry<Key, CompletableFuture<ChunkDataMessage>> entry : pending.entrySet()) {
+            if (entry.getValue().isDone()) {
+                ready.add(entry.getKey());
+            }
+        }
+        if (ready.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        ready.sort(Comparator.comparingDouble(key -> {
+            double dx = 16 * key.getX() + 8 - x;
+            double dz = 16 * key.getZ() + 8 - z;
+            return dx * dx + dz * dz;
+        }));
+
+        List<ReadyChunk> result = new ArrayList<>(Math.min(budget, ready.size()));
+        for (Iterator<Key> it = ready.iterator(); it.hasNext() && result.size() < budget; ) {
+            Key key = it.next();
+            CompletableFuture<ChunkDataMessage> future = pending.remove(key);
+            List<BlockChangeMessage> blockChanges = deferredBlockChanges.remove(key);
+            try {
+                result.add(new ReadyChunk(key, future.get(),
+                        blockChanges == null ? new ArrayList<>(0) : blockChanges));
+            } catch (ExecutionException ex) {
+                GlowServer.logger.log(Level.SEVERE,
+                        "Error while preparing chunk (" + key.getX() + "," + key.getZ() + ")",
+                        ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A chunk which has been prepared and serialized, along with the block changes to send after
+     * it.
+     */
+    @Data
+    public static final class ReadyChunk {
+
+        private final Key key;
+        private final ChunkDataMessage message;
+        private final List<BlockChangeMessage> blockChanges;
+    }
+}
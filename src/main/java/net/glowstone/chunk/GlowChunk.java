@@ -2,7 +2,6 @@ package net.glowstone.chunk;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -12,6 +11,8 @@ import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import lombok.Data;
 import lombok.Getter;
@@ -25,6 +26,7 @@ import net.glowstone.block.ItemTable;
 import net.glowstone.block.blocktype.BlockType;
 import net.glowstone.block.entity.BlockEntity;
 import net.glowstone.entity.GlowEntity;
+import net.glowstone.entity.GlowPlayer;
 import net.glowstone.net.message.play.game.ChunkDataMessage;
 import net.glowstone.util.nbt.CompoundTag;
 import org.bukkit.Chunk;
@@ -83,6 +85,17 @@ public class GlowChunk implements Chunk {
      * The entities that reside in this chunk.
      */
     private final Set<GlowEntity> entities = ConcurrentHashMap.newKeySet(4);
+    /**
+     * The players whose clients have this chunk loaded. Kept up to date by the players as they
+     * stream chunks, so that changes within the chunk are only sent to these players.
+     */
+    private final Set<GlowPlayer> viewers = ConcurrentHashMap.newKeySet(4);
+    /**
+     * The players who are waiting for this chunk to be prepared and sent. Block changes are sent
+     * to them as well, and held back until the chunk has been sent, since it may have been
+     * serialized before the change.
+     */
+    private final Set<GlowPlayer> pendingViewers = ConcurrentHashMap.newKeySet(4);
     /**
      * The array of chunk sections this chunk contains, or null if it is unloaded.
      *
@@ -112,6 +125,30 @@ public class GlowChunk implements Chunk {
     @Setter
     private int isSlimeChunk = -1;
 
+    /**
+     * A counter which is incremented whenever the blocks, light, biomes, block entities or
+     * scheduled block ticks of this chunk change. Used to invalidate {@link #encodedSections}.
+     */
+    private final AtomicInteger version = new AtomicInteger();
+
+    /**
+     * The most recently encoded section and biome data, indexed by whether it includes skylight.
+     * Guarded by itself.
+     */
+    private final EncodedSections[] encodedSections = new EncodedSections[2];
+
+    /**
+     * The {@link #version} and population state of this chunk when it was last read from or
+     * written to disk, used to skip saving chunks which have not changed since.
+     */
+    private volatile int savedVersion = -1;
+    private volatile boolean savedPopulated;
+    /**
+     * Whether this chunk held entities which should be saved when it was last read from or
+     * written to disk; see {@link #hasSavedEntities()}.
+     */
+    private volatile boolean savedEntities;
+
     /**
      * Creates a new chunk with a specified X and Z coordinate.
      *
@@ -145,6 +182,54 @@ public class GlowChunk implements Chunk {
         return entities;
     }
 
+    /**
+     * Returns the players whose clients have this chunk loaded.
+     *
+     * @return the viewers of this chunk; not a copy
+     */
+    public Collection<GlowPlayer> getRawViewers() {
+        return viewers;
+    }
+
+    /**
+     * Returns the players who are waiting for this chunk to be sent to them.
+     *
+     * @return the pending viewers of this chunk; not a copy
+     */
+    public Collection<GlowPlayer> getRawPendingViewers() {
+        return pendingViewers;
+    }
+
+    /**
+     * Records that a player's client has loaded this chunk.
+     *
+     * @param player the player
+     */
+    public void addViewer(GlowPlayer player) {
+        viewers.add(player);
+        pendingViewers.remove(player);
+    }
+
+    /**
+     * Records that this chunk is about to be prepared and sent to a player.
+     *
+     * @param player the player
+     */
+    public void addPendingViewer(GlowPlayer player) {
+        pendingViewers.add(player);
+    }
+
+    /**
+     * Records that a player's client has unloaded this chunk, that it will no longer be sent to
+     * the player, or that the player has left.
+     *
+     * @param player the player
+     */
+    public void removeViewer(GlowPlayer player) {
+        viewers.remove(player);
+        pendingViewers.remove(player);
+    }
+
     @Override
     @Deprecated
     public GlowBlockState[] getTileEntities() {
@@ -239,7 +324,7 @@ public class GlowChunk implements Chunk {
             return false;
         }
 
-        if (save && !world.getChunkManager().performSave(this)) {
+        if (save && !world.getChunkManager().saveIfDirty(this)) {
             return false;
         }
 
@@ -252,6 +337,12 @@ public class GlowChunk implements Chunk {
         biomes = null;
         heightMap = null;
         blockEntities.clear();
+        // found again from the players' streamed chunks if this chunk is loaded again
+        viewers.clear();
+        pendingViewers.clear();
+        world.getBlockTicks().unloadChunk(x, z);
+        version.incrementAndGet();
+        releaseEncodedSections();
         if (save) {
             for (GlowEntity entity : entities) {
                 entity.remove();
@@ -261,6 +352,72 @@ public class GlowChunk implements Chunk {
         return true;
     }
 
+    // ======== Saving ========
+
+    /**
+     * Checks whether this chunk may differ from its copy on disk, and so needs to be saved.
+     *
+     * <p>Changes to blocks, light, biomes, block entities and scheduled block ticks are tracked by
+     * the version. Entities move without the chunk being told, so a chunk which holds any that
+     * should be saved, or held any when it was last saved, is always considered changed.
+     *
+     * @return true if this chunk has changed since it was loaded or last saved
+     */
+    public boolean isDirty() {
+        for (BlockEntity blockEntity : blockEntities.values()) {
+            if (blockEntity.isDirty()) {
+                markChanged();
+                break;
+            }
+        }
+        return version.get() != savedVersion || populated != savedPopulated
+                || savedEntities || hasSavedEntities();
+    }
+
+    private boolean hasSavedEntities() {
+        for (GlowEntity entity : entities) {
+            if (entity.shouldSave()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks this chunk as changed by something the chunk doesn't see itself, such as a block
+     * entity or a scheduled block tick, so that it is saved again.
+     */
+    public void markChanged() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the counter which is incremented whenever the blocks, light, biomes, block entities
+     * or scheduled block ticks change, or the chunk is loaded or unloaded, so that anything
+     * derived from the chunk can tell whether it is out of date. When saving, read it before
+     * capturing the chunk, and pass it to {@link #markSaved(int)} after.
+     *
+     * @return the current version
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Records that the chunk as of the given version is on disk, or on its way there. Must be
+     * called on the thread which changes the chunk.
+     *
+     * @param savedVersion the version read before the chunk was captured
+     */
+    void markSaved(int savedVersion) {
+        this.savedVersion = savedVersion;
+        savedPopulated = populated;
+        savedEntities = hasSavedEntities();
+        for (BlockEntity blockEntity : blockEntities.values()) {
+            blockEntity.markSaved();
+        }
+    }
+
     // ======== Helper Functions ========
 
     /**
@@ -287,12 +444,24 @@ public class GlowChunk implements Chunk {
         sections = new ChunkSection[SEC_COUNT];
         biomes = new byte[WIDTH * HEIGHT];
         heightMap = new byte[WIDTH * HEIGHT];
+        version.incrementAndGet();
 
         for (int y = 0; y < SEC_COUNT && y < initSections.length; y++) {
             if (initSections[y] != null) {
                 initializeSection(y, initSections[y]);
             }
         }
+
+        // a player's client may still have this chunk from before it was unloaded, or this may
+        // be a new object for a chunk which was evicted while a player was waiting for it
+        Key key = Key.of(x, z);
+        for (GlowPlayer player : world.getRawPlayers()) {
+            if (player.canSeeChunk(key)) {
+                viewers.add(player);
+            } else if (player.isChunkPending(key)) {
+                pendingViewers.add(player);
+            }
+        }
     }
 
     private void initializeSection(int y, ChunkSection section) {
@@ -437,9 +606,25 @@ public class GlowChunk implements Chunk {
      * @param type The type.
      */
     public void setType(int x, int z, int y, int type) {
+        setTypeAndData(x, z, y, type, 0);
+    }
+
+    /**
+     * Sets the type and metadata of a block within this chunk in a single write.
+     *
+     * @param x The X coordinate.
+     * @param z The Z coordinate.
+     * @param y The Y coordinate.
+     * @param type The type.
+     * @param metaData The metadata; ignored for air.
+     */
+    public void setTypeAndData(int x, int z, int y, int type, int metaData) {
         if (type < 0 || type > 0xfff) {
             throw new IllegalArgumentException("Block type out of range: " + type);
         }
+        if (metaData < 0 || metaData >= 16) {
+            throw new IllegalArgumentException("Metadata out of range: " + metaData);
+        }
 
         ChunkSection section = getSection(y);
         if (section == null) {
@@ -476,8 +661,9 @@ public class GlowChunk implements Chunk {
                 heightMap[heightIndex] = (byte) Math.min(y + 1, 255);
             }
         }
-        // update the type - also sets metadata to 0
-        section.setType(x, y, z, (char) (type << 4));
+        // update the type; air has no metadata
+        section.setType(x, y, z, (char) (type == 0 ? 0 : type << 4 | metaData));
+        version.incrementAndGet();
 
         if (section.isEmpty()) {
             // destroy the empty section
@@ -535,6 +721,7 @@ public class GlowChunk implements Chunk {
             return;  // can't set metadata on air
         }
         section.setType(x, y, z, (char) (type & 0xfff0 | metaData));
+        version.incrementAndGet();
     }
 
     /**
@@ -564,6 +751,7 @@ public class GlowChunk implements Chunk {
             return;  // can't set light on an empty section
         }
         section.setSkyLight(x, y, z, (byte) skyLight);
+        version.incrementAndGet();
     }
 
     /**
@@ -593,6 +781,7 @@ public class GlowChunk implements Chunk {
             return;  // can't set light on an empty section
         }
         section.setBlockLight(x, y, z, (byte) blockLight);
+        version.incrementAndGet();
     }
 
     /**
@@ -621,6 +810,7 @@ public class GlowChunk implements Chunk {
             return;
         }
         biomes[z * WIDTH + x] = (byte) biome;
+        version.incrementAndGet();
     }
 
     /**
@@ -636,6 +826,7 @@ public class GlowChunk implements Chunk {
             throw new IllegalArgumentException("Biomes array not of length " + biomes.length);
         }
         System.arraycopy(newBiomes, 0, biomes, 0, biomes.length);
+        version.incrementAndGet();
     }
 
     /**
@@ -740,6 +931,120 @@ public class GlowChunk implements Chunk {
      */
     public ChunkDataMessage toMessage(boolean skylight, boolean entireChunk) {
         load();
+        int sectionBitmask;
+        ByteBuf buf;
+
+        if (entireChunk) {
+            // the full payload is identical for every viewer, so it is encoded once and shared
+            EncodedSections encoded = getEncodedSections(version.get(), sections, biomes,
+                    skylight);
+            sectionBitmask = encoded.bitmask;
+            buf = encoded.data;
+        } else {
+            sectionBitmask = getSectionBitmask(sections, false);
+            buf = encodeSections(sections, biomes, sectionBitmask, skylight, false);
+        }
+
+        return new ChunkDataMessage(x, z, entireChunk, sectionBitmask, buf,
+                getBlockEntityTags());
+    }
+
+    /**
+     * Captures this entire chunk for a {@link ChunkDataMessage} which is built later, possibly on
+     * another thread. The sections are captured as copy-on-write snapshots, so this is cheap, but
+     * it must be called on the thread which changes the chunk.
+     *
+     * @param skylight Whether to include skylight data.
+     * @return a supplier of the message, which may be called once from any thread
+     */
+    public Supplier<ChunkDataMessage> captureMessage(boolean skylight) {
+        load();
+        int capturedVersion = version.get();
+        Set<CompoundTag> blockEntityTags = getBlockEntityTags();
+        synchronized (encodedSections) {
+            EncodedSections encoded = encodedSections[skylight ? 1 : 0];
+            if (encoded != null && encoded.version == capturedVersion) {
+                // already encoded for another viewer
+                int sectionBitmask = encoded.bitmask;
+                ByteBuf buf = encoded.data.retainedDuplicate();
+                return () -> new ChunkDataMessage(x, z, true, sectionBitmask, buf,
+                        blockEntityTags);
+            }
+        }
+        ChunkSection[] capturedSections = new ChunkSection[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] != null) {
+                capturedSections[i] = sections[i].snapshot();
+            }
+        }
+        byte[] capturedBiomes = biomes.clone();
+        return () -> {
+            EncodedSections encoded = getEncodedSections(capturedVersion, capturedSections,
+                    capturedBiomes, skylight);
+            return new ChunkDataMessage(x, z, true, encoded.bitmask, encoded.data,
+                    blockEntityTags);
+        };
+    }
+
+    private Set<CompoundTag> getBlockEntityTags() {
+        Set<CompoundTag> blockEntityTags = new HashSet<>();
+        for (BlockEntity blockEntity : getRawBlockEntities()) {
+            CompoundTag tag = new CompoundTag();
+            blockEntity.saveNbt(tag);
+            blockEntityTags.add(tag);
+        }
+        return blockEntityTags;
+    }
+
+    /**
+     * Returns the encoded section and biome data for the entire chunk as of the given version,
+     * re-encoding it only if it was last encoded for a different version. The result is only
+     * cached if the version is still current.
+     *
+     * @param sectionsVersion the version of the chunk the sections and biomes were taken from
+     * @param sections the sections to encode
+     * @param biomes the biomes to encode
+     * @param skylight Whether to include skylight data.
+     * @return the encoded data, with a retained buffer which the caller must release
+     */
+    private EncodedSections getEncodedSections(int sectionsVersion, ChunkSection[] sections,
+            byte[] biomes, boolean skylight) {
+        int index = skylight ? 1 : 0;
+        synchronized (encodedSections) {
+            EncodedSections encoded = encodedSections[index];
+            if (encoded == null || encoded.version != sectionsVersion) {
+                int sectionBitmask = getSectionBitmask(sections, true);
+                encoded = new EncodedSections(sectionsVersion, sectionBitmask,
+                        encodeSections(sections, biomes, sectionBitmask, skylight, true));
+                if (sectionsVersion != version.get()) {
+                    // the chunk has changed since; the caller gets the only reference
+                    return encoded;
+                }
+                if (encodedSections[index] != null) {
+                    encodedSections[index].data.release();
+                }
+                encodedSections[index] = encoded;
+            }
+            return new EncodedSections(encoded.version, encoded.bitmask,
+                    encoded.data.retainedDuplicate());
+        }
+    }
+
+    /**
+     * Releases the cached encoded section data.
+     */
+    private void releaseEncodedSections() {
+        synchronized (encodedSections) {
+            for (int i = 0; i < encodedSections.length; i++) {
+                if (encodedSections[i] != null) {
+                    encodedSections[i].data.release();
+                    encodedSections[i] = null;
+                }
+            }
+        }
+    }
+
+    private static int getSectionBitmask(ChunkSection[] sections, boolean entireChunk) {
         int sectionBitmask = 0;
 
         // filter sectionBitmask based on actual chunk contents
@@ -758,7 +1063,11 @@ public class GlowChunk implements Chunk {
                 }
             }
         }
+        return sectionBitmask;
+    }
 
+    private static ByteBuf encodeSections(ChunkSection[] sections, byte[] biomes,
+            int sectionBitmask, boolean skylight, boolean entireChunk) {
         ByteBuf buf = Unpooled.buffer();
 
         if (sections != null) {
@@ -775,15 +1084,23 @@ public class GlowChunk implements Chunk {
         if (entireChunk && biomes != null) {
             buf.writeBytes(biomes);
         }
+        return buf;
+    }
 
-        Set<CompoundTag> blockEntities = new HashSet<>();
-        for (BlockEntity blockEntity : getRawBlockEntities()) {
-            CompoundTag tag = new CompoundTag();
-            blockEntity.saveNbt(tag);
-            blockEntities.add(tag);
-        }
+    /**
+     * Section and biome data encoded for a {@link ChunkDataMessage}.
+     */
+    private static final class EncodedSections {
+
+        private final int version;
+        private final int bitmask;
+        private final ByteBuf data;
 
-        return new ChunkDataMessage(x, z, entireChunk, sectionBitmask, buf, blockEntities);
+        private EncodedSections(int version, int bitmask, ByteBuf data) {
+            this.version = version;
+            this.bitmask = bitmask;
+            this.data = data;
+        }
     }
 
     /**
@@ -793,10 +1110,6 @@ public class GlowChunk implements Chunk {
     @Data
     public static final class Key {
 
-        // Key cache storage
-        private static final Long2ObjectOpenHashMap<Key> keys
-                = new Long2ObjectOpenHashMap<>(512, 0.5F);
-
         /**
          * The x-coordinate.
          */
@@ -816,13 +1129,16 @@ public class GlowChunk implements Chunk {
             this.hashCode = x * 31 + z;
         }
 
-        private static long mapCode(int x, int z) {
-            return (((long) x) << 32) | (z & 0xffffffffL);
-        }
-
+        /**
+         * Returns the key for the given chunk coordinates. Keys are compared by value and not
+         * interned, so this is safe to call from any thread without locking.
+         *
+         * @param x The X coordinate.
+         * @param z The Z coordinate.
+         * @return The chunk key.
+         */
         public static Key of(int x, int z) {
-            long id = mapCode(x, z);
-            return keys.computeIfAbsent(id, l -> new Key(x, z));
+            return new Key(x, z);
         }
 
         @Override
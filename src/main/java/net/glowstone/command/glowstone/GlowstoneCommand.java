@@ -1,23 +1,30 @@
 package net.glowstone.command.glowstone;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import net.glowstone.GlowServer;
 import net.glowstone.GlowWorld;
 import net.glowstone.ServerProvider;
+import net.glowstone.chunk.ChunkPregenerator;
 import net.glowstone.command.CommandUtils;
 import net.glowstone.entity.GlowPlayer;
+import net.glowstone.net.SessionRegistry;
 import net.glowstone.util.ReflectionProcessor;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Chunk;
+import org.bukkit.Server;
 import org.bukkit.World;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.defaults.BukkitCommand;
@@ -28,7 +35,19 @@ import org.bukkit.util.StringUtil;
 public class GlowstoneCommand extends BukkitCommand {
 
     private static final List<String> SUBCOMMANDS = Arrays
-            .asList("about", "chunk", "eval", "help", "property", "vm", "world");
+            .asList("about", "chunk", "eval", "help", "pregen", "property", "vm", "world");
+    private static final List<String> PREGEN_SUBCOMMANDS = Arrays
+            .asList("area", "resume", "start", "status", "stop");
+    /**
+     * The largest chunk coordinate which can be pre-generated: the edge of the largest world
+     * border, 30 million blocks out.
+     */
+    private static final int MAX_PREGEN_COORDINATE = 30_000_000 >> 4;
+
+    /**
+     * The pre-generation runs started by this command, by world name.
+     */
+    private final Map<String, ChunkPregenerator> pregenerators = new HashMap<>();
 
     /**
      * Creates the instance for this command.
@@ -81,6 +100,17 @@ public class GlowstoneCommand extends BukkitCommand {
             }
             sender.sendMessage(" - " + ChatColor.GOLD + "Threads: " + ChatColor.AQUA + threadCount
                     + ChatColor.RESET + ".");
+
+            // network batching
+            Server server = ServerProvider.getServer();
+            if (server instanceof GlowServer) {
+                SessionRegistry sessions = ((GlowServer) server).getSessionRegistry();
+                sender.sendMessage(" - " + ChatColor.GOLD + "Average flush: " + ChatColor.AQUA
+                        + String.format("%.1f messages, %.0f bytes",
+                                sessions.getAverageMessagesPerFlush(),
+                                sessions.getAverageBytesPerFlush())
+                        + ChatColor.RESET + ".");
+            }
             return false;
         }
         if ("help".equalsIgnoreCase(args[0])) {
@@ -90,6 +120,8 @@ public class GlowstoneCommand extends BukkitCommand {
             sender.sendMessage(helpForSubCommand(label, "eval <eval>", "Evaluate a reflection "
                     + "string"));
             sender.sendMessage(helpForSubCommand(label, "help", "Shows the help screen"));
+            sender.sendMessage(helpForSubCommand(label, "pregen <start|area|resume|stop|status>",
+                    "Pre-generates chunks"));
             sender.sendMessage(helpForSubCommand(label, "property [name]", "Lists or gets system "
                     + "properties"));
             sender.sendMessage(helpForSubCommand(label, "chunk", "Gets the coordinates of the "
@@ -170,6 +202,9 @@ public class GlowstoneCommand extends BukkitCommand {
                             "Chunk coordinates: [x=" + chunk.getX() + ", z=" + chunk.getZ() + "]");
             return true;
         }
+        if ("pregen".equalsIgnoreCase(args[0])) {
+            return pregen(sender, label, args);
+        }
         if ("eval".equalsIgnoreCase(args[0])) {
             if (args.length == 1) {
                 // no args, send usage
@@ -207,6 +242,16 @@ public class GlowstoneCommand extends BukkitCommand {
             return StringUtil
                     .copyPartialMatches(args[0], SUBCOMMANDS, new ArrayList<>(SUBCOMMANDS.size()));
         }
+        if (args.length == 2 && args[0].equalsIgnoreCase("pregen")) {
+            return StringUtil.copyPartialMatches(args[1], PREGEN_SUBCOMMANDS,
+                    new ArrayList<>(PREGEN_SUBCOMMANDS.size()));
+        }
+        if (args.length == 3 && args[0].equalsIgnoreCase("pregen")
+                && !args[1].equalsIgnoreCase("status")) {
+            Collection<String> worlds = getWorldNames();
+            return StringUtil
+                    .copyPartialMatches(args[2], worlds, new ArrayList<>(worlds.size()));
+        }
         if (args.length == 2 && args[0].equalsIgnoreCase("property")) {
             return StringUtil
                     .copyPartialMatches(args[1], System.getProperties().stringPropertyNames(),
@@ -221,6 +266,136 @@ public class GlowstoneCommand extends BukkitCommand {
         return Collections.emptyList();
     }
 
+    private boolean pregen(CommandSender sender, String label, String[] args) {
+        pregenerators.values().removeIf(pregenerator -> !pregenerator.isRunning());
+        if (args.length == 2 && "status".equalsIgnoreCase(args[1])) {
+            if (pregenerators.isEmpty()) {
+                sender.sendMessage("No chunks are being pre-generated.");
+            }
+            pregenerators.forEach((name, pregenerator) -> sender.sendMessage(
+                    " - " + ChatColor.GOLD + name + ChatColor.RESET + ": "
+                            + pregenerator.getProgress() + "."));
+            return true;
+        }
+        if (args.length < 3) {
+            sender.sendMessage(ChatColor.RED + "Usage: /" + label + " pregen <start <world> "
+                    + "<radius> [centerX centerZ]|area <world> <x1> <z1> <x2> <z2>"
+                    + "|resume <world>|stop <world>|status>");
+            return false;
+        }
+        GlowWorld world = (GlowWorld) ServerProvider.getServer().getWorld(args[2]);
+        if (world == null) {
+            sender.sendMessage(
+                    ChatColor.RED + "World '" + args[2] + "' is not loaded, or does not exist");
+            return false;
+        }
+        ChunkPregenerator running = pregenerators.get(world.getName());
+        if ("stop".equalsIgnoreCase(args[1])) {
+            if (running == null) {
+                sender.sendMessage(ChatColor.RED + "No chunks are being pre-generated in '"
+                        + world.getName() + "'.");
+                return false;
+            }
+            running.stop();
+            pregenerators.remove(world.getName());
+            return true;
+        }
+        if (running != null) {
+            sender.sendMessage(ChatColor.RED + "Chunks are already being pre-generated in '"
+                    + world.getName() + "'.");
+            return false;
+        }
+        ChunkPregenerator pregenerator;
+        try {
+            switch (args[1].toLowerCase()) {
+                case "start": {
+                    if (args.length != 4 && args.length != 6) {
+                        sender.sendMessage(ChatColor.RED + "Usage: /" + label
+                                + " pregen start <world> <radius> [centerX centerZ]");
+                        return false;
+                    }
+                    int radius = Integer.parseInt(args[3]);
+                    if (radius < 0 || radius > MAX_PREGEN_COORDINATE) {
+                        sender.sendMessage(ChatColor.RED + "The radius must be between 0 and "
+                                + MAX_PREGEN_COORDINATE + ".");
+                        return false;
+                    }
+                    int centerX;
+                    int centerZ;
+                    if (args.length == 6) {
+                        centerX = Integer.parseInt(args[4]);
+                        centerZ = Integer.parseInt(args[5]);
+                    } else {
+                        centerX = world.getSpawnLocation().getBlockX() >> 4;
+                        centerZ = world.getSpawnLocation().getBlockZ() >> 4;
+                    }
+                    if (!checkPregenArea(sender, (long) centerX - radius,
+                            (long) centerZ - radius, (long) centerX + radius,
+                            (long) centerZ + radius)) {
+                        return false;
+                    }
+                    pregenerator = new ChunkPregenerator(world, centerX - radius,
+                            centerZ - radius, centerX + radius, centerZ + radius, sender);
+                    break;
+                }
+                case "area":
+                    if (args.length != 7) {
+                        sender.sendMessage(ChatColor.RED + "Usage: /" + label
+                                + " pregen area <world> <x1> <z1> <x2> <z2>");
+                        return false;
+                    }
+                    int x1 = Integer.parseInt(args[3]);
+                    int z1 = Integer.parseInt(args[4]);
+                    int x2 = Integer.parseInt(args[5]);
+                    int z2 = Integer.parseInt(args[6]);
+                    if (!checkPregenArea(sender, x1, z1, x2, z2)) {
+                        return false;
+                    }
+                    pregenerator = new ChunkPregenerator(world, x1, z1, x2, z2, sender);
+                    break;
+                case "resume":
+                    pregenerator = ChunkPregenerator.resume(world, sender);
+                    if (pregenerator == null) {
+                        sender.sendMessage(ChatColor.RED + "There is no interrupted "
+                                + "pre-generation to resume in '" + world.getName() + "'.");
+                        return false;
+                    }
+                    break;
+                default:
+                    sender.sendMessage(ChatColor.RED + "Usage: /" + label + " pregen <"
+                            + String.join("|", PREGEN_SUBCOMMANDS) + ">");
+                    return false;
+            }
+        } catch (NumberFormatException ex) {
+            sender.sendMessage(ChatColor.RED + "Chunk coordinates must be whole numbers.");
+            return false;
+        } catch (IOException ex) {
+            sender.sendMessage(ChatColor.RED + "Could not read the saved progress: "
+                    + ex.getMessage());
+            return false;
+        }
+        pregenerators.put(world.getName(), pregenerator);
+        pregenerator.start();
+        return true;
+    }
+
+    /**
+     * Checks that an area to pre-generate is inside the largest world border, telling the sender
+     * if it isn't. The corners are longs, so that a center far out plus a large radius can't wrap
+     * around.
+     */
+    private static boolean checkPregenArea(CommandSender sender, long x1, long z1, long x2,
+            long z2) {
+        for (long coordinate : new long[] {x1, z1, x2, z2}) {
+            if (Math.abs(coordinate) > MAX_PREGEN_COORDINATE) {
+                sender.sendMessage(ChatColor.RED + "Chunk coordinates must be between -"
+                        + MAX_PREGEN_COORDINATE + " and " + MAX_PREGEN_COORDINATE + ".");
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String helpForSubCommand(String label, String subcommand, String description) {
         return "- " + ChatColor.GOLD + "/" + label + " "
                 + ChatColor.AQUA + subcommand
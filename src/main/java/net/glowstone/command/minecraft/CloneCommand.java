@@ -5,6 +5,7 @@ import java.util.Iterator;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import net.glowstone.GlowWorld;
+import net.glowstone.block.BlockEditSession;
 import net.glowstone.block.GlowBlock;
 import net.glowstone.block.entity.BlockEntity;
 import net.glowstone.command.CommandUtils;
@@ -197,6 +198,8 @@ public class CloneCommand extends VanillaCommand {
         Iterator<Location> toIterator = toRegion
                 .blockLocations(directionX, directionY, directionZ).iterator();
 
+        // the blocks are sent to clients once they have all been changed
+        BlockEditSession editSession = new BlockEditSession(world, false);
         while (fromIterator.hasNext() && toIterator.hasNext()) {
             Location fromLocation = fromIterator.next();
             Location toLocation = toIterator.next();
@@ -204,14 +207,13 @@ public class CloneCommand extends VanillaCommand {
             GlowBlock fromBlock = world.getBlockAt(fromLocation);
 
             if (blockFilter.shouldClone(fromBlock)) {
-                GlowBlock toBlock = world.getBlockAt(toLocation);
-                toBlock.setTypeIdAndData(fromBlock.getTypeId(), fromBlock.getData(), false);
+                editSession.setTypeIdAndData(toLocation.getBlockX(), toLocation.getBlockY(),
+                        toLocation.getBlockZ(), fromBlock.getTypeId(), fromBlock.getData());
 
                 BlockEntity fromEntity = fromBlock.getBlockEntity();
                 if (fromEntity != null) {
-                    BlockEntity toEntity = toBlock.getChunk()
-                            .createEntity(toBlock.getX(), toBlock.getY(), toBlock
-                                    .getZ(), toBlock.getTypeId());
+                    // the edit session has already created the new block entity
+                    BlockEntity toEntity = world.getBlockAt(toLocation).getBlockEntity();
                     if (toEntity != null) {
                         CompoundTag entityTag = new CompoundTag();
                         fromEntity.saveNbt(entityTag);
@@ -220,12 +222,14 @@ public class CloneCommand extends VanillaCommand {
                 }
 
                 if (cloneMode == CloneMode.MOVE) {
-                    fromBlock.setType(Material.AIR, false);
+                    editSession.setType(fromBlock.getX(), fromBlock.getY(), fromBlock.getZ(),
+                            Material.AIR);
                 }
 
                 blocksCloned++;
             }
         }
+        editSession.flush();
 
 
         if (blocksCloned == 0) {
@@ -69,6 +69,11 @@ public class TestForBlocksCommand extends VanillaCommand {
             if (isFiltered(fromBlock)) {
                 return true;
             }
+            // compare the cheap block states before serializing any block entities
+            if (fromBlock.getType() != toBlock.getType()
+                    || fromBlock.getData() != toBlock.getData()) {
+                return false;
+            }
             CompoundTag fromEntityTag = null;
             if (fromBlock.getBlockEntity() != null) {
                 fromEntityTag = new CompoundTag();
@@ -79,13 +84,7 @@ public class TestForBlocksCommand extends VanillaCommand {
                 toEntityTag = new CompoundTag();
                 toBlock.getBlockEntity().saveNbt(fromEntityTag);
             }
-            Material fromType = fromBlock.getType();
-            Material toType = toBlock.getType();
-            byte fromData = fromBlock.getData();
-            byte toData = toBlock.getData();
-            return Objects.equals(fromType, toType)
-                    && Objects.equals(fromData, toData)
-                    && Objects.equals(fromEntityTag, toEntityTag);
+            return Objects.equals(fromEntityTag, toEntityTag);
         }
     }
 
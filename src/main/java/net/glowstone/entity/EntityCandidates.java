@@ -0,0 +1,74 @@
+package net.glowstone.entity;
+
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Predicate;
+
+/**
+ * Entities which a player's client has not been sent yet, but which may come into view.
+ *
+ * <p>Entities offered since the last update are checked straight away. The ones left waiting,
+ * which are in a chunk the client knows about but still out of view, are only checked again every
+ * {@link #RESCAN_INTERVAL} ticks, so a crowded chunk at the edge of the view distance doesn't cost
+ * a full scan on every tick.
+ */
+final class EntityCandidates {
+
+    /**
+     * The number of ticks between checks of the entities left waiting.
+     */
+    static final int RESCAN_INTERVAL = 5;
+
+    private final Queue<GlowEntity> offered = new ConcurrentLinkedDeque<>();
+    private final Set<GlowEntity> waiting = new HashSet<>();
+
+    /**
+     * Queues an entity to be checked during the next update. Safe to call from any thread.
+     *
+     * @param entity the entity which may have come into view
+     */
+    void offer(GlowEntity entity) {
+        offered.add(entity);
+    }
+
+    /**
+     * Adds an entity to those left waiting, without checking it before the next rescan.
+     *
+     * @param entity an entity which has just gone out of view
+     */
+    void await(GlowEntity entity) {
+        waiting.add(entity);
+    }
+
+    /**
+     * Checks the offered entities, and every waiting entity if this is a rescan tick.
+     *
+     * @param tick the tick counter, offset as the caller likes to spread rescans out
+     * @param settled returns true if the entity is no longer a candidate, either because it was
+     *         spawned or because it can't be tracked any more
+     */
+    void update(int tick, Predicate<GlowEntity> settled) {
+        GlowEntity entity;
+        while ((entity = offered.poll()) != null) {
+            if (!settled.test(entity)) {
+                waiting.add(entity);
+            } else {
+                waiting.remove(entity);
+            }
+        }
+        if (Math.floorMod(tick, RESCAN_INTERVAL) == 0) {
+            waiting.removeIf(settled);
+        }
+    }
+
+    /**
+     * Returns the number of entities left waiting.
+     *
+     * @return the number of waiting entities
+     */
+    int size() {
+        return waiting.size();
+    }
+}
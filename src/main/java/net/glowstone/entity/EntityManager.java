@@ -4,19 +4,20 @@ import static com.google.common.collect.Multimaps.newSetMultimap;
 
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 import net.glowstone.chunk.GlowChunk;
 import net.glowstone.entity.physics.BoundingBox;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
+import org.bukkit.util.NumberConversions;
 
 /**
  * A class which manages all of the entities within a world.
@@ -25,6 +26,16 @@ import org.bukkit.entity.Entity;
  */
 public class EntityManager implements Iterable<GlowEntity> {
 
+    /**
+     * How far, in blocks, an entity's bounding box may extend horizontally from its location.
+     */
+    private static final int HORIZONTAL_MARGIN = 8;
+
+    /**
+     * How far, in blocks, an entity's bounding box may extend vertically from its location.
+     */
+    private static final int VERTICAL_MARGIN = 16;
+
     /**
      * A map of all the entity ids to the corresponding entities.
      */
@@ -37,6 +48,12 @@ public class EntityManager implements Iterable<GlowEntity> {
             = newSetMultimap(new ConcurrentHashMap<>(),
                     Sets::newConcurrentHashSet);
 
+    /**
+     * A map of chunk sections to the entities whose location is inside that section, used to
+     * answer range queries without visiting every entity in the world.
+     */
+    private final Map<Long, Set<GlowEntity>> sections = new ConcurrentHashMap<>();
+
     /**
      * Returns all entities with the specified type.
      *
@@ -82,9 +99,12 @@ public class EntityManager implements Iterable<GlowEntity> {
         if (entity.entityId == 0) {
             throw new IllegalStateException("Entity has not been assigned an id.");
         }
+        entity.invalidateUpdateMessages();
         entities.put(entity.entityId, entity);
         groupedEntities.put(entity.getClass(), entity);
         ((GlowChunk) entity.location.getChunk()).getRawEntities().add(entity);
+        index(entity, sectionKey(entity.location));
+        notifyPlayers(entity);
     }
 
     /**
@@ -96,6 +116,8 @@ public class EntityManager implements Iterable<GlowEntity> {
         entities.remove(entity.entityId);
         groupedEntities.remove(entity.getClass(), entity);
         ((GlowChunk) entity.location.getChunk()).getRawEntities().remove(entity);
+        unindex(entity);
+        entity.invalidateUpdateMessages();
     }
 
     /**
@@ -110,9 +132,54 @@ public class EntityManager implements Iterable<GlowEntity> {
         if (prevChunk != newChunk) {
             ((GlowChunk) prevChunk).getRawEntities().remove(entity);
             ((GlowChunk) newChunk).getRawEntities().add(entity);
+            notifyPlayers(entity);
+        }
+        long section = sectionKey(newLocation);
+        if (section != entity.indexedSection && entities.get(entity.entityId) == entity) {
+            unindex(entity);
+            index(entity, section);
         }
     }
 
+    /**
+     * Tells the players in this world that an entity may have come into view, because it has
+     * spawned or crossed a chunk boundary.
+     *
+     * @param entity The entity.
+     */
+    private void notifyPlayers(GlowEntity entity) {
+        for (GlowPlayer player : getAll(GlowPlayer.class)) {
+            player.trackEntity(entity);
+        }
+    }
+
+    private void index(GlowEntity entity, long section) {
+        entity.indexedSection = section;
+        sections.compute(section, (key, set) -> {
+            if (set == null) {
+                set = Sets.newConcurrentHashSet();
+            }
+            set.add(entity);
+            return set;
+        });
+    }
+
+    private void unindex(GlowEntity entity) {
+        sections.computeIfPresent(entity.indexedSection, (key, set) -> {
+            set.remove(entity);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static long sectionKey(Location location) {
+        return sectionKey(location.getBlockX() >> 4, location.getBlockY() >> 4,
+                location.getBlockZ() >> 4);
+    }
+
+    private static long sectionKey(int x, int y, int z) {
+        return (x & 0x3FFFFFFL) << 38 | (z & 0x3FFFFFFL) << 12 | y & 0xFFFL;
+    }
+
     @Override
     public Iterator<GlowEntity> iterator() {
         return entities.values().iterator();
@@ -126,9 +193,43 @@ public class EntityManager implements Iterable<GlowEntity> {
      * @return the entities contained in or touching {@code searchBox}, other than {@code except}
      */
     public List<Entity> getEntitiesInside(BoundingBox searchBox, GlowEntity except) {
-        // todo: narrow search based on the box's corners
-        return entities.values().stream()
-            .filter(entity -> entity != except && entity.intersects(searchBox))
-            .collect(Collectors.toCollection(LinkedList::new));
+        // entities are filed by location, so widen the search by the furthest a bounding box may
+        // reach from its entity's location
+        int minX = NumberConversions.floor(searchBox.minCorner.getX() - HORIZONTAL_MARGIN) >> 4;
+        int minY = NumberConversions.floor(searchBox.minCorner.getY() - VERTICAL_MARGIN) >> 4;
+        int minZ = NumberConversions.floor(searchBox.minCorner.getZ() - HORIZONTAL_MARGIN) >> 4;
+        int maxX = NumberConversions.floor(searchBox.maxCorner.getX() + HORIZONTAL_MARGIN) >> 4;
+        int maxY = NumberConversions.floor(searchBox.maxCorner.getY() + VERTICAL_MARGIN) >> 4;
+        int maxZ = NumberConversions.floor(searchBox.maxCorner.getZ() + HORIZONTAL_MARGIN) >> 4;
+
+        List<Entity> result = new ArrayList<>();
+        long sectionCount = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (sectionCount > sections.size()) {
+            // the box covers more sections than are occupied, so visit the occupied ones instead
+            for (Set<GlowEntity> section : sections.values()) {
+                addEntitiesInside(section, searchBox, except, result);
+            }
+            return result;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    Set<GlowEntity> section = sections.get(sectionKey(x, y, z));
+                    if (section != null) {
+                        addEntitiesInside(section, searchBox, except, result);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addEntitiesInside(Set<GlowEntity> section, BoundingBox searchBox,
+            GlowEntity except, List<Entity> result) {
+        for (GlowEntity entity : section) {
+            if (entity != except && entity.intersects(searchBox)) {
+                result.add(entity);
+            }
+        }
     }
 }
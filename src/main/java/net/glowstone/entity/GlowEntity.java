@@ -6,9 +6,10 @@ import com.flowpowered.network.Message;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -16,11 +17,13 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
 import lombok.Getter;
 import lombok.Setter;
 import net.glowstone.EventFactory;
 import net.glowstone.GlowServer;
 import net.glowstone.GlowWorld;
+import net.glowstone.block.GlowBlock;
 import net.glowstone.chunk.GlowChunk;
 import net.glowstone.entity.meta.MetadataIndex;
 import net.glowstone.entity.meta.MetadataIndex.StatusFlags;
@@ -29,9 +32,11 @@ import net.glowstone.entity.meta.MetadataMap.Entry;
 import net.glowstone.entity.objects.GlowItemFrame;
 import net.glowstone.entity.objects.GlowLeashHitch;
 import net.glowstone.entity.objects.GlowPainting;
+import net.glowstone.entity.physics.BlockCollision;
 import net.glowstone.entity.physics.BoundingBox;
 import net.glowstone.entity.physics.EntityBoundingBox;
 import net.glowstone.net.GlowSession;
+import net.glowstone.net.message.EncodedMessage;
 import net.glowstone.net.message.play.entity.AttachEntityMessage;
 import net.glowstone.net.message.play.entity.EntityMetadataMessage;
 import net.glowstone.net.message.play.entity.EntityRotationMessage;
@@ -42,6 +47,8 @@ import net.glowstone.net.message.play.entity.RelativeEntityPositionMessage;
 import net.glowstone.net.message.play.entity.RelativeEntityPositionRotationMessage;
 import net.glowstone.net.message.play.entity.SetPassengerMessage;
 import net.glowstone.net.message.play.player.InteractEntityMessage;
+import net.glowstone.net.protocol.GlowProtocol;
+import net.glowstone.net.protocol.ProtocolType;
 import net.glowstone.util.Position;
 import org.bukkit.EntityEffect;
 import org.bukkit.Location;
@@ -70,6 +77,7 @@ import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionAttachment;
 import org.bukkit.permissions.PermissionAttachmentInfo;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.util.NumberConversions;
 import org.bukkit.util.Vector;
 import org.spigotmc.event.entity.EntityDismountEvent;
 import org.spigotmc.event.entity.EntityMountEvent;
@@ -150,6 +158,10 @@ public abstract class GlowEntity implements Entity {
      */
     @Getter
     protected int entityId;
+    /**
+     * The chunk section this entity is filed under in its world's {@link EntityManager}.
+     */
+    long indexedSection;
     /**
      * Whether the entity should have its position resent as if teleported.
      */
@@ -175,6 +187,11 @@ public abstract class GlowEntity implements Entity {
      */
     protected EntityBoundingBox boundingBox;
     protected boolean passengerChanged;
+    /**
+     * The update messages shared by all viewers this tick, or null if they have not been created
+     * yet.
+     */
+    private List<Message> sharedUpdateMessages;
     /**
      * Whether this entity was forcibly removed from the world.
      */
@@ -217,6 +234,21 @@ public abstract class GlowEntity implements Entity {
     @Setter
     protected boolean applyDragBeforeAccel = false;
 
+    /**
+     * The location {@link #pulsePhysics()} moves this entity to, reused every tick.
+     */
+    private final Location pendingLocation = new Location(null, 0, 0, 0);
+
+    /**
+     * Moves the bounding box of this entity through the blocks in {@link #pulsePhysics()}.
+     */
+    private final BlockCollision blockCollision = new BlockCollision(this::isSolidBlock);
+
+    /**
+     * The block this entity last collided with.
+     */
+    private GlowBlock lastCollision;
+
     /**
      * This entity's unique id.
      */
@@ -644,7 +676,21 @@ public abstract class GlowEntity implements Entity {
         metadata.resetChanges();
         teleported = false;
         velocityChanged = false;
+        passengerChanged = false;
         leashHolderChanged = false;
+        invalidateUpdateMessages();
+    }
+
+    /**
+     * Releases the update messages shared by all viewers this tick, so that they are created again
+     * the next time this entity is updated. Called when the entity is added to or removed from a
+     * world, since any viewer spawning it after that must not be sent an encoding made before.
+     */
+    void invalidateUpdateMessages() {
+        if (sharedUpdateMessages != null) {
+            sharedUpdateMessages.forEach(ReferenceCountUtil::release);
+            sharedUpdateMessages = null;
+        }
     }
 
     /**
@@ -674,7 +720,7 @@ public abstract class GlowEntity implements Entity {
 
         updateBoundingBox();
 
-        Material type = location.getBlock().getType();
+        Material type = getBlockTypeAt(location.getX(), location.getY(), location.getZ());
 
         if (hasMoved()) {
             if (!fall || type == Material.LADDER // todo: horses are not affected
@@ -692,11 +738,11 @@ public abstract class GlowEntity implements Entity {
         if (fall && hasDefaultLandingBehavior()) {
             double detectOffsetY = 0;
             if (boundingBox != null) {
-                detectOffsetY = boundingBox.getSize().getY();
+                detectOffsetY = boundingBox.getVertSize();
             }
 
-            Location detectLocation = location.clone().add(0, -detectOffsetY, 0);
-            setOnGround(detectLocation.getBlock().getType().isSolid());
+            setOnGround(isSolidAt(location.getX(), location.getY() - detectOffsetY,
+                    location.getZ()));
         }
     }
 
@@ -768,10 +814,46 @@ public abstract class GlowEntity implements Entity {
     /**
      * Creates a {@link Message} which can be sent to a client to update this entity.
      *
+     * <p>The messages which are the same for every viewer are only created and encoded once per
+     * tick; the result holds a reference to each of them, which is released once it is sent.
+     *
      * @param session Session to update this entity for
      * @return A message which can update this entity.
      */
     public List<Message> createUpdateMessage(GlowSession session) {
+        if (sharedUpdateMessages == null) {
+            sharedUpdateMessages = encodeSharedUpdateMessages();
+        }
+        List<Message> result = new ArrayList<>(sharedUpdateMessages.size() + 2);
+        for (Message message : sharedUpdateMessages) {
+            result.add(message instanceof EncodedMessage
+                    ? ((EncodedMessage) message).retainedDuplicate() : message);
+        }
+        result.addAll(createViewerUpdateMessages(session));
+        return result;
+    }
+
+    private List<Message> encodeSharedUpdateMessages() {
+        List<Message> messages = createSharedUpdateMessages();
+        GlowProtocol protocol = ProtocolType.PLAY.getProtocol();
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                messages.set(i, EncodedMessage.encode(protocol, messages.get(i)));
+            } catch (IOException e) {
+                // leave it to be encoded for each viewer, which will report the failure
+                GlowServer.logger.log(Level.FINE, "Failed to encode " + messages.get(i), e);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Creates the messages which update this entity in the same way for every viewer, such as
+     * movement and metadata changes. Called at most once per tick.
+     *
+     * @return A mutable list of the messages which can update this entity.
+     */
+    protected List<Message> createSharedUpdateMessages() {
         double x = location.getX();
         double y = location.getY();
         double z = location.getZ();
@@ -787,7 +869,7 @@ public abstract class GlowEntity implements Entity {
         boolean teleport = dx > Short.MAX_VALUE || dy > Short.MAX_VALUE || dz > Short.MAX_VALUE
                 || dx < Short.MIN_VALUE || dy < Short.MIN_VALUE || dz < Short.MIN_VALUE;
 
-        List<Message> result = new LinkedList<>();
+        List<Message> result = new ArrayList<>();
 
         boolean moved = hasMoved();
         boolean rotated = hasRotated();
@@ -819,6 +901,18 @@ public abstract class GlowEntity implements Entity {
             result.add(new EntityVelocityMessage(entityId, velocity));
         }
 
+        return result;
+    }
+
+    /**
+     * Creates the messages which update this entity differently depending on the viewer.
+     *
+     * @param session Session to update this entity for
+     * @return The messages which can update this entity for the given session.
+     */
+    protected List<Message> createViewerUpdateMessages(GlowSession session) {
+        List<Message> result = new ArrayList<>(0);
+
         if (passengerChanged) {
             // A player can be a passenger of any arbitrary entity, e.g. a boat
             // In case the current session belongs to this player passenger
@@ -833,7 +927,6 @@ public abstract class GlowEntity implements Entity {
             });
             result.add(new SetPassengerMessage(getEntityId(), passengerIds.stream()
                     .mapToInt(Integer::intValue).toArray()));
-            passengerChanged = false;
         }
 
         if (leashHolderChanged) {
@@ -985,66 +1078,142 @@ public abstract class GlowEntity implements Entity {
     }
 
     protected void pulsePhysics() {
-        // The pending locaiton and the block at that location
-        Location pendingLocation = location.clone().add(velocity);
-        Block pendingBlock = pendingLocation.getBlock();
-
-        if (pendingBlock.getType().isSolid()) {
-            Location pendingLocationX = location.clone().add(velocity.getX(), 0, 0);
-            if (pendingLocationX.getBlock().getType().isSolid()) {
-                velocity.setX(0);
-            }
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        double velocityX = velocity.getX();
+        double velocityY = velocity.getY();
+        double velocityZ = velocity.getZ();
 
-            Location pendingLocationY = location.clone().add(0, velocity.getY(), 0);
-            if (pendingLocationY.getBlock().getType().isSolid()) {
-                velocity.setY(0);
+        if (boundingBox == null) {
+            // without a box, only the point the entity is moving to is checked
+            if (isSolidAt(x + velocityX, y + velocityY, z + velocityZ)) {
+                if (isSolidAt(x + velocityX, y, z)) {
+                    velocity.setX(0);
+                }
+                if (isSolidAt(x, y + velocityY, z)) {
+                    velocity.setY(0);
+                }
+                if (isSolidAt(x, y, z + velocityZ)) {
+                    velocity.setZ(0);
+                }
+                collideAt(NumberConversions.floor(x + velocityX),
+                        NumberConversions.floor(y + velocityY),
+                        NumberConversions.floor(z + velocityZ));
+                return;
             }
+            applyDrag(x, y, z);
+            move(velocityX, velocityY, velocityZ);
+            return;
+        }
 
-            Location pendingLocationZ = location.clone().add(0, 0, velocity.getZ());
-            if (pendingLocationZ.getBlock().getType().isSolid()) {
-                velocity.setZ(0);
-            }
+        blockCollision.sweep(boundingBox, velocityX, velocityY, velocityZ);
+        if (blockCollision.isCollidedX()) {
+            velocity.setX(0);
+        }
+        if (blockCollision.isCollidedY()) {
+            velocity.setY(0);
+        }
+        if (blockCollision.isCollidedZ()) {
+            velocity.setZ(0);
+        }
+        applyDrag(x, y, z);
+        move(blockCollision.getMoveX(), blockCollision.getMoveY(), blockCollision.getMoveZ());
+        if (blockCollision.isCollided()) {
+            collideAt(blockCollision.getBlockX(), blockCollision.getBlockY(),
+                    blockCollision.getBlockZ());
+        }
+    }
 
-            collide(pendingBlock);
-        } else {
-            if (hasFriction()) {
-                // apply friction and gravity
-                if (location.getBlock().getType() == Material.WATER) {
-                    velocity.multiply(liquidDrag);
-                    velocity.setY(velocity.getY() + getGravityAccel().getY() / 4);
-                } else if (location.getBlock().getType() == Material.LAVA) {
-                    velocity.multiply(liquidDrag - 0.3);
-                    velocity.setY(velocity.getY() + getGravityAccel().getY() / 4);
+    /**
+     * Applies friction and gravity to the velocity.
+     */
+    private void applyDrag(double x, double y, double z) {
+        double gravityY = getGravityAccel().getY();
+        if (hasFriction()) {
+            // apply friction and gravity
+            Material type = getBlockTypeAt(x, y, z);
+            if (type == Material.WATER) {
+                velocity.multiply(liquidDrag);
+                velocity.setY(velocity.getY() + gravityY / 4);
+            } else if (type == Material.LAVA) {
+                velocity.multiply(liquidDrag - 0.3);
+                velocity.setY(velocity.getY() + gravityY / 4);
+            } else {
+                if (applyDragBeforeAccel) {
+                    velocity.setY(airDrag * velocity.getY() + gravityY);
                 } else {
-                    if (applyDragBeforeAccel) {
-                        velocity.setY(airDrag * velocity.getY() + getGravityAccel().getY());
-                    } else {
-                        velocity.setY(airDrag * (velocity.getY() + getGravityAccel().getY()));
-                    }
-
-                    if (isOnGround()) {
-                        velocity.setX(velocity.getX() * slipMultiplier);
-                        velocity.setY(0);
-                        velocity.setZ(velocity.getZ() * slipMultiplier);
-                    } else {
-                        velocity.setX(velocity.getX() * airDrag);
-                        velocity.setZ(velocity.getZ() * airDrag);
-                    }
+                    velocity.setY(airDrag * (velocity.getY() + gravityY));
                 }
-            } else if (hasGravity() && !isOnGround()) {
-                switch (location.getBlock().getType()) {
-                    case WATER:
-                    case LAVA:
-                        velocity.setY(velocity.getY() + getGravityAccel().getY() / 4);
-                        break;
-                    default:
-                        velocity.setY(velocity.getY() + getGravityAccel().getY() / 4);
+
+                if (isOnGround()) {
+                    velocity.setX(velocity.getX() * slipMultiplier);
+                    velocity.setY(0);
+                    velocity.setZ(velocity.getZ() * slipMultiplier);
+                } else {
+                    velocity.setX(velocity.getX() * airDrag);
+                    velocity.setZ(velocity.getZ() * airDrag);
                 }
             }
-            setRawLocation(pendingLocation);
+        } else if (hasGravity() && !isOnGround()) {
+            velocity.setY(velocity.getY() + gravityY / 4);
         }
     }
 
+    private void move(double dx, double dy, double dz) {
+        Position.copyLocation(location, pendingLocation);
+        pendingLocation.add(dx, dy, dz);
+        setRawLocation(pendingLocation);
+    }
+
+    /**
+     * Collides with the block at the given position. The block is kept, so an entity resting
+     * against the same block every tick doesn't create a new one each time.
+     */
+    private void collideAt(int x, int y, int z) {
+        GlowBlock block = lastCollision;
+        if (block == null || block.getWorld() != world || block.getX() != x || block.getY() != y
+                || block.getZ() != z) {
+            block = world.getBlockAt(x, y, z);
+            lastCollision = block;
+        }
+        collide(block);
+    }
+
+    /**
+     * Checks whether the block at a position is solid, for the {@link BlockCollision}.
+     */
+    private boolean isSolidBlock(int x, int y, int z) {
+        Material type = Material.getMaterial(world.getBlockTypeIdAt(x, y, z));
+        return type != null && type.isSolid();
+    }
+
+    /**
+     * Returns the type of the block containing a point, without creating a {@link Block}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block type
+     */
+    protected final Material getBlockTypeAt(double x, double y, double z) {
+        return Material.getMaterial(world.getBlockTypeIdAt(NumberConversions.floor(x),
+                NumberConversions.floor(y), NumberConversions.floor(z)));
+    }
+
+    /**
+     * Checks whether the block containing a point is solid, without creating a {@link Block}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return true if the block is solid
+     */
+    protected final boolean isSolidAt(double x, double y, double z) {
+        return isSolidBlock(NumberConversions.floor(x), NumberConversions.floor(y),
+                NumberConversions.floor(z));
+    }
+
     /**
      * Collide with the target block.
      *
@@ -10,6 +10,7 @@ import com.flowpowered.network.Message;
 import com.flowpowered.network.util.ByteBufUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import java.io.IOException;
@@ -47,7 +48,10 @@ import net.glowstone.block.blocktype.BlockBed;
 import net.glowstone.block.entity.SignEntity;
 import net.glowstone.block.itemtype.ItemFood;
 import net.glowstone.block.itemtype.ItemType;
+import net.glowstone.chunk.ChunkManager;
 import net.glowstone.chunk.ChunkManager.ChunkLock;
+import net.glowstone.chunk.ChunkStreamer;
+import net.glowstone.chunk.ChunkStreamer.ReadyChunk;
 import net.glowstone.chunk.GlowChunk;
 import net.glowstone.chunk.GlowChunk.Key;
 import net.glowstone.constants.GlowAchievement;
@@ -222,6 +226,13 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
      */
     private final Set<GlowEntity> knownEntities = new HashSet<>();
 
+    /**
+     * Entities which may have come into view, queued when they spawn or cross a chunk boundary, and
+     * those in chunks the client knows about which may come into view without crossing one.
+     * Updated while holding {@link #worldLock}.
+     */
+    private final EntityCandidates entityCandidates = new EntityCandidates();
+
     /**
      * The entities that are hidden from the client.
      */
@@ -232,6 +243,11 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
      */
     private final Set<Key> knownChunks = new HashSet<>();
 
+    /**
+     * The chunks that are being prepared to be sent to the client.
+     */
+    private final ChunkStreamer chunkStreamer = new ChunkStreamer();
+
     /**
      * A queue of BlockChangeMessages to be sent.
      */
@@ -755,7 +771,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
      */
     @Override
     public void remove() {
-        knownChunks.clear();
+        clearStreamedChunks(world);
         chunkLock.clear();
         saveData();
         getInventory().removeViewer(this);
@@ -778,7 +794,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
      * @param async if true, the player's data is saved asynchronously
      */
     public void remove(boolean async) {
-        knownChunks.clear();
+        clearStreamedChunks(world);
         chunkLock.clear();
         saveData(async);
         getInventory().removeViewer(this);
@@ -929,29 +945,14 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
                 for (GlowEntity entity : destroyEntities) {
                     knownEntities.remove(entity);
                     destroyIds.add(entity.getEntityId());
+                    // it may come back into view without crossing a chunk boundary
+                    entityCandidates.await(entity);
                 }
                 session.send(new DestroyEntitiesMessage(destroyIds));
             }
-            // add entities
-            knownChunks.forEach(key ->
-                    world.getChunkAt(key.getX(), key.getZ()).getRawEntities().stream()
-                            .filter(entity -> this != entity
-                                    && isWithinDistance(entity)
-                                    && !entity.isDead()
-                                    && !knownEntities.contains(entity)
-                                    && !hiddenEntities.contains(entity.getUniqueId()))
-                            .forEach((entity) -> Bukkit.getScheduler()
-                                    .runTaskAsynchronously(null, () -> {
-                                        worldLock.readLock().lock();
-                                        try {
-                                            knownEntities.add(entity);
-                                        } finally {
-                                            worldLock.readLock().unlock();
-                                        }
-                                        entity.createSpawnMessage().forEach(session::send);
-                                        entity.createAfterSpawnMessage(session)
-                                                .forEach(session::send);
-                                    })));
+            // add entities which have come into view
+            // offset by the id so that players don't all rescan on the same tick
+            entityCandidates.update(ticksLived + getEntityId(), this::spawnCandidate);
         } finally {
             worldLock.writeLock().unlock();
         }
@@ -977,6 +978,52 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
         }
     }
 
+    /**
+     * Notes that an entity may have come into view, because it has spawned or crossed a chunk
+     * boundary. It is spawned on the client during the next pulse if it is in view by then.
+     *
+     * <p>Safe to call from any thread.
+     *
+     * @param entity the entity which may have come into view
+     */
+    void trackEntity(GlowEntity entity) {
+        if (entity != this) {
+            entityCandidates.offer(entity);
+        }
+    }
+
+    /**
+     * Spawns a candidate entity on the client if it has come into view.
+     *
+     * @param entity the candidate
+     * @return true if the entity was spawned or can no longer be tracked, false if it's still a
+     *         candidate
+     */
+    private boolean spawnCandidate(GlowEntity entity) {
+        if (!isTrackable(entity)) {
+            return true;
+        }
+        if (!isWithinDistance(entity)) {
+            return false;
+        }
+        knownEntities.add(entity);
+        entity.createSpawnMessage().forEach(session::send);
+        entity.createAfterSpawnMessage(session).forEach(session::send);
+        return true;
+    }
+
+    /**
+     * Checks whether an entity that the client has not been sent yet is in a chunk the client
+     * knows about, and could be spawned once it is within the view distance.
+     */
+    private boolean isTrackable(GlowEntity entity) {
+        return entity.getWorld() == world && !entity.isRemoved() && !entity.isDead()
+                && !knownEntities.contains(entity)
+                && !hiddenEntities.contains(entity.getUniqueId())
+                && canSeeChunk(GlowChunk.Key.of(entity.location.getBlockX() >> 4,
+                        entity.location.getBlockZ() >> 4));
+    }
+
     @Override
     protected void pulsePhysics() {
         // trust the client with physics
@@ -1002,6 +1049,9 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
                 break;
             }
             Key key = GlowChunk.Key.of(message.getX() >> 4, message.getZ() >> 4);
+            if (chunkStreamer.deferBlockChange(key, message)) {
+                continue;
+            }
             if (canSeeChunk(key)) {
                 Map<BlockVector, BlockChangeMessage> map = chunks
                         .computeIfAbsent(key, k -> new HashMap<>());
@@ -1030,6 +1080,14 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
      * Streams chunks to the player's client.
      */
     private void streamBlocks() {
+        updateStreamedChunks();
+        sendReadyChunks();
+    }
+
+    /**
+     * Queues the chunks that have come into view and unloads those that have left it.
+     */
+    private void updateStreamedChunks() {
         Set<Key> previousChunks = null;
         ArrayList<Key> newChunks = new ArrayList<>();
 
@@ -1046,7 +1104,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
             }
         } else if (Math.abs(centralX - prevCentralX) > radius
                 || Math.abs(centralZ - prevCentralZ) > radius) {
-            knownChunks.clear();
+            clearStreamedChunks(world);
             for (int x = centralX - radius; x <= centralX + radius; x++) {
                 for (int z = centralZ - radius; z <= centralZ + radius; z++) {
                     newChunks.add(GlowChunk.Key.of(x, z));
@@ -1059,7 +1117,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
                     Key key = GlowChunk.Key.of(x, z);
                     if (knownChunks.contains(key)) {
                         previousChunks.remove(key);
-                    } else {
+                    } else if (!chunkStreamer.isPending(key)) {
                         newChunks.add(key);
                     }
                 }
@@ -1071,48 +1129,83 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
         prevCentralX = centralX;
         prevCentralZ = centralZ;
 
-        // sort chunks by distance from player - closer chunks sent first
-        newChunks.sort((a, b) -> {
-            double dx = 16 * a.getX() + 8 - location.getX();
-            double dz = 16 * a.getZ() + 8 - location.getZ();
-            double da = dx * dx + dz * dz;
-            dx = 16 * b.getX() + 8 - location.getX();
-            dz = 16 * b.getZ() + 8 - location.getZ();
-            double db = dx * dx + dz * dz;
-            return Double.compare(da, db);
-        });
-
-        // populate then send chunks to the player
-        // done in two steps so that all the new chunks are finalized before any of them are sent
-        // this prevents sending a chunk then immediately sending block changes in it because
-        // one of its neighbors has populated
-
-        // first step: force population then acquire lock on each chunk
+        // lock each new chunk so it is not unloaded once it has been prepared, then let the
+        // chunk manager load and generate it off the world thread and populate it
+        boolean skylight = world.getEnvironment() == Environment.NORMAL;
         newChunks.forEach(newChunk -> {
-            world.getChunkManager().forcePopulation(newChunk.getX(), newChunk.getZ());
-            knownChunks.add(newChunk);
             chunkLock.acquire(newChunk);
+            chunkStreamer.enqueue(world.getChunkManager(), newChunk, skylight);
+            // block changes from now on must reach the client, after the chunk itself
+            world.getChunkAt(newChunk.getX(), newChunk.getZ()).addPendingViewer(this);
         });
 
-        boolean skylight = world.getEnvironment() == Environment.NORMAL;
-
-        newChunks.stream().map(key -> world.getChunkAt(key.getX(), key.getZ()).toMessage(skylight))
-                .forEach(session::send);
-
-        // send visible block entity data
-        newChunks.stream().flatMap(key -> world.getChunkAt(key.getX(),
-                key.getZ()).getRawBlockEntities().stream())
-                .forEach(entity -> entity.update(this));
-
         // and remove old chunks
         if (previousChunks != null) {
             previousChunks.forEach(key -> {
                 session.send(new UnloadChunkMessage(key.getX(), key.getZ()));
                 knownChunks.remove(key);
+                world.getChunkAt(key.getX(), key.getZ()).removeViewer(this);
                 chunkLock.release(key);
             });
             previousChunks.clear();
         }
+
+        // stop preparing chunks which have left the view before they could be sent
+        List<Key> stalePending = new ArrayList<>();
+        for (Key key : chunkLock) {
+            if (chunkStreamer.isPending(key) && (Math.abs(key.getX() - centralX) > radius
+                    || Math.abs(key.getZ() - centralZ) > radius)) {
+                stalePending.add(key);
+            }
+        }
+        stalePending.forEach(key -> {
+            chunkStreamer.cancel(key);
+            world.getChunkAt(key.getX(), key.getZ()).removeViewer(this);
+            chunkLock.release(key);
+        });
+    }
+
+    /**
+     * Sends the chunks which have finished preparing, closest first, up to the per-tick budget.
+     *
+     * <p>Chunks are only handed to the streamer once they and their neighbors have been
+     * populated, so a chunk is never changed by population after it has been sent.
+     */
+    private void sendReadyChunks() {
+        List<ReadyChunk> ready = chunkStreamer
+                .pollReady(location.getX(), location.getZ(), server.getChunksPerTick());
+        for (ReadyChunk chunk : ready) {
+            Key key = chunk.getKey();
+            session.send(chunk.getMessage());
+            knownChunks.add(key);
+            GlowChunk glowChunk = world.getChunkAt(key.getX(), key.getZ());
+            glowChunk.addViewer(this);
+
+            // send visible block entity data, and spawn entities once they are in view
+            glowChunk.getRawBlockEntities().forEach(entity -> entity.update(this));
+            glowChunk.getRawEntities().forEach(this::trackEntity);
+
+            // replay block changes which may have happened after serialization
+            chunk.getBlockChanges().forEach(blockChanges::add);
+        }
+    }
+
+    /**
+     * Forgets all the chunks known to the player's client, without unloading them on the client,
+     * and stops streaming the pending ones.
+     *
+     * @param world the world the chunks are in
+     */
+    private void clearStreamedChunks(GlowWorld world) {
+        ChunkManager chunkManager = world.getChunkManager();
+        for (Key key : Iterables.concat(knownChunks, chunkStreamer.getPendingKeys())) {
+            GlowChunk chunk = chunkManager.getChunkIfPresent(key);
+            if (chunk != null) {
+                chunk.removeViewer(this);
+            }
+        }
+        knownChunks.clear();
+        chunkStreamer.clear();
     }
 
     /**
@@ -1138,7 +1231,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
 
         // switch chunk set
         // no need to send chunk unload messages - respawn unloads all chunks
-        knownChunks.clear();
+        clearStreamedChunks(oldWorld);
         chunkLock.clear();
         chunkLock = world.newChunkLock(getName());
 
@@ -1254,6 +1347,16 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
         return knownChunks.contains(chunk);
     }
 
+    /**
+     * Checks whether a chunk is being prepared to be sent to the player's client.
+     *
+     * @param chunk The chunk to check.
+     * @return If the chunk has been requested but not sent yet.
+     */
+    public boolean isChunkPending(Key chunk) {
+        return chunkStreamer.isPending(chunk);
+    }
+
     /**
      * Checks whether the player can see the given entity.
      *
@@ -2558,6 +2661,16 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
         blockChanges.add(message);
     }
 
+    /**
+     * Sends a message once the block changes pending for this tick have been sent, so that they
+     * do not override it.
+     *
+     * @param message the message to send
+     */
+    public void sendAfterBlockChanges(Message message) {
+        afterBlockChanges.add(message);
+    }
+
     @Override
     public boolean sendChunkChange(Location loc, int sx, int sy, int sz, byte[] data) {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -2616,8 +2729,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
     public void sendMap(MapView map) {
         GlowMapCanvas mapCanvas = GlowMapCanvas.createAndRender(map, this);
         session.send(new MapDataMessage(map.getId(), map.getScale().ordinal(), Collections
-                .emptyList(),
-                mapCanvas.toSection()));
+                .emptyList(), mapCanvas.toSection()));
     }
 
     @Override
@@ -3213,6 +3325,7 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
         session.send(new UserListItemMessage(UserListItemMessage.Action.ADD_PLAYER, ((GlowPlayer)
                 player)
                 .getUserListEntry()));
+        trackEntity((GlowPlayer) player);
     }
 
     @Override
@@ -3433,8 +3546,8 @@ public class GlowPlayer extends GlowHumanEntity implements Player {
 
     private void broadcastBlockBreakAnimation(GlowBlock block, int destroyStage) {
         GlowChunk.Key key = GlowChunk.Key.of(block.getX() >> 4, block.getZ() >> 4);
-        block.getWorld().getRawPlayers().stream()
-                .filter(player -> player.canSeeChunk(key) && player != this)
+        block.getWorld().getChunkAt(key.getX(), key.getZ()).getRawViewers().stream()
+                .filter(player -> player != this)
                 .forEach(player -> player
                         .sendBlockBreakAnimation(block.getLocation(), destroyStage));
     }
@@ -14,7 +14,6 @@ import net.glowstone.entity.meta.MetadataIndex.ArmorStandFlags;
 import net.glowstone.entity.meta.MetadataIndex.StatusFlags;
 import net.glowstone.inventory.ClothType;
 import net.glowstone.inventory.GlowEntityEquipment;
-import net.glowstone.net.GlowSession;
 import net.glowstone.net.message.play.entity.DestroyEntitiesMessage;
 import net.glowstone.net.message.play.entity.EntityEquipmentMessage;
 import net.glowstone.net.message.play.entity.EntityMetadataMessage;
@@ -370,8 +369,8 @@ public class GlowArmorStand extends GlowLivingEntity implements ArmorStand {
     }
 
     @Override
-    public List<Message> createUpdateMessage(GlowSession session) {
-        List<Message> messages = super.createUpdateMessage(session);
+    protected List<Message> createSharedUpdateMessages() {
+        List<Message> messages = super.createSharedUpdateMessages();
         if (needsKill) {
             messages.add(new DestroyEntitiesMessage(Collections.singletonList(entityId)));
         }
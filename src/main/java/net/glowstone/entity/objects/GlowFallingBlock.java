@@ -115,10 +115,10 @@ public class GlowFallingBlock extends GlowEntity implements FallingBlock {
             return;
         }
 
-        Location nextBlock = location.clone().add(getVelocity());
-        if (!nextBlock.getBlock().getType().isSolid()) {
+        if (!isSolidAt(location.getX() + velocity.getX(), location.getY() + velocity.getY(),
+                location.getZ() + velocity.getZ())) {
             velocity.add(getGravityAccel());
-            location.add(getVelocity());
+            location.add(velocity);
             velocity.multiply(airDrag);
         } else {
             if (supportingBlock(location.getBlock().getType())) {
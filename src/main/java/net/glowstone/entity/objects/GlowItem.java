@@ -153,7 +153,7 @@ public class GlowItem extends GlowEntity implements Item {
 
     @Override
     protected void pulsePhysics() {
-        if (location.getBlock().getType().isSolid()) {
+        if (isSolidAt(location.getX(), location.getY(), location.getZ())) {
             setRawLocation(location.clone().add(0, 0.2, 0), false);
         }
 
@@ -5,7 +5,6 @@ import java.util.Arrays;
 import java.util.List;
 import net.glowstone.EventFactory;
 import net.glowstone.chunk.GlowChunk;
-import net.glowstone.chunk.GlowChunk.Key;
 import net.glowstone.entity.GlowHangingEntity;
 import net.glowstone.entity.GlowPlayer;
 import net.glowstone.entity.meta.MetadataIndex;
@@ -174,15 +173,13 @@ public class GlowItemFrame extends GlowHangingEntity implements ItemFrame {
                 // do nothing
         }
 
-        Key key = GlowChunk.Key.of(location.getBlockX() >> 4, location.getBlockZ() >> 4);
-        for (GlowPlayer player : getWorld().getRawPlayers()) {
-            if (player.canSeeChunk(key)) {
-                double x = location.getX();
-                double y = location.getY();
-                double z = location.getZ();
-                player.getSession()
-                    .send(new EntityTeleportMessage(entityId, x + xoffset, y, z + zoffset, yaw, 0));
-            }
+        GlowChunk chunk = world.getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        for (GlowPlayer player : chunk.getRawViewers()) {
+            double x = location.getX();
+            double y = location.getY();
+            double z = location.getZ();
+            player.getSession()
+                .send(new EntityTeleportMessage(entityId, x + xoffset, y, z + zoffset, yaw, 0));
         }
     }
 
@@ -0,0 +1,251 @@
+package net.glowstone.entity.physics;
+
+import lombok.Getter;
+import org.bukkit.util.NumberConversions;
+
+/**
+ * Moves a bounding box through the solid blocks of a world. The movement is clipped one axis at a
+ * time, Y first and then X and Z, at the first block face in the way, so a fast entity can't pass
+ * through a block between two ticks. Solid blocks count as full cubes.
+ *
+ * <p>An instance holds the result of the last {@link #sweep(BoundingBox, double, double, double)
+ * sweep} and is meant to be reused by one entity every tick, so sweeping doesn't allocate.
+ */
+public final class BlockCollision {
+
+    /**
+     * How far a box may overlap a block face and still count as touching it, which absorbs the
+     * rounding error of adding the clipped movement to the box.
+     */
+    private static final double EPSILON = 1e-7;
+
+    /**
+     * Tells whether the block at a position is solid.
+     */
+    @FunctionalInterface
+    public interface SolidBlocks {
+
+        /**
+         * Returns whether the block at the given position stops movement.
+         *
+         * @param x the block X coordinate
+         * @param y the block Y coordinate
+         * @param z the block Z coordinate
+         * @return true if the block is solid
+         */
+        boolean isSolid(int x, int y, int z);
+    }
+
+    private final SolidBlocks blocks;
+
+    /**
+     * The movement along the X axis which is left after clipping.
+     */
+    @Getter
+    private double moveX;
+    /**
+     * The movement along the Y axis which is left after clipping.
+     */
+    @Getter
+    private double moveY;
+    /**
+     * The movement along the Z axis which is left after clipping.
+     */
+    @Getter
+    private double moveZ;
+    /**
+     * Whether the movement along the X axis was clipped.
+     */
+    @Getter
+    private boolean collidedX;
+    /**
+     * Whether the movement along the Y axis was clipped.
+     */
+    @Getter
+    private boolean collidedY;
+    /**
+     * Whether the movement along the Z axis was clipped.
+     */
+    @Getter
+    private boolean collidedZ;
+    /**
+     * The X coordinate of the last block which clipped the movement.
+     */
+    @Getter
+    private int blockX;
+    /**
+     * The Y coordinate of the last block which clipped the movement.
+     */
+    @Getter
+    private int blockY;
+    /**
+     * The Z coordinate of the last block which clipped the movement.
+     */
+    @Getter
+    private int blockZ;
+
+    private double minX;
+    private double minY;
+    private double minZ;
+    private double maxX;
+    private double maxY;
+    private double maxZ;
+
+    /**
+     * Creates an instance which looks up solid blocks with the given function.
+     *
+     * @param blocks tells which blocks are solid
+     */
+    public BlockCollision(SolidBlocks blocks) {
+        this.blocks = blocks;
+    }
+
+    /**
+     * Moves a box by the given amounts, clipping the movement at the solid blocks in the way. The
+     * box itself isn't changed; the movement left is returned by {@link #getMoveX()},
+     * {@link #getMoveY()} and {@link #getMoveZ()}.
+     *
+     * @param box the box to move
+     * @param dx the movement along the X axis
+     * @param dy the movement along the Y axis
+     * @param dz the movement along the Z axis
+     */
+    public void sweep(BoundingBox box, double dx, double dy, double dz) {
+        minX = box.minCorner.getX();
+        minY = box.minCorner.getY();
+        minZ = box.minCorner.getZ();
+        maxX = box.maxCorner.getX();
+        maxY = box.maxCorner.getY();
+        maxZ = box.maxCorner.getZ();
+
+        moveY = clipY(dy);
+        collidedY = moveY != dy;
+        minY += moveY;
+        maxY += moveY;
+
+        moveX = clipX(dx);
+        collidedX = moveX != dx;
+        minX += moveX;
+        maxX += moveX;
+
+        moveZ = clipZ(dz);
+        collidedZ = moveZ != dz;
+    }
+
+    /**
+     * Returns whether the movement was clipped along any axis.
+     *
+     * @return true if the box ran into a block
+     */
+    public boolean isCollided() {
+        return collidedX || collidedY || collidedZ;
+    }
+
+    private double clipY(double dy) {
+        if (dy == 0) {
+            return 0;
+        }
+        int fromX = NumberConversions.floor(minX);
+        int toX = NumberConversions.floor(maxX);
+        int fromZ = NumberConversions.floor(minZ);
+        int toZ = NumberConversions.floor(maxZ);
+        int fromY = NumberConversions.floor(Math.min(minY, minY + dy));
+        int toY = NumberConversions.floor(Math.max(maxY, maxY + dy));
+        for (int x = fromX; x <= toX; x++) {
+            if (x + 1 <= minX || x >= maxX) {
+                continue;
+            }
+            for (int z = fromZ; z <= toZ; z++) {
+                if (z + 1 <= minZ || z >= maxZ) {
+                    continue;
+                }
+                for (int y = fromY; y <= toY; y++) {
+                    if (dy > 0 && maxY <= y + EPSILON && y - maxY < dy
+                            && blocks.isSolid(x, y, z)) {
+                        dy = Math.max(0, y - maxY);
+                        hit(x, y, z);
+                    } else if (dy < 0 && minY >= y + 1 - EPSILON && y + 1 - minY > dy
+                            && blocks.isSolid(x, y, z)) {
+                        dy = Math.min(0, y + 1 - minY);
+                        hit(x, y, z);
+                    }
+                }
+            }
+        }
+        return dy;
+    }
+
+    private double clipX(double dx) {
+        if (dx == 0) {
+            return 0;
+        }
+        int fromZ = NumberConversions.floor(minZ);
+        int toZ = NumberConversions.floor(maxZ);
+        int fromX = NumberConversions.floor(Math.min(minX, minX + dx));
+        int toX = NumberConversions.floor(Math.max(maxX, maxX + dx));
+        int fromY = NumberConversions.floor(minY);
+        int toY = NumberConversions.floor(maxY);
+        for (int y = fromY; y <= toY; y++) {
+            if (y + 1 <= minY || y >= maxY) {
+                continue;
+            }
+            for (int z = fromZ; z <= toZ; z++) {
+                if (z + 1 <= minZ || z >= maxZ) {
+                    continue;
+                }
+                for (int x = fromX; x <= toX; x++) {
+                    if (dx > 0 && maxX <= x + EPSILON && x - maxX < dx
+                            && blocks.isSolid(x, y, z)) {
+                        dx = Math.max(0, x - maxX);
+                        hit(x, y, z);
+                    } else if (dx < 0 && minX >= x + 1 - EPSILON && x + 1 - minX > dx
+                            && blocks.isSolid(x, y, z)) {
+                        dx = Math.min(0, x + 1 - minX);
+                        hit(x, y, z);
+                    }
+                }
+            }
+        }
+        return dx;
+    }
+
+    private double clipZ(double dz) {
+        if (dz == 0) {
+            return 0;
+        }
+        int fromX = NumberConversions.floor(minX);
+        int toX = NumberConversions.floor(maxX);
+        int fromY = NumberConversions.floor(minY);
+        int toY = NumberConversions.floor(maxY);
+        int fromZ = NumberConversions.floor(Math.min(minZ, minZ + dz));
+        int toZ = NumberConversions.floor(Math.max(maxZ, maxZ + dz));
+        for (int x = fromX; x <= toX; x++) {
+            if (x + 1 <= minX || x >= maxX) {
+                continue;
+            }
+            for (int y = fromY; y <= toY; y++) {
+                if (y + 1 <= minY || y >= maxY) {
+                    continue;
+                }
+                for (int z = fromZ; z <= toZ; z++) {
+                    if (dz > 0 && maxZ <= z + EPSILON && z - maxZ < dz
+                            && blocks.isSolid(x, y, z)) {
+                        dz = Math.max(0, z - maxZ);
+                        hit(x, y, z);
+                    } else if (dz < 0 && minZ >= z + 1 - EPSILON && z + 1 - minZ > dz
+                            && blocks.isSolid(x, y, z)) {
+                        dz = Math.min(0, z + 1 - minZ);
+                        hit(x, y, z);
+                    }
+                }
+            }
+        }
+        return dz;
+    }
+
+    private void hit(int x, int y, int z) {
+        blockX = x;
+        blockY = y;
+        blockZ = z;
+    }
+}
@@ -28,6 +28,15 @@ public class EntityBoundingBox extends BoundingBox {
         this.depth = depth;
     }
 
+    /**
+     * Returns the size on the Y axis, without allocating a vector like {@link #getSize()}.
+     *
+     * @return the height of this box
+     */
+    public double getVertSize() {
+        return vertSize;
+    }
+
     @Override
     public Vector getSize() {
         return new Vector(width, vertSize, depth);
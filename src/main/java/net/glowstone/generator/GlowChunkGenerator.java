@@ -7,6 +7,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -25,7 +27,8 @@ public abstract class GlowChunkGenerator extends ChunkGenerator {
     protected static final int WORLD_DEPTH = 128;
 
     private static final Set<Material> noSpawnFloors = EnumSet.of(Material.FIRE, Material.CACTUS);
-    private final Map<String, Map<String, OctaveGenerator>> octaveCache = new HashMap<>();
+    private final ConcurrentMap<String, Map<String, OctaveGenerator>> octaveCache =
+            new ConcurrentHashMap<>();
     private final List<BlockPopulator> populators;
 
     protected GlowChunkGenerator(BlockPopulator... args) {
@@ -49,13 +52,22 @@ public abstract class GlowChunkGenerator extends ChunkGenerator {
      * @return A map of {@link OctaveGenerator}s created by {@link #createWorldOctaves(World, Map)}
      */
     protected final Map<String, OctaveGenerator> getWorldOctaves(World world) {
-        if (octaveCache.get(world.getName()) == null) {
+        return octaveCache.computeIfAbsent(world.getName(), name -> {
             Map<String, OctaveGenerator> octaves = new HashMap<>();
             createWorldOctaves(world, octaves);
-            octaveCache.put(world.getName(), octaves);
             return octaves;
-        }
-        return octaveCache.get(world.getName());
+        });
+    }
+
+    /**
+     * Checks whether {@link #generateChunkData} may be called for several chunks at once from
+     * different threads. The chunk data must not depend on the order chunks are generated in,
+     * so that it is the same as when the chunks are generated one at a time.
+     *
+     * @return true if chunks can be generated in parallel
+     */
+    public boolean isParallelCapable() {
+        return true;
     }
 
     @Override
@@ -24,8 +24,6 @@ public class NetherGenerator extends GlowChunkGenerator {
     private static double detailNoiseScaleZ;  // mainNoiseScaleZ
     private static double surfaceScale;
 
-    private final double[][][] density = new double[5][5][17];
-
     /**
      * Creates a chunk generator for the Nether.
      */
@@ -134,7 +132,7 @@ public class NetherGenerator extends GlowChunkGenerator {
     }
 
     private ChunkData generateRawTerrain(World world, int chunkX, int chunkZ) {
-        generateTerrainDensity(world, chunkX << 2, chunkZ << 2);
+        double[][][] density = generateTerrainDensity(world, chunkX << 2, chunkZ << 2);
 
         ChunkData chunkData = createChunkData(world);
 
@@ -186,7 +184,9 @@ public class NetherGenerator extends GlowChunkGenerator {
         return chunkData;
     }
 
-    private void generateTerrainDensity(World world, int x, int z) {
+    private double[][][] generateTerrainDensity(World world, int x, int z) {
+        double[][][] density = new double[5][5][17];
+
         Map<String, OctaveGenerator> octaves = getWorldOctaves(world);
         double[] heightNoise = ((PerlinOctaveGenerator) octaves.get("height"))
                 .getFractalBrownianMotion(x, z, 0.5D, 2.0D);
@@ -243,6 +243,7 @@ public class NetherGenerator extends GlowChunkGenerator {
                 }
             }
         }
+        return density;
     }
 
     /**
@@ -232,7 +232,6 @@ public class OverworldGenerator extends GlowChunkGenerator {
         }
     }
 
-    private final double[][][] density = new double[5][5][33];
     private final GroundGenerator groundGen = new GroundGenerator();
     private final BiomeHeight defaultHeight = BiomeHeight.DEFAULT;
 
@@ -349,6 +348,12 @@ public class OverworldGenerator extends GlowChunkGenerator {
         return chunkData;
     }
 
+    @Override
+    public boolean isParallelCapable() {
+        // the OpenCL kernel is shared by all chunks
+        return !((GlowServer) ServerProvider.getServer()).doesUseGraphicsCompute();
+    }
+
     @Override
     protected void createWorldOctaves(World world, Map<String, OctaveGenerator> octaves) {
         Random seed = new Random(world.getSeed());
@@ -382,7 +387,7 @@ public class OverworldGenerator extends GlowChunkGenerator {
     }
 
     private ChunkData generateRawTerrain(World world, int chunkX, int chunkZ) {
-        generateTerrainDensity(world, chunkX, chunkZ);
+        double[][][] density = generateTerrainDensity(world, chunkX, chunkZ);
 
         int seaLevel = world.getSeaLevel();
 
@@ -478,7 +483,8 @@ public class OverworldGenerator extends GlowChunkGenerator {
         return chunkData;
     }
 
-    private void generateTerrainDensity(World world, int x, int z) {
+    private double[][][] generateTerrainDensity(World world, int x, int z) {
+        double[][][] density = new double[5][5][33];
 
         WorldType type = world.getWorldType();
 
@@ -599,6 +605,7 @@ public class OverworldGenerator extends GlowChunkGenerator {
                 }
             }
         }
+        return density;
     }
 
     @RequiredArgsConstructor
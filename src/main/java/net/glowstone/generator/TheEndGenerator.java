@@ -20,8 +20,6 @@ public class TheEndGenerator extends GlowChunkGenerator {
     private static double detailNoiseScaleY; // mainNoiseScaleY
     private static double detailNoiseScaleZ;  // mainNoiseScaleZ
 
-    private final double[][][] density = new double[3][3][33];
-
     /**
      * Creates a chunk generator for the End.
      */
@@ -73,7 +71,7 @@ public class TheEndGenerator extends GlowChunkGenerator {
     }
 
     private ChunkData generateRawTerrain(World world, int chunkX, int chunkZ) {
-        generateTerrainDensity(world, chunkX << 1, chunkZ << 1);
+        double[][][] density = generateTerrainDensity(world, chunkX << 1, chunkZ << 1);
 
         ChunkData chunkData = createChunkData(world);
 
@@ -122,7 +120,9 @@ public class TheEndGenerator extends GlowChunkGenerator {
         return chunkData;
     }
 
-    private void generateTerrainDensity(World world, int x, int z) {
+    private double[][][] generateTerrainDensity(World world, int x, int z) {
+        double[][][] density = new double[3][3][33];
+
         Map<String, OctaveGenerator> octaves = getWorldOctaves(world);
         double[] roughnessNoise = ((PerlinOctaveGenerator) octaves.get("roughness"))
                 .getFractalBrownianMotion(x, 0, z, 0.5D, 2.0D);
@@ -159,5 +159,6 @@ public class TheEndGenerator extends GlowChunkGenerator {
                 }
             }
         }
+        return density;
     }
 }
@@ -64,7 +64,7 @@ public class BiomeEdgeMapLayer extends MapLayer {
         int gridSizeZ = sizeZ + 2;
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 // This applies biome large edges using Von Neumann neighborhood
@@ -98,6 +98,7 @@ public class BiomeEdgeMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = val;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
@@ -51,7 +51,7 @@ public class BiomeMapLayer extends MapLayer {
     public int[] generateValues(int x, int z, int sizeX, int sizeZ) {
         int[] values = belowLayer.generateValues(x, z, sizeX, sizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 int val = values[j + i * sizeX];
@@ -87,6 +87,7 @@ public class BiomeMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = val;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
@@ -107,7 +107,7 @@ public class BiomeVariationMapLayer extends MapLayer {
     public int[] generateRandomValues(int x, int z, int sizeX, int sizeZ) {
         int[] values = belowLayer.generateValues(x, z, sizeX, sizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 int val = values[j + i * sizeX];
@@ -118,6 +118,7 @@ public class BiomeVariationMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = val;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 
@@ -139,7 +140,7 @@ public class BiomeVariationMapLayer extends MapLayer {
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
         int[] variationValues = variationLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 setCoordsSeed(x + j, z + i);
@@ -184,6 +185,8 @@ public class BiomeVariationMapLayer extends MapLayer {
                 }
             }
         }
+        releaseArray(values);
+        releaseArray(variationValues);
         return finalValues;
     }
 }
@@ -0,0 +1,79 @@
+package net.glowstone.generator.biomegrid;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used values of another layer, in aligned square tiles, so that the
+ * overlapping areas asked for by neighboring chunks are only generated once.
+ *
+ * <p>Each value of a layer only depends on its coordinates, so a request is answered by copying
+ * from the tiles it overlaps, with the same result as asking the layer directly. Safe to use from
+ * several generation threads at once; a tile may occasionally be generated twice, but never
+ * inconsistently.
+ */
+public class CachingMapLayer extends MapLayer {
+
+    private static final int TILE_SHIFT = 5;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    private final MapLayer belowLayer;
+    private final Map<Long, int[]> tiles;
+
+    /**
+     * Creates a cache in front of a layer.
+     *
+     * @param belowLayer the layer to cache the values of
+     * @param maxTiles the number of tiles to keep, each holding 32x32 values
+     */
+    public CachingMapLayer(MapLayer belowLayer, int maxTiles) {
+        super(0);
+        this.belowLayer = belowLayer;
+        tiles = new LinkedHashMap<Long, int[]>(maxTiles * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > maxTiles;
+            }
+        };
+    }
+
+    @Override
+    public int[] generateValues(int x, int z, int sizeX, int sizeZ) {
+        int[] finalValues = newArray(sizeX * sizeZ);
+        int maxX = x + sizeX - 1;
+        int maxZ = z + sizeZ - 1;
+        for (int tileZ = z >> TILE_SHIFT; tileZ <= maxZ >> TILE_SHIFT; tileZ++) {
+            int tileMinZ = tileZ << TILE_SHIFT;
+            int fromZ = Math.max(z, tileMinZ);
+            int toZ = Math.min(maxZ, tileMinZ + TILE_SIZE - 1);
+            for (int tileX = x >> TILE_SHIFT; tileX <= maxX >> TILE_SHIFT; tileX++) {
+                int tileMinX = tileX << TILE_SHIFT;
+                int fromX = Math.max(x, tileMinX);
+                int length = Math.min(maxX, tileMinX + TILE_SIZE - 1) - fromX + 1;
+                int[] tile = getTile(tileX, tileZ);
+                for (int i = fromZ; i <= toZ; i++) {
+                    System.arraycopy(tile, fromX - tileMinX + (i - tileMinZ) * TILE_SIZE,
+                            finalValues, fromX - x + (i - z) * sizeX, length);
+                }
+            }
+        }
+        return finalValues;
+    }
+
+    private int[] getTile(int tileX, int tileZ) {
+        Long key = (long) tileX << 32 | tileZ & 0xFFFFFFFFL;
+        int[] tile;
+        synchronized (tiles) {
+            tile = tiles.get(key);
+        }
+        if (tile == null) {
+            // generate outside of the lock, so other threads can use the cached tiles meanwhile
+            tile = belowLayer.generateValues(tileX << TILE_SHIFT, tileZ << TILE_SHIFT, TILE_SIZE,
+                    TILE_SIZE);
+            synchronized (tiles) {
+                tiles.put(key, tile);
+            }
+        }
+        return tile;
+    }
+}
@@ -14,7 +14,7 @@ public class ConstantBiomeMapLayer extends MapLayer {
 
     @Override
     public int[] generateValues(int x, int z, int sizeX, int sizeZ) {
-        int[] values = new int[sizeX * sizeZ];
+        int[] values = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 values[j + i * sizeX] = GlowBiome.getId(biome);
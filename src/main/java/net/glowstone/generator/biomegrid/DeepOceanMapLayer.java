@@ -22,7 +22,7 @@ public class DeepOceanMapLayer extends MapLayer {
         int gridSizeZ = sizeZ + 2;
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 // This applies deep oceans using Von Neumann neighborhood
@@ -51,6 +51,7 @@ public class DeepOceanMapLayer extends MapLayer {
                 }
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
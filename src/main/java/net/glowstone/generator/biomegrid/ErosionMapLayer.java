@@ -17,7 +17,7 @@ public class ErosionMapLayer extends MapLayer {
         int gridSizeZ = sizeZ + 2;
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 // This applies erosion using Rotated Von Neumann neighborhood
@@ -52,6 +52,7 @@ public class ErosionMapLayer extends MapLayer {
                 }
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
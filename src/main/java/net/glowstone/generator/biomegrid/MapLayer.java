@@ -1,5 +1,9 @@
 package net.glowstone.generator.biomegrid;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 import net.glowstone.generator.biomegrid.WhittakerMapLayer.ClimateType;
 import net.glowstone.generator.biomegrid.ZoomMapLayer.ZoomType;
@@ -9,7 +13,22 @@ import org.bukkit.block.Biome;
 
 public abstract class MapLayer {
 
-    private final Random random = new Random();
+    private static final int MAX_POOLED_ARRAYS = 8;
+
+    /**
+     * The value arrays released by the layers on each thread, by length. A layer's input is
+     * thrown away as soon as its output is computed, so a handful of arrays of each size is
+     * enough to serve a whole chain of layers.
+     */
+    private static final ThreadLocal<Map<Integer, ArrayDeque<int[]>>> ARRAY_POOL =
+            ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * The PRNG, one per thread so that several chunks' biomes can be generated at once. It is
+     * always reseeded by {@link #setCoordsSeed(int, int)} before use, so the values do not depend
+     * on which thread asks for them.
+     */
+    private final ThreadLocal<Random> random = ThreadLocal.withInitial(Random::new);
     private long seed;
 
     public MapLayer(long seed) {
@@ -79,23 +98,56 @@ public abstract class MapLayer {
         layerRiver = new RiverMapLayer(seed + 10, layerRiver);
         layer = new RiverMapLayer(seed + 1000, layerRiver, layer);
 
-        MapLayer layerLowerRes = layer;
+        // neighboring chunks ask for overlapping areas, so both outputs keep their recent results
+        MapLayer layerLowerRes = new CachingMapLayer(layer, 256);
+        layer = layerLowerRes;
         for (int i = 0; i < 2; i++) {
             layer = new ZoomMapLayer(seed + 2000 + i, layer);
         }
 
         layer = new SmoothMapLayer(seed + 1001, layer);
 
-        return new MapLayer[]{layer, layerLowerRes};
+        return new MapLayer[]{new CachingMapLayer(layer, 1024), layerLowerRes};
+    }
+
+    /**
+     * Returns a zero-filled array, reusing one released on this thread if there is one.
+     *
+     * @param size the length of the array
+     * @return an array of the given length
+     */
+    protected static int[] newArray(int size) {
+        ArrayDeque<int[]> arrays = ARRAY_POOL.get().get(size);
+        int[] array = arrays == null ? null : arrays.pollFirst();
+        if (array == null) {
+            return new int[size];
+        }
+        Arrays.fill(array, 0);
+        return array;
+    }
+
+    /**
+     * Hands an array back to be reused by {@link #newArray(int)}. The caller must not use the
+     * array afterwards.
+     *
+     * @param array an array that is no longer needed
+     */
+    protected static void releaseArray(int[] array) {
+        ArrayDeque<int[]> arrays = ARRAY_POOL.get()
+                .computeIfAbsent(array.length, length -> new ArrayDeque<>());
+        if (arrays.size() < MAX_POOLED_ARRAYS) {
+            arrays.addFirst(array);
+        }
     }
 
     public void setCoordsSeed(int x, int z) {
+        Random random = this.random.get();
         random.setSeed(seed);
         random.setSeed(x * random.nextLong() + z * random.nextLong() ^ seed);
     }
 
     public int nextInt(int max) {
-        return random.nextInt(max);
+        return random.get().nextInt(max);
     }
 
     public abstract int[] generateValues(int x, int z, int sizeX, int sizeZ);
@@ -31,7 +31,7 @@ public class RarePlainsMapLayer extends MapLayer {
 
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 setCoordsSeed(x + j, z + i);
@@ -42,6 +42,7 @@ public class RarePlainsMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = centerValue;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
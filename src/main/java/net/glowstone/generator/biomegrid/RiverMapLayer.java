@@ -67,7 +67,7 @@ public class RiverMapLayer extends MapLayer {
         int gridSizeZ = sizeZ + 2;
 
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 // This applies rivers using Von Neumann neighborhood
@@ -84,6 +84,7 @@ public class RiverMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = val;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 
@@ -91,7 +92,7 @@ public class RiverMapLayer extends MapLayer {
         int[] values = belowLayer.generateValues(x, z, sizeX, sizeZ);
         int[] mergeValues = mergeLayer.generateValues(x, z, sizeX, sizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeX * sizeZ; i++) {
             int val = mergeValues[i];
             if (OCEANS.contains(mergeValues[i])) {
@@ -106,6 +107,8 @@ public class RiverMapLayer extends MapLayer {
             finalValues[i] = val;
         }
 
+        releaseArray(values);
+        releaseArray(mergeValues);
         return finalValues;
     }
 }
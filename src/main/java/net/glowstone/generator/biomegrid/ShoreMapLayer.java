@@ -78,7 +78,7 @@ public class ShoreMapLayer extends MapLayer {
         int gridSizeZ = sizeZ + 2;
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 // This applies shores using Von Neumann neighborhood
@@ -106,6 +106,7 @@ public class ShoreMapLayer extends MapLayer {
                 }
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
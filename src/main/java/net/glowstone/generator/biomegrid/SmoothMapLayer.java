@@ -17,7 +17,7 @@ public class SmoothMapLayer extends MapLayer {
         int gridSizeZ = sizeZ + 2;
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 // This applies smoothing using Von Neumann neighborhood
@@ -43,6 +43,7 @@ public class SmoothMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = centerVal;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 }
@@ -45,7 +45,7 @@ public class WhittakerMapLayer extends MapLayer {
         int[] values = belowLayer.generateValues(gridX, gridZ, gridSizeX, gridSizeZ);
 
         Climate climate = MAP.get(type);
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 int centerVal = values[j + 1 + (i + 1) * gridSizeX];
@@ -65,12 +65,13 @@ public class WhittakerMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = centerVal;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 
     private int[] modifyValues(int x, int z, int sizeX, int sizeZ) {
         int[] values = belowLayer.generateValues(x, z, sizeX, sizeZ);
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 int val = values[j + i * sizeX];
@@ -83,6 +84,7 @@ public class WhittakerMapLayer extends MapLayer {
                 finalValues[j + i * sizeX] = val;
             }
         }
+        releaseArray(values);
         return finalValues;
     }
 
@@ -32,7 +32,7 @@ public class ZoomMapLayer extends MapLayer {
 
         int zoomSizeX = gridSizeX - 1 << 1;
         int zoomSizeZ = gridSizeZ - 1 << 1;
-        int[] tmpValues = new int[zoomSizeX * zoomSizeZ];
+        int[] tmpValues = newArray(zoomSizeX * zoomSizeZ);
         for (int i = 0; i < gridSizeZ - 1; i++) {
             int n = i * 2 * zoomSizeX;
             int upperLeftVal = values[i * gridSizeX];
@@ -51,13 +51,15 @@ public class ZoomMapLayer extends MapLayer {
                 n += 2;
             }
         }
-        int[] finalValues = new int[sizeX * sizeZ];
+        int[] finalValues = newArray(sizeX * sizeZ);
         for (int i = 0; i < sizeZ; i++) {
             for (int j = 0; j < sizeX; j++) {
                 finalValues[j + i * sizeX] = tmpValues[j + (i + (z & 1)) * zoomSizeX + (x & 1)];
             }
         }
 
+        releaseArray(values);
+        releaseArray(tmpValues);
         return finalValues;
     }
 
@@ -86,8 +88,16 @@ public class ZoomMapLayer extends MapLayer {
                 return lowerLeftVal;
             }
         }
-        int[] values = new int[]{upperLeftVal, upperRightVal, lowerLeftVal, lowerRightVal};
-        return values[nextInt(values.length)];
+        switch (nextInt(4)) {
+            case 0:
+                return upperLeftVal;
+            case 1:
+                return upperRightVal;
+            case 2:
+                return lowerLeftVal;
+            default:
+                return lowerRightVal;
+        }
     }
 
     public enum ZoomType {
@@ -1,26 +1,22 @@
 package net.glowstone.generator.ground;
 
-import java.util.Random;
-import org.bukkit.World;
-import org.bukkit.block.Biome;
-import org.bukkit.generator.ChunkGenerator.ChunkData;
+import org.bukkit.material.MaterialData;
 
 public class DirtAndStonePatchGroundGenerator extends GroundGenerator {
 
     @Override
-    public void generateTerrainColumn(ChunkData chunkData, World world, Random random, int x, int z,
-        Biome biome, double surfaceNoise) {
+    protected MaterialData getTopMaterial(double surfaceNoise) {
         if (surfaceNoise > 1.75D) {
-            setTopMaterial(STONE);
-            setGroundMaterial(STONE);
+            return STONE;
         } else if (surfaceNoise > -0.5D) {
-            setTopMaterial(COARSE_DIRT);
-            setGroundMaterial(DIRT);
+            return COARSE_DIRT;
         } else {
-            setTopMaterial(GRASS);
-            setGroundMaterial(DIRT);
+            return GRASS;
         }
+    }
 
-        super.generateTerrainColumn(chunkData, world, random, x, z, biome, surfaceNoise);
+    @Override
+    protected MaterialData getGroundMaterial(double surfaceNoise) {
+        return surfaceNoise > 1.75D ? STONE : DIRT;
     }
 }
@@ -1,24 +1,17 @@
 package net.glowstone.generator.ground;
 
-import java.util.Random;
-import org.bukkit.World;
-import org.bukkit.block.Biome;
-import org.bukkit.generator.ChunkGenerator.ChunkData;
+import org.bukkit.material.MaterialData;
 
 public class DirtPatchGroundGenerator extends GroundGenerator {
 
     @Override
-    public void generateTerrainColumn(ChunkData chunkData, World world, Random random, int x, int z,
-        Biome biome, double surfaceNoise) {
+    protected MaterialData getTopMaterial(double surfaceNoise) {
         if (surfaceNoise > 1.75D) {
-            setTopMaterial(COARSE_DIRT);
+            return COARSE_DIRT;
         } else if (surfaceNoise > -0.95D) {
-            setTopMaterial(PODZOL);
+            return PODZOL;
         } else {
-            setTopMaterial(GRASS);
+            return GRASS;
         }
-        setGroundMaterial(DIRT);
-
-        super.generateTerrainColumn(chunkData, world, random, x, z, biome, surfaceNoise);
     }
 }
@@ -46,8 +46,10 @@ public class GroundGenerator {
 
         int seaLevel = world.getSeaLevel();
 
-        MaterialData topMat = topMaterial;
-        MaterialData groundMat = groundMaterial;
+        MaterialData top = getTopMaterial(surfaceNoise);
+        MaterialData ground = getGroundMaterial(surfaceNoise);
+        MaterialData topMat = top;
+        MaterialData groundMat = ground;
 
         int chunkX = x;
         int chunkZ = z;
@@ -67,8 +69,8 @@ public class GroundGenerator {
                 } else if (mat == Material.STONE) {
                     if (deep == -1) {
                         if (y >= seaLevel - 5 && y <= seaLevel) {
-                            topMat = topMaterial;
-                            groundMat = groundMaterial;
+                            topMat = top;
+                            groundMat = ground;
                         }
 
                         deep = surfaceHeight;
@@ -98,6 +100,29 @@ public class GroundGenerator {
         }
     }
 
+    /**
+     * Returns the material of the topmost block of a column. The same instance is used for every
+     * column, possibly from several threads at once, so subclasses varying the material from
+     * column to column must do so here rather than through {@link #setTopMaterial}.
+     *
+     * @param surfaceNoise the amplitude of random variation in surface height
+     * @return the top material
+     */
+    protected MaterialData getTopMaterial(double surfaceNoise) {
+        return topMaterial;
+    }
+
+    /**
+     * Returns the material of the blocks below the top of a column.
+     *
+     * @param surfaceNoise the amplitude of random variation in surface height
+     * @return the ground material
+     * @see #getTopMaterial(double)
+     */
+    protected MaterialData getGroundMaterial(double surfaceNoise) {
+        return groundMaterial;
+    }
+
     protected final void setTopMaterial(MaterialData topMaterial) {
         this.topMaterial = topMaterial;
     }
@@ -16,13 +16,13 @@ public class MesaGroundGenerator extends GroundGenerator {
             Material.STAINED_CLAY, (byte) 1);
 
     private final MesaType type;
-    private final int[] colorLayer = new int[64];
     private MaterialData topMaterial;
     private MaterialData groundMaterial;
-    private SimplexOctaveGenerator colorNoise;
-    private SimplexOctaveGenerator canyonHeightNoise;
-    private SimplexOctaveGenerator canyonScaleNoise;
-    private long seed;
+    /**
+     * The noise and color layers for the last world seed, replaced as a whole so that columns
+     * generated on other threads always see a consistent set.
+     */
+    private volatile SeededLayers layers;
 
     public MesaGroundGenerator() {
         this(MesaType.NORMAL);
@@ -39,27 +39,22 @@ public class MesaGroundGenerator extends GroundGenerator {
         groundMaterial = ORANGE_STAINED_CLAY;
     }
 
-    private void initialize(long seed) {
-        if (seed != this.seed || colorNoise == null || canyonScaleNoise == null
-                || canyonHeightNoise == null) {
-            Random random = new Random(seed);
-            colorNoise = new SimplexOctaveGenerator(random, 1);
-            colorNoise.setScale(1 / 512.0D);
-            initializeColorLayers(random);
-
-            canyonHeightNoise = new SimplexOctaveGenerator(random, 4);
-            canyonHeightNoise.setScale(1 / 4.0D);
-            canyonScaleNoise = new SimplexOctaveGenerator(random, 1);
-            canyonScaleNoise.setScale(1 / 512.0D);
-            this.seed = seed;
+    private SeededLayers initialize(long seed) {
+        SeededLayers layers = this.layers;
+        if (layers == null || layers.seed != seed) {
+            layers = new SeededLayers(seed);
+            this.layers = layers;
         }
+        return layers;
     }
 
     @Override
     public void generateTerrainColumn(ChunkData chunkData, World world, Random random, int x, int z,
             Biome biome, double surfaceNoise) {
 
-        initialize(world.getSeed());
+        SeededLayers layers = initialize(world.getSeed());
+        int[] colorLayer = layers.colorLayer;
+        SimplexOctaveGenerator colorNoise = layers.colorNoise;
 
         int seaLevel = world.getSeaLevel();
 
@@ -75,9 +70,10 @@ public class MesaGroundGenerator extends GroundGenerator {
             int noiseZ = (z & 0xFFFFFFF0) + (x & 0xF);
             double noiseCanyonHeight = Math
                     .min(Math.abs(surfaceNoise),
-                            canyonHeightNoise.noise(noiseX, noiseZ, 0.5D, 2.0D));
+                            layers.canyonHeightNoise.noise(noiseX, noiseZ, 0.5D, 2.0D));
             if (noiseCanyonHeight > 0) {
-                double heightScale = Math.abs(canyonScaleNoise.noise(noiseX, noiseZ, 0.5D, 2.0D));
+                double heightScale = Math.abs(
+                        layers.canyonScaleNoise.noise(noiseX, noiseZ, 0.5D, 2.0D));
                 bryceCanyonHeight = Math.pow(noiseCanyonHeight, 2) * 2.5D;
                 double maxHeight = Math.ceil(50 * heightScale) + 14;
                 if (bryceCanyonHeight > maxHeight) {
@@ -157,8 +153,8 @@ public class MesaGroundGenerator extends GroundGenerator {
         }
     }
 
-    private void setRandomLayerColor(Random random, int minLayerCount, int minLayerHeight,
-            int color) {
+    private static void setRandomLayerColor(int[] colorLayer, Random random, int minLayerCount,
+            int minLayerHeight, int color) {
         for (int i = 0; i < random.nextInt(4) + minLayerCount; i++) {
             int j = random.nextInt(colorLayer.length);
             int k = 0;
@@ -169,7 +165,7 @@ public class MesaGroundGenerator extends GroundGenerator {
         }
     }
 
-    private void initializeColorLayers(Random random) {
+    private static void initializeColorLayers(int[] colorLayer, Random random) {
         Arrays.fill(colorLayer, -1); // hard clay, other values are stained clay
         int i = 0;
         while (i < colorLayer.length) {
@@ -178,9 +174,9 @@ public class MesaGroundGenerator extends GroundGenerator {
                 colorLayer[i++] = 1; // orange
             }
         }
-        setRandomLayerColor(random, 2, 1, 4); // yellow
-        setRandomLayerColor(random, 2, 2, 12); // brown
-        setRandomLayerColor(random, 2, 1, 14); // red
+        setRandomLayerColor(colorLayer, random, 2, 1, 4); // yellow
+        setRandomLayerColor(colorLayer, random, 2, 2, 12); // brown
+        setRandomLayerColor(colorLayer, random, 2, 1, 14); // red
         int j = 0;
         for (i = 0; i < random.nextInt(3) + 3; i++) {
             j += random.nextInt(16) + 4;
@@ -195,6 +191,28 @@ public class MesaGroundGenerator extends GroundGenerator {
         }
     }
 
+    private static final class SeededLayers {
+
+        private final long seed;
+        private final int[] colorLayer = new int[64];
+        private final SimplexOctaveGenerator colorNoise;
+        private final SimplexOctaveGenerator canyonHeightNoise;
+        private final SimplexOctaveGenerator canyonScaleNoise;
+
+        SeededLayers(long seed) {
+            this.seed = seed;
+            Random random = new Random(seed);
+            colorNoise = new SimplexOctaveGenerator(random, 1);
+            colorNoise.setScale(1 / 512.0D);
+            initializeColorLayers(colorLayer, random);
+
+            canyonHeightNoise = new SimplexOctaveGenerator(random, 4);
+            canyonHeightNoise.setScale(1 / 4.0D);
+            canyonScaleNoise = new SimplexOctaveGenerator(random, 1);
+            canyonScaleNoise.setScale(1 / 512.0D);
+        }
+    }
+
     public enum MesaType {
         NORMAL,
         BRYCE,
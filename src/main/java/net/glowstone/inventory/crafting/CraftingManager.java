@@ -36,6 +36,21 @@ public final class CraftingManager implements Iterable<Recipe> {
     private final ArrayList<FurnaceRecipe> furnaceRecipes = new ArrayList<>();
     private final Map<Material, Integer> furnaceFuels = new HashMap<>();
 
+    /**
+     * The shaped and shapeless recipes by the materials of their ingredients (see {@link
+     * #getSignature}), so that a crafting grid is only checked against the recipes which take
+     * exactly the materials in it.
+     */
+    private final Map<String, List<ShapedRecipe>> shapedBySignature = new HashMap<>();
+    private final Map<String, List<ShapelessRecipe>> shapelessBySignature = new HashMap<>();
+    private final Map<NamespacedKey, ShapedRecipe> shapedByKey = new HashMap<>();
+    private final Map<NamespacedKey, ShapelessRecipe> shapelessByKey = new HashMap<>();
+    /**
+     * Whether the indexes above match the recipe lists. They are rebuilt on the next lookup
+     * after the recipes change, so that adding many recipes only rebuilds them once.
+     */
+    private boolean indexed;
+
     /**
      * Get the amount of layers in the crafting matrix.
      *
@@ -76,6 +91,7 @@ public final class CraftingManager implements Iterable<Recipe> {
      * @return Whether adding the recipe was successful.
      */
     public boolean addRecipe(Recipe recipe) {
+        indexed = false;
         if (recipe instanceof ShapedRecipe) {
             return shapedRecipes.add((ShapedRecipe) recipe);
         }
@@ -175,7 +191,11 @@ public final class CraftingManager implements Iterable<Recipe> {
                     "ItemStack list was not square (was " + items.length + ")");
         }
 
-        ShapedRecipe result = getShapedRecipe(size, items);
+        ensureIndexed();
+        String signature = getSignature(items);
+        List<ShapedRecipe> shaped = shapedBySignature.get(signature);
+
+        ShapedRecipe result = shaped == null ? null : getShapedRecipe(shaped, size, items);
         if (result != null) {
             return result;
         }
@@ -189,8 +209,8 @@ public final class CraftingManager implements Iterable<Recipe> {
         }
 
         // this check saves the trouble of iterating through all the recipes again
-        if (!Arrays.equals(items, reversedItems)) {
-            result = getShapedRecipe(size, reversedItems);
+        if (shaped != null && !Arrays.equals(items, reversedItems)) {
+            result = getShapedRecipe(shaped, size, reversedItems);
             if (result != null) {
                 return result;
             }
@@ -202,11 +222,13 @@ public final class CraftingManager implements Iterable<Recipe> {
             }
         }
 
-        return getShapelessRecipe(items);
+        List<ShapelessRecipe> shapeless = shapelessBySignature.get(signature);
+        return shapeless == null ? null : getShapelessRecipe(shapeless, items);
     }
 
-    private ShapedRecipe getShapedRecipe(int size, ItemStack... items) {
-        for (ShapedRecipe recipe : shapedRecipes) {
+    private ShapedRecipe getShapedRecipe(List<ShapedRecipe> candidates, int size,
+            ItemStack... items) {
+        for (ShapedRecipe recipe : candidates) {
             Map<Character, ItemStack> ingredients = recipe.getIngredientMap();
             String[] shape = recipe.getShape();
 
@@ -273,9 +295,10 @@ public final class CraftingManager implements Iterable<Recipe> {
         return null;
     }
 
-    private ShapelessRecipe getShapelessRecipe(ItemStack... items) {
+    private ShapelessRecipe getShapelessRecipe(List<ShapelessRecipe> candidates,
+            ItemStack... items) {
         recipe:
-        for (ShapelessRecipe recipe : shapelessRecipes) {
+        for (ShapelessRecipe recipe : candidates) {
             boolean[] accountedFor = new boolean[items.length];
 
             // Mark empty item slots accounted for
@@ -311,10 +334,92 @@ public final class CraftingManager implements Iterable<Recipe> {
         return null;
     }
 
+    /**
+     * Returns the materials of the given items as a string of their ordinals, in order, so that
+     * items with the same materials in any order and position have the same signature. Empty
+     * slots are skipped.
+     *
+     * @param items the items, with null being empty slots
+     * @return the signature of the items
+     */
+    private static String getSignature(Iterable<ItemStack> items) {
+        StringBuilder signature = new StringBuilder();
+        for (ItemStack item : items) {
+            if (item != null) {
+                signature.append((char) item.getType().ordinal());
+            }
+        }
+        char[] ordinals = signature.toString().toCharArray();
+        Arrays.sort(ordinals);
+        return new String(ordinals);
+    }
+
+    private static String getSignature(ItemStack... items) {
+        return getSignature(Arrays.asList(items));
+    }
+
+    /**
+     * Returns the signature of the items a shaped recipe takes, reading its shape the same way
+     * as {@link #getShapedRecipe}.
+     */
+    private static String getSignature(ShapedRecipe recipe) {
+        Map<Character, ItemStack> ingredients = recipe.getIngredientMap();
+        String[] shape = recipe.getShape();
+        int cols = 0;
+        for (String row : shape) {
+            cols = Math.max(cols, row.length());
+        }
+        List<ItemStack> items = new ArrayList<>();
+        for (String row : shape) {
+            for (int col = 0; col < cols; col++) {
+                items.add(ingredients.get(row.length() > col ? row.charAt(col) : ' '));
+            }
+        }
+        return getSignature(items);
+    }
+
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        shapedBySignature.clear();
+        shapelessBySignature.clear();
+        shapedByKey.clear();
+        shapelessByKey.clear();
+        for (ShapedRecipe recipe : shapedRecipes) {
+            shapedBySignature.computeIfAbsent(getSignature(recipe), signature -> new ArrayList<>())
+                    .add(recipe);
+            shapedByKey.putIfAbsent(recipe.getKey(), recipe);
+        }
+        for (ShapelessRecipe recipe : shapelessRecipes) {
+            shapelessBySignature.computeIfAbsent(getSignature(recipe.getIngredientList()),
+                signature -> new ArrayList<>()).add(recipe);
+            shapelessByKey.putIfAbsent(recipe.getKey(), recipe);
+        }
+        indexed = true;
+    }
+
     @Override
     public Iterator<Recipe> iterator() {
-        return Iterators.concat(shapedRecipes.iterator(), shapelessRecipes.iterator(),
-                dynamicRecipes.iterator(), furnaceRecipes.iterator());
+        Iterator<Recipe> recipes = Iterators.concat(shapedRecipes.iterator(),
+                shapelessRecipes.iterator(), dynamicRecipes.iterator(), furnaceRecipes.iterator());
+        return new Iterator<Recipe>() {
+            @Override
+            public boolean hasNext() {
+                return recipes.hasNext();
+            }
+
+            @Override
+            public Recipe next() {
+                return recipes.next();
+            }
+
+            @Override
+            public void remove() {
+                recipes.remove();
+                indexed = false;
+            }
+        };
     }
 
     private boolean isWildcard(short data) {
@@ -360,24 +465,16 @@ public final class CraftingManager implements Iterable<Recipe> {
      * @return the recipe with the given key, or null if none match
      */
     public Recipe getRecipeByKey(NamespacedKey key) {
-        // FIXME: Linear time; use Map<NamespacedKey,?> instances instead
-        for (ShapedRecipe shapedRecipe : shapedRecipes) {
-            if (shapedRecipe.getKey().equals(key)) {
-                return shapedRecipe;
-            }
-        }
-        for (ShapelessRecipe shapelessRecipe : shapelessRecipes) {
-            if (shapelessRecipe.getKey().equals(key)) {
-                return shapelessRecipe;
-            }
-        }
-        return null;
+        ensureIndexed();
+        ShapedRecipe shapedRecipe = shapedByKey.get(key);
+        return shapedRecipe != null ? shapedRecipe : shapelessByKey.get(key);
     }
 
     /**
      * Clear all recipes.
      */
     public void clearRecipes() {
+        indexed = false;
         shapedRecipes.clear();
         shapelessRecipes.clear();
         dynamicRecipes.clear();
@@ -1,6 +1,7 @@
 package net.glowstone.io;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import net.glowstone.chunk.GlowChunk;
 
 /**
@@ -27,6 +28,47 @@ public interface ChunkIoService {
      */
     void write(GlowChunk chunk) throws IOException;
 
+    /**
+     * Reads and decodes a single chunk without blocking the calling thread on disk access.
+     * Initializing the chunk changes the world, so it is left to the returned
+     * {@link DecodedChunk}, which must be applied on the world thread.
+     *
+     * <p>The default implementation reads the whole chunk when it is applied.
+     *
+     * @param chunk The GlowChunk to read.
+     * @return a future completing with the decoded chunk, or exceptionally with an
+     *         {@link IOException} if an I/O error occurs.
+     */
+    default CompletableFuture<DecodedChunk> readAsync(GlowChunk chunk) {
+        return CompletableFuture.completedFuture(this::read);
+    }
+
+    /**
+     * Captures the state of a single chunk and writes it without blocking the calling thread on
+     * disk access. Once this method returns, the chunk may be unloaded or modified without
+     * affecting the data being written.
+     *
+     * <p>The default implementation writes the chunk on the calling thread.
+     *
+     * @param chunk The {@link GlowChunk} to write from.
+     * @return a future completing once the chunk is on disk, or exceptionally with an
+     *         {@link IOException} if writing it fails.
+     * @throws IOException if the chunk cannot be serialized.
+     */
+    default CompletableFuture<Void> writeAsync(GlowChunk chunk) throws IOException {
+        write(chunk);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Blocks until all writes started by {@link #writeAsync(GlowChunk)} have completed.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    default void flush() throws IOException {
+        // nothing by default
+    }
+
     /**
      * Unload the service, performing any cleanup necessary.
      *
@@ -34,4 +76,20 @@ public interface ChunkIoService {
      */
     void unload() throws IOException;
 
+    /**
+     * A chunk which has been read by {@link #readAsync(GlowChunk)}, but not yet applied.
+     */
+    @FunctionalInterface
+    interface DecodedChunk {
+
+        /**
+         * Initializes a chunk from the decoded data. Must be called on the world thread, and the
+         * chunk must not yet be initialized.
+         *
+         * @param chunk The GlowChunk to read into.
+         * @return if the read was successful, i.e. the chunk is stored.
+         * @throws IOException if the data can't be applied.
+         */
+        boolean applyTo(GlowChunk chunk) throws IOException;
+    }
 }
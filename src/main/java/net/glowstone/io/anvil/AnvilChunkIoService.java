@@ -5,8 +5,21 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import net.glowstone.GlowServer;
+import net.glowstone.ServerProvider;
+import net.glowstone.block.BlockTickScheduler;
+import net.glowstone.block.BlockTickScheduler.ScheduledTick;
 import net.glowstone.block.GlowBlock;
 import net.glowstone.block.ItemTable;
 import net.glowstone.block.blocktype.BlockType;
@@ -20,16 +33,19 @@ import net.glowstone.i18n.LocalizedStrings;
 import net.glowstone.io.ChunkIoService;
 import net.glowstone.io.entity.EntityStorage;
 import net.glowstone.io.entity.UnknownEntityTypeException;
+import net.glowstone.util.config.ServerConfig.Key;
 import net.glowstone.util.nbt.CompoundTag;
 import net.glowstone.util.nbt.NbtInputStream;
 import net.glowstone.util.nbt.NbtOutputStream;
-import org.bukkit.Chunk;
-import org.bukkit.Location;
 import org.bukkit.Material;
 
 /**
  * An implementation of the {@link ChunkIoService} which reads and writes Anvil maps, an improvement
  * on the McRegion file format.
+ *
+ * <p>Asynchronous reads and writes are queued onto a fixed number of I/O threads. All requests for
+ * the same region file go to the same thread, so each region is accessed by one I/O thread at a
+ * time while different regions are accessed in parallel.
  */
 public final class AnvilChunkIoService implements ChunkIoService {
 
@@ -43,29 +59,110 @@ public final class AnvilChunkIoService implements ChunkIoService {
      */
     private final RegionFileCache cache;
 
+    /**
+     * The number of threads performing asynchronous region file I/O.
+     */
+    private final int ioThreads;
+
+    /**
+     * The single-threaded executors performing region file I/O, indexed by region.
+     */
+    private final ExecutorService[] ioExecutors;
+
+    /**
+     * The writes which have been queued but not yet completed, by chunk. Reads are served from
+     * here so that they never see older data on the disk.
+     */
+    private final ConcurrentMap<Long, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+
     // todo: consider the session.lock file
 
+    /**
+     * Creates a new chunk I/O service for the given world folder.
+     *
+     * @param dir the world folder
+     */
     public AnvilChunkIoService(File dir) {
         cache = new RegionFileCache(dir, ".mca");
+        ioThreads = Math.max(1, ((GlowServer) ServerProvider.getServer()).getConfig()
+                .getInt(Key.REGION_IO_THREADS));
+        ioExecutors = new ExecutorService[ioThreads];
+        for (int i = 0; i < ioExecutors.length; i++) {
+            String name = "Glowstone-region-io-" + dir.getName() + "-" + i;
+            ioExecutors[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     @Override
     public boolean read(GlowChunk chunk) throws IOException {
+        CompoundTag levelTag = readLevelTag(chunk.getX(), chunk.getZ());
+        return levelTag != null && read(chunk, levelTag);
+    }
+
+    @Override
+    public CompletableFuture<DecodedChunk> readAsync(GlowChunk chunk) {
         int x = chunk.getX();
         int z = chunk.getZ();
-        RegionFile region = cache.getRegionFile(x, z);
-        int regionX = x & REGION_SIZE - 1;
-        int regionZ = z & REGION_SIZE - 1;
-        if (!region.hasChunk(regionX, regionZ)) {
-            return false;
+        CompletableFuture<DecodedChunk> future = new CompletableFuture<>();
+        try {
+            getExecutor(x, z).execute(() -> {
+                try {
+                    // only the file access and NBT decoding happen here; creating the sections,
+                    // entities and block entities is left to the world thread
+                    CompoundTag levelTag = readLevelTag(x, z);
+                    future.complete(target -> levelTag != null && read(target, levelTag));
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // the service has been unloaded
+            return ChunkIoService.super.readAsync(chunk);
         }
+        return future;
+    }
 
-        DataInputStream in = region.getChunkDataInputStream(regionX, regionZ);
+    /**
+     * Reads the level tag of a chunk from a pending write or from the region file.
+     *
+     * @return the level tag, or null if the chunk is not stored
+     */
+    private CompoundTag readLevelTag(int x, int z) throws IOException {
+        PendingWrite pending = pendingWrites.get(chunkKey(x, z));
+        if (pending != null) {
+            return pending.getTag().getCompound("Level");
+        }
 
-        CompoundTag levelTag;
-        try (NbtInputStream nbt = new NbtInputStream(in, false)) {
-            CompoundTag root = nbt.readCompound();
-            levelTag = root.getCompound("Level");
+        RegionFile region = cache.acquire(x, z);
+        try {
+            int regionX = x & REGION_SIZE - 1;
+            int regionZ = z & REGION_SIZE - 1;
+            if (!region.hasChunk(regionX, regionZ)) {
+                return null;
+            }
+
+            DataInputStream in = region.getChunkDataInputStream(regionX, regionZ);
+
+            try (NbtInputStream nbt = new NbtInputStream(in, false)) {
+                CompoundTag root = nbt.readCompound();
+                return root.getCompound("Level");
+            }
+        } finally {
+            cache.release(region);
+        }
+    }
+
+    /**
+     * Initializes a chunk from its level tag.
+     */
+    private boolean read(GlowChunk chunk, CompoundTag levelTag) {
+        if (chunk.isLoaded()) {
+            // loaded by someone else while the tag was being read
+            return true;
         }
 
         // read the vertical sections
@@ -154,13 +251,14 @@ public final class AnvilChunkIoService implements ChunkIoService {
             if (material != block.getType()) {
                 return;
             }
-            // TODO tick delay: tileTick.getInt("t");
-            // TODO ordering: tileTick.getInt("p");
             BlockType type = ItemTable.instance().getBlock(material);
             if (type == null) {
                 return;
             }
-            block.getWorld().requestPulse(block);
+            int delay = tileTick.tryGetInt("t").orElse(0);
+            int priority = tileTick.tryGetInt("p").orElse(0);
+            block.getWorld().getBlockTicks().schedule(block.getX(), block.getY(), block.getZ(),
+                delay, priority);
         });
 
         return true;
@@ -168,12 +266,95 @@ public final class AnvilChunkIoService implements ChunkIoService {
 
     @Override
     public void write(GlowChunk chunk) throws IOException {
+        CompletableFuture<Void> future = writeAsync(chunk);
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(GlowChunk chunk) throws IOException {
         int x = chunk.getX();
         int z = chunk.getZ();
-        RegionFile region = cache.getRegionFile(x, z);
-        int regionX = x & REGION_SIZE - 1;
-        int regionZ = z & REGION_SIZE - 1;
+        // the snapshot shares the chunk's sections until they are next changed, so only the
+        // entities, block entities and block ticks are serialized here; the sections are
+        // serialized on the I/O thread
+        GlowChunkSnapshot snapshot = chunk.getChunkSnapshot(true, true, false);
+        CompoundTag tag = createTag(chunk, snapshot);
+        ChunkSection[] sections = snapshot.getRawSections();
+        long key = chunkKey(x, z);
+
+        AtomicReference<CompletableFuture<Void>> result = new AtomicReference<>();
+        try {
+            pendingWrites.compute(key, (k, existing) -> {
+                // checking first avoids waiting while a started write serializes its sections
+                if (existing != null && !existing.started) {
+                    synchronized (existing) {
+                        if (!existing.started) {
+                            // coalesce with the write that is still queued
+                            existing.tag = tag;
+                            existing.sections = sections;
+                            result.set(existing.future);
+                            return existing;
+                        }
+                    }
+                }
+                PendingWrite write = new PendingWrite(tag, sections);
+                result.set(write.future);
+                getExecutor(x, z).execute(() -> performWrite(key, x, z, write));
+                return write;
+            });
+        } catch (RejectedExecutionException ex) {
+            // the service has been unloaded
+            writeTag(x, z, new PendingWrite(tag, sections).getTag());
+            return CompletableFuture.completedFuture(null);
+        }
+        return result.get();
+    }
 
+    private void performWrite(long key, int x, int z, PendingWrite write) {
+        try {
+            synchronized (write) {
+                write.started = true;
+            }
+            writeTag(x, z, write.getTag());
+            write.future.complete(null);
+        } catch (Throwable ex) {
+            GlowServer.logger.log(Level.SEVERE,
+                    "Error while saving chunk (" + x + "," + z + ")", ex);
+            write.future.completeExceptionally(ex);
+        } finally {
+            pendingWrites.remove(key, write);
+        }
+    }
+
+    private void writeTag(int x, int z, CompoundTag tag) throws IOException {
+        RegionFile region = cache.acquire(x, z);
+        try {
+            int regionX = x & REGION_SIZE - 1;
+            int regionZ = z & REGION_SIZE - 1;
+
+            try (NbtOutputStream nbt = new NbtOutputStream(
+                region.getChunkDataOutputStream(regionX, regionZ), false)) {
+                nbt.writeTag(tag);
+            }
+        } finally {
+            cache.release(region);
+        }
+    }
+
+    /**
+     * Serializes a chunk into the root tag stored in the region file, except for its sections.
+     * This reads the live chunk, so it must run on the thread which changes the chunk.
+     */
+    private CompoundTag createTag(GlowChunk chunk, GlowChunkSnapshot snapshot) {
         CompoundTag levelTags = new CompoundTag();
 
         // core properties
@@ -182,24 +363,6 @@ public final class AnvilChunkIoService implements ChunkIoService {
         levelTags.putBool("TerrainPopulated", chunk.isPopulated());
         levelTags.putLong("LastUpdate", 0);
 
-        // chunk sections
-        List<CompoundTag> sectionTags = new ArrayList<>();
-        GlowChunkSnapshot snapshot = chunk.getChunkSnapshot(true, true, false);
-        ChunkSection[] sections = snapshot.getRawSections();
-        for (byte i = 0; i < sections.length; ++i) {
-            ChunkSection sec = sections[i];
-            if (sec == null) {
-                continue;
-            }
-
-            CompoundTag sectionTag = new CompoundTag();
-            sectionTag.putByte("Y", i);
-            sec.optimize();
-            sec.writeToNbt(sectionTag);
-            sectionTags.add(sectionTag);
-        }
-        levelTags.putCompoundList("Sections", sectionTags);
-
         // height map and biomes
         levelTags.putIntArray("HeightMap", snapshot.getRawHeightmap());
         levelTags.putByteArray("Biomes", snapshot.getRawBiomes());
@@ -242,35 +405,108 @@ public final class AnvilChunkIoService implements ChunkIoService {
         levelTags.putCompoundList("TileEntities", blockEntities);
 
         List<CompoundTag> tileTicks = new ArrayList<>();
-        for (Location location : chunk.getWorld().getTickMap()) {
-            Chunk locationChunk = location.getChunk();
-            if (locationChunk.getX() == chunk.getX() && locationChunk.getZ() == chunk.getZ()) {
-                int tileX = location.getBlockX();
-                int tileY = location.getBlockY();
-                int tileZ = location.getBlockZ();
-                String type = ItemIds.getName(location.getBlock().getType());
-                CompoundTag tag = new CompoundTag();
-                tag.putInt("x", tileX);
-                tag.putInt("y", tileY);
-                tag.putInt("z", tileZ);
-                tag.putString("i", type);
-                tileTicks.add(tag);
-            }
+        BlockTickScheduler blockTicks = chunk.getWorld().getBlockTicks();
+        for (ScheduledTick tick : blockTicks.getScheduledTicks(chunk.getX(), chunk.getZ())) {
+            int tileX = tick.getX();
+            int tileY = tick.getY();
+            int tileZ = tick.getZ();
+            String type = ItemIds.getName(chunk.getBlock(tileX, tileY, tileZ).getType());
+            CompoundTag tag = new CompoundTag();
+            tag.putInt("x", tileX);
+            tag.putInt("y", tileY);
+            tag.putInt("z", tileZ);
+            tag.putString("i", type);
+            tag.putInt("t", blockTicks.getDelay(tick));
+            tag.putInt("p", tick.getPriority());
+            tileTicks.add(tag);
         }
         levelTags.putCompoundList("TileTicks", tileTicks);
 
         CompoundTag levelOut = new CompoundTag();
         levelOut.putCompound("Level", levelTags);
+        return levelOut;
+    }
 
-        try (NbtOutputStream nbt = new NbtOutputStream(
-            region.getChunkDataOutputStream(regionX, regionZ), false)) {
-            nbt.writeTag(levelOut);
+    @Override
+    public void flush() throws IOException {
+        for (PendingWrite write : pendingWrites.values()) {
+            try {
+                write.future.join();
+            } catch (CompletionException ex) {
+                // already logged by performWrite
+            }
         }
     }
 
     @Override
     public void unload() throws IOException {
+        for (ExecutorService executor : ioExecutors) {
+            executor.shutdown();
+        }
+        try {
+            for (ExecutorService executor : ioExecutors) {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         cache.clear();
     }
 
+    private ExecutorService getExecutor(int x, int z) {
+        int region = (x >> 5) * 31 + (z >> 5);
+        return ioExecutors[Math.floorMod(region, ioThreads)];
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xffffffffL);
+    }
+
+    /**
+     * Serializes the sections of a chunk into its root tag.
+     */
+    private static void putSections(CompoundTag root, ChunkSection[] sections) {
+        List<CompoundTag> sectionTags = new ArrayList<>();
+        for (byte i = 0; i < sections.length; ++i) {
+            ChunkSection sec = sections[i];
+            if (sec == null) {
+                continue;
+            }
+
+            CompoundTag sectionTag = new CompoundTag();
+            sectionTag.putByte("Y", i);
+            sec.writeToNbt(sectionTag);
+            sectionTags.add(sectionTag);
+        }
+        root.getCompound("Level").putCompoundList("Sections", sectionTags);
+    }
+
+    /**
+     * A chunk write which has been queued on an I/O thread. Until the write starts, later writes
+     * of the same chunk replace its tag and sections instead of queueing another write.
+     *
+     * <p>The sections are snapshots, and are only serialized into the tag when it is first
+     * needed, by the write itself or by a read of the same chunk.
+     */
+    private static final class PendingWrite {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private CompoundTag tag;
+        private ChunkSection[] sections;
+        private volatile boolean started;
+
+        private PendingWrite(CompoundTag tag, ChunkSection[] sections) {
+            this.tag = tag;
+            this.sections = sections;
+        }
+
+        private synchronized CompoundTag getTag() {
+            if (sections != null) {
+                putSections(tag, sections);
+                sections = null;
+            }
+            return tag;
+        }
+    }
+
 }
@@ -37,8 +37,13 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
@@ -51,7 +56,9 @@ import net.glowstone.ServerProvider;
 import net.glowstone.util.config.ServerConfig.Key;
 
 /**
- * Interfaces with region files on the disk
+ * Interfaces with region files on the disk. Region files are used by the chunk I/O threads as
+ * well as the world threads: chunks are read with positional reads under a shared lock, so
+ * concurrent readers of the same region do not contend, while writes are exclusive.
  *
  * <p><strong>Region File Format</strong>
  *
@@ -97,12 +104,31 @@ public class RegionFile {
     private static final int CHUNK_HEADER_SIZE = 5;
 
     private static final byte[] emptySector = new byte[SECTOR_BYTES];
+
+    /**
+     * The maximum number of idle inflaters kept for reuse.
+     */
+    private static final int MAX_POOLED_INFLATERS = 32;
+    private static final Queue<Inflater> inflaterPool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger inflaterPoolSize = new AtomicInteger();
+
+    /**
+     * Guards the offset tables and file contents. Readers share the lock and read through
+     * {@link #channel} without moving the file pointer; writers hold it exclusively.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private final int[] offsets;
     private final int[] chunkTimestamps;
     private RandomAccessFile file;
+    private FileChannel channel;
     private BitSet sectorsUsed;
     private int totalSectors;
     private final AtomicInteger sizeDelta = new AtomicInteger();
+    /**
+     * The path of the region file.
+     */
+    @Getter
+    private final File path;
     /**
      * Returns the modification timestamp of the region file when it was first opened by this
      * instance, or zero if this instance created the file. The timestamp is in milliseconds since
@@ -122,6 +148,7 @@ public class RegionFile {
     public RegionFile(File path) throws IOException {
         offsets = new int[SECTOR_INTS];
         chunkTimestamps = new int[SECTOR_INTS];
+        this.path = path;
 
         sizeDelta.set(0);
 
@@ -130,6 +157,7 @@ public class RegionFile {
         }
 
         file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
 
         int initialLength = (int) file.length();
 
@@ -178,7 +206,7 @@ public class RegionFile {
 
         ByteBuffer header = ByteBuffer.allocate(2 * SECTOR_BYTES);
         while (header.hasRemaining()) {
-            if (file.getChannel().read(header) == -1) {
+            if (channel.read(header) == -1) {
                 throw new EOFException();
             }
         }
@@ -231,54 +259,114 @@ public class RegionFile {
     public DataInputStream getChunkDataInputStream(int x, int z) throws IOException {
         checkBounds(x, z);
 
-        int offset = getOffset(x, z);
-        if (offset == 0) {
-            // does not exist
-            return null;
-        }
+        int sectorNumber;
+        byte[] data;
+        int length;
+        byte version;
+        lock.readLock().lock();
+        try {
+            int offset = getOffset(x, z);
+            if (offset == 0) {
+                // does not exist
+                return null;
+            }
 
-        int sectorNumber = offset >> 8;
-        int numSectors = offset & 0xFF;
-        if (sectorNumber + numSectors > totalSectors) {
-            throw new IOException(
-                    "Invalid sector: " + sectorNumber + "+" + numSectors + " > " + totalSectors);
-        }
+            sectorNumber = offset >> 8;
+            int numSectors = offset & 0xFF;
+            if (sectorNumber + numSectors > totalSectors) {
+                throw new IOException(
+                        "Invalid sector: " + sectorNumber + "+" + numSectors + " > "
+                                + totalSectors);
+            }
 
-        file.seek(sectorNumber * SECTOR_BYTES);
-        int length = file.readInt();
-        if (length > SECTOR_BYTES * numSectors) {
-            throw new IOException("Invalid length: " + length + " > " + SECTOR_BYTES * numSectors);
-        } else if (length <= 0) {
-            throw new IOException("Invalid length: " + length + " <= 0 ");
+            // read the header and the compressed data with a single positional read, which does
+            // not move the file pointer and so can run concurrently with other readers
+            data = new byte[SECTOR_BYTES * numSectors];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = (long) sectorNumber * SECTOR_BYTES;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read == -1) {
+                    break;
+                }
+            }
+            if (buffer.position() < CHUNK_HEADER_SIZE) {
+                throw new EOFException();
+            }
+
+            length = buffer.getInt(0);
+            if (length > SECTOR_BYTES * numSectors) {
+                throw new IOException(
+                        "Invalid length: " + length + " > " + SECTOR_BYTES * numSectors);
+            } else if (length <= 0) {
+                throw new IOException("Invalid length: " + length + " <= 0 ");
+            } else if (length + Integer.BYTES > buffer.position()) {
+                throw new EOFException();
+            }
+            version = data[Integer.BYTES];
+        } finally {
+            lock.readLock().unlock();
         }
 
-        byte version = file.readByte();
         if (version == VERSION_GZIP) {
-            byte[] data = new byte[length - 1];
-            file.read(data);
             try {
-                return new DataInputStream(new BufferedInputStream(
-                        new GZIPInputStream(new ByteArrayInputStream(data), 2048)));
+                return new DataInputStream(new BufferedInputStream(new GZIPInputStream(
+                        new ByteArrayInputStream(data, CHUNK_HEADER_SIZE, length - 1), 2048)));
             } catch (ZipException e) {
                 if (e.getMessage().equals("Not in GZIP format")) {
                     GlowServer.logger.info("Incorrect region version, switching to zlib...");
-                    file.seek((sectorNumber * SECTOR_BYTES) + Integer.BYTES);
-                    file.write(VERSION_DEFLATE);
-                    return getZlibInputStream(data);
+                    lock.writeLock().lock();
+                    try {
+                        channel.write(ByteBuffer.wrap(new byte[] {VERSION_DEFLATE}),
+                                (long) sectorNumber * SECTOR_BYTES + Integer.BYTES);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    return getZlibInputStream(data, length - 1);
                 }
             }
         } else if (version == VERSION_DEFLATE) {
-            byte[] data = new byte[length - 1];
-            file.read(data);
-            return getZlibInputStream(data);
+            return getZlibInputStream(data, length - 1);
         }
 
         throw new IOException("Unknown version: " + version);
     }
 
-    private DataInputStream getZlibInputStream(byte[] data) {
-        return new DataInputStream(new BufferedInputStream(new InflaterInputStream(
-                new ByteArrayInputStream(data), new Inflater(), 2048)));
+    private DataInputStream getZlibInputStream(byte[] data, int length) {
+        Inflater inflater = inflaterPool.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        } else {
+            inflaterPoolSize.decrementAndGet();
+        }
+        Inflater pooled = inflater;
+        InflaterInputStream in = new InflaterInputStream(
+                new ByteArrayInputStream(data, CHUNK_HEADER_SIZE, length), pooled, 2048) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    releaseInflater(pooled);
+                }
+            }
+        };
+        return new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Returns an inflater to the pool once the stream using it has been closed.
+     */
+    private static void releaseInflater(Inflater inflater) {
+        if (inflaterPoolSize.incrementAndGet() <= MAX_POOLED_INFLATERS) {
+            inflater.reset();
+            inflaterPool.offer(inflater);
+        } else {
+            inflaterPoolSize.decrementAndGet();
+            inflater.end();
+        }
     }
 
     /**
@@ -306,6 +394,15 @@ public class RegionFile {
 
     /* write a chunk at (x,z) with length bytes of data to disk */
     protected void write(int x, int z, byte[] data, int length) throws IOException {
+        lock.writeLock().lock();
+        try {
+            writeLocked(x, z, data, length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeLocked(int x, int z, byte[] data, int length) throws IOException {
         int offset = getOffset(x, z);
         int sectorNumber = offset >> 8;
         int sectorsAllocated = offset & 0xFF;
@@ -396,7 +493,12 @@ public class RegionFile {
     }
 
     public boolean hasChunk(int x, int z) {
-        return getOffset(x, z) != 0;
+        lock.readLock().lock();
+        try {
+            return getOffset(x, z) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     private void setOffset(int x, int z, int offset) throws IOException {
@@ -412,8 +514,13 @@ public class RegionFile {
     }
 
     public void close() throws IOException {
-        file.getChannel().force(true);
-        file.close();
+        lock.writeLock().lock();
+        try {
+            channel.force(true);
+            file.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /*
@@ -30,9 +30,11 @@ package net.glowstone.io.anvil;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.cache.RemovalListener;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import net.glowstone.GlowServer;
@@ -41,28 +43,37 @@ import net.glowstone.util.config.ServerConfig.Key;
 
 /**
  * A simple cache and wrapper for efficiently accessing multiple RegionFiles simultaneously.
+ *
+ * <p>Region files are reference counted, since they are used by several I/O threads and the world
+ * thread at once. The cache holds one reference to each recently used region, and every
+ * {@link #acquire(int, int)} holds another until the matching {@link #release(RegionFile)}. A
+ * region file is only closed once nothing holds it, so evicting it from the cache never closes it
+ * under a thread that is still reading or writing it, and a region is never open twice.
  */
 public class RegionFileCache {
 
     private static final int MAX_CACHE_SIZE =
             ((GlowServer) ServerProvider.getServer()).getConfig().getInt(Key.REGION_CACHE_SIZE);
 
-    private static final RemovalListener<File, RegionFile> removalListener = removal -> {
-        try {
-            removal.getValue().close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    };
+    /**
+     * Every open region file, including those evicted from the cache but still in use.
+     */
+    private final ConcurrentMap<File, OpenRegion> open = new ConcurrentHashMap<>();
 
     private LoadingCache<File, RegionFile> regions = CacheBuilder.newBuilder()
             .expireAfterAccess(5, TimeUnit.MINUTES)
             .maximumSize(MAX_CACHE_SIZE)
-            .removalListener(removalListener)
+            .<File, RegionFile>removalListener(removal -> {
+                try {
+                    release(removal.getValue());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            })
             .build(new CacheLoader<File, RegionFile>() {
                 @Override
                 public RegionFile load(File file) throws Exception {
-                    return new RegionFile(file);
+                    return retain(file);
                 }
             });
 
@@ -78,20 +89,84 @@ public class RegionFileCache {
      * Returns the region file where a chunk is stored, opening it if necessary. Both the region
      * file and the directory containing it will be created if they don't exist.
      *
+     * <p>The region file stays open at least until it is passed to {@link #release(RegionFile)}.
+     *
      * @param chunkX the absolute chunk X coordinate
      * @param chunkZ the absolute chunk Z coordinate
      * @return the region file
+     * @throws IOException if the region file cannot be opened
      */
-    public RegionFile getRegionFile(int chunkX, int chunkZ) {
+    public RegionFile acquire(int chunkX, int chunkZ) throws IOException {
         if (!regionDir.isDirectory() && !regionDir.mkdirs()) {
             GlowServer.logger.warning("Failed to create directory: " + regionDir);
         }
-        return regions.getUnchecked(
-                new File(regionDir, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + extension));
+        File file = new File(regionDir, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + extension);
+        RegionFile region;
+        try {
+            region = retain(file);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // keeps the region open for a while after it is released; the region is already open,
+        // so this can't fail
+        regions.getUnchecked(file);
+        return region;
+    }
+
+    /**
+     * Releases a region file returned by {@link #acquire(int, int)}, closing it if it is no longer
+     * cached or used by another thread.
+     *
+     * @param region the region file
+     * @throws IOException if the region file cannot be closed
+     */
+    public void release(RegionFile region) throws IOException {
+        IOException[] closeError = new IOException[1];
+        open.computeIfPresent(region.getPath(), (file, entry) -> {
+            if (--entry.users > 0) {
+                return entry;
+            }
+            // closing while the entry is locked keeps it from being opened again until it is done
+            try {
+                region.close();
+            } catch (IOException e) {
+                closeError[0] = e;
+            }
+            return null;
+        });
+        if (closeError[0] != null) {
+            throw closeError[0];
+        }
+    }
+
+    private RegionFile retain(File file) {
+        return open.compute(file, (key, entry) -> {
+            if (entry == null) {
+                try {
+                    entry = new OpenRegion(new RegionFile(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            entry.users++;
+            return entry;
+        }).region;
     }
 
     public void clear() throws RejectedExecutionException {
         regions.invalidateAll();
     }
 
+    /**
+     * A region file and the number of holders of it, guarded by {@link #open}.
+     */
+    private static final class OpenRegion {
+
+        private final RegionFile region;
+        private int users;
+
+        private OpenRegion(RegionFile region) {
+            this.region = region;
+        }
+    }
 }
@@ -105,7 +105,6 @@ public final class GlowMapCanvas implements MapCanvas {
      * @return a {@link Section} holding a copy of this canvas's contents
      */
     public Section toSection() {
-        return new Section(
-                MAP_SIZE, MAP_SIZE, mapView.getCenterX(), mapView.getCenterZ(), buffer.clone());
+        return new Section(MAP_SIZE, MAP_SIZE, 0, 0, buffer.clone());
     }
 }
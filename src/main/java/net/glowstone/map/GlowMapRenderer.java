@@ -2,13 +2,14 @@ package net.glowstone.map;
 
 import static net.glowstone.map.GlowMapCanvas.MAP_SIZE;
 
+import java.util.Arrays;
 import net.glowstone.GlowServer;
+import net.glowstone.GlowWorld;
 import net.glowstone.ServerProvider;
-import net.glowstone.block.GlowBlock;
-import net.glowstone.block.MaterialValueManager.ValueCollection;
+import net.glowstone.block.MaterialValueManager;
+import net.glowstone.chunk.GlowChunk;
 import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.block.Block;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.map.MapCanvas;
 import org.bukkit.map.MapRenderer;
@@ -16,11 +17,26 @@ import org.bukkit.map.MapView;
 
 /**
  * Glowstone's built-in map renderer.
+ *
+ * <p>The colour of each pixel is computed from the height map of its chunk and shared by every
+ * player the map is rendered for. It is only computed again once that chunk has changed, or the
+ * map has been moved or rescaled. Renders for players in different worlds take turns, since they
+ * share these colours.
  */
 public final class GlowMapRenderer extends MapRenderer {
 
     private static final int MAP_SIGHT_DISTANCE_SQUARED = 64 * 64;
     private final GlowMapView map;
+    private final byte[] colors = new byte[MAP_SIZE * MAP_SIZE];
+    /**
+     * The {@linkplain GlowChunk#getVersion() version} of the chunk each pixel's colour was
+     * computed from, or -1 if it has not been computed for the current area.
+     */
+    private final int[] pixelVersions = new int[MAP_SIZE * MAP_SIZE];
+    private GlowWorld cachedWorld;
+    private int cachedCornerX;
+    private int cachedCornerZ;
+    private int cachedScaleShift;
 
     public GlowMapRenderer(GlowMapView map) {
         super(false);
@@ -28,26 +44,47 @@ public final class GlowMapRenderer extends MapRenderer {
     }
 
     @Override
-    public void render(MapView map, MapCanvas canvas, Player player) {
-        World world = map.getWorld();
+    public synchronized void render(MapView map, MapCanvas canvas, Player player) {
+        GlowWorld world = (GlowWorld) map.getWorld();
         int scaleShift = map.getScale().getValue();
         Location playerLoc = player.getLocation();
         int playerX = playerLoc.getBlockX();
         int playerZ = playerLoc.getBlockZ();
         int cornerX = map.getCenterX() - ((MAP_SIZE / 2) << scaleShift);
         int cornerZ = map.getCenterZ() - ((MAP_SIZE / 2) << scaleShift);
+        if (world != cachedWorld || cornerX != cachedCornerX || cornerZ != cachedCornerZ
+                || scaleShift != cachedScaleShift) {
+            Arrays.fill(pixelVersions, -1);
+            cachedWorld = world;
+            cachedCornerX = cornerX;
+            cachedCornerZ = cornerZ;
+            cachedScaleShift = scaleShift;
+        }
+        MaterialValueManager materialValues = ((GlowServer) ServerProvider.getServer())
+                .getMaterialValueManager();
+        GlowChunk chunk = null;
         for (int pixelX = 0; pixelX < MAP_SIZE; pixelX++) {
             for (int pixelY = 0; pixelY < MAP_SIZE; pixelY++) {
                 int worldX = cornerX + (pixelX << scaleShift);
                 int worldZ = cornerZ + (pixelY << scaleShift);
                 if (((worldX - playerX) * (worldX - playerX)
-                        + (worldZ - playerZ) * (worldZ - playerZ)) < MAP_SIGHT_DISTANCE_SQUARED) {
-                    // TODO: Should the highest block be skipped over if it's e.g. a flower or a
-                    // technical block?
-                    byte blockColor =
-                        colorFor(world.getHighestBlockAt(worldX, worldZ), worldX, worldZ);
-                    canvas.setPixel(pixelX, pixelY, blockColor);
+                        + (worldZ - playerZ) * (worldZ - playerZ)) >= MAP_SIGHT_DISTANCE_SQUARED) {
+                    continue;
+                }
+                if (chunk == null || chunk.getX() != worldX >> 4 || chunk.getZ() != worldZ >> 4) {
+                    chunk = world.getChunkAt(worldX >> 4, worldZ >> 4);
+                }
+                if (!chunk.isLoaded()) {
+                    // loading changes the version, so it has to happen before it is read
+                    chunk.load();
+                }
+                int index = pixelY * MAP_SIZE + pixelX;
+                int version = chunk.getVersion();
+                if (pixelVersions[index] != version) {
+                    colors[index] = colorFor(chunk, worldX, worldZ, materialValues);
+                    pixelVersions[index] = version;
                 }
+                canvas.setPixel(pixelX, pixelY, colors[index]);
             }
         }
     }
@@ -63,13 +100,18 @@ public final class GlowMapRenderer extends MapRenderer {
                 + (worldZ * 0x5f24f))) % 4);
     }
 
-    private static byte colorFor(Block block, int worldX, int worldZ) {
+    private static byte colorFor(GlowChunk chunk, int worldX, int worldZ,
+            MaterialValueManager materialValues) {
         // TODO: Some blocks vary in map color based on block states (e.g. wood species)
-        ValueCollection materialValues;
-        materialValues = block instanceof GlowBlock ? ((GlowBlock) block).getMaterialValues()
-            : ((GlowServer) ServerProvider.getServer()).getMaterialValueManager()
-                .getValues(block.getType());
-        byte baseColor = materialValues.getBaseMapColor();
+        // TODO: Should the highest block be skipped over if it's e.g. a flower or a technical
+        // block?
+        int x = worldX & 0xf;
+        int z = worldZ & 0xf;
+        // the height map holds the lowest empty block of the column, above the one shown
+        int height = chunk.getHeight(x, z);
+        Material type = height == 0 ? Material.AIR
+                : Material.getMaterial(chunk.getType(x, z, height - 1));
+        byte baseColor = materialValues.getValues(type).getBaseMapColor();
         return (byte) (baseColor | pseudoRandomShade(worldX, worldZ));
     }
 }
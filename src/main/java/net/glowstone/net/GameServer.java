@@ -7,14 +7,46 @@ import io.netty.channel.ChannelFuture;
 import java.net.InetSocketAddress;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
+import lombok.Getter;
+import lombok.Setter;
 import net.glowstone.GlowServer;
 import net.glowstone.net.pipeline.GlowChannelInitializer;
 
 
 public final class GameServer extends GlowSocketServer implements ConnectionManager {
 
+    /**
+     * The smallest packet size, in bytes, that sessions on this listener compress, or -1 to
+     * disable compression. Only affects sessions which have not logged in yet.
+     *
+     * @param compressionThreshold the compression threshold
+     * @return the compression threshold
+     */
+    @Getter
+    @Setter
+    private volatile int compressionThreshold;
+
+    /**
+     * The deflate level used by sessions on this listener, from 0 to 9, or -1 for the default.
+     * Only affects sessions which have not logged in yet.
+     *
+     * @param compressionLevel the compression level
+     * @return the compression level
+     */
+    @Getter
+    @Setter
+    private volatile int compressionLevel;
+
+    /**
+     * Creates a game server listener, with compression settings from the server's config.
+     *
+     * @param server the server
+     * @param latch the latch to count down once the listener is bound
+     */
     public GameServer(GlowServer server, CountDownLatch latch) {
         super(server, latch);
+        compressionThreshold = server.getCompressionThreshold();
+        compressionLevel = server.getCompressionLevel();
         bootstrap.childHandler(new GlowChannelInitializer(this));
     }
 
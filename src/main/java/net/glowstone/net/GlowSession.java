@@ -10,7 +10,9 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.handler.codec.CodecException;
+import io.netty.util.ReferenceCountUtil;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -18,7 +20,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
+import java.util.zip.Deflater;
 import javax.crypto.SecretKey;
 import lombok.Getter;
 import lombok.Setter;
@@ -27,6 +32,7 @@ import net.glowstone.GlowServer;
 import net.glowstone.entity.GlowPlayer;
 import net.glowstone.entity.meta.profile.GlowPlayerProfile;
 import net.glowstone.io.PlayerDataService.PlayerReader;
+import net.glowstone.net.message.EncodedMessage;
 import net.glowstone.net.message.KickMessage;
 import net.glowstone.net.message.SetCompressionMessage;
 import net.glowstone.net.message.login.LoginSuccessMessage;
@@ -56,6 +62,12 @@ import org.bukkit.event.player.PlayerLoginEvent.Result;
  */
 public class GlowSession extends BasicSession {
 
+    /**
+     * The number of buffered play messages after which they are flushed without waiting for the
+     * end of the tick.
+     */
+    private static final int MAX_UNFLUSHED_MESSAGES = 512;
+
     /**
      * The server this session belongs to.
      *
@@ -156,6 +168,17 @@ public class GlowSession extends BasicSession {
      */
     private volatile boolean compresssionSent;
 
+    /**
+     * Whether play messages are buffered until {@link #flush()} instead of being flushed one by
+     * one.
+     */
+    private final boolean batchWrites;
+
+    /**
+     * The number of messages written since the last flush.
+     */
+    private final AtomicInteger unflushedMessages = new AtomicInteger();
+
     /**
      * Creates a new session.
      *
@@ -168,6 +191,7 @@ public class GlowSession extends BasicSession {
         super(channel, ProtocolType.HANDSHAKE.getProtocol());
         this.server = server;
         this.connectionManager = connectionManager;
+        batchWrites = server.isBatchingNetworkWrites();
         address = super.getAddress();
     }
 
@@ -289,15 +313,17 @@ public class GlowSession extends BasicSession {
         }
 
         Message addMessage = new UserListItemMessage(Action.ADD_PLAYER, player.getUserListEntry());
+        List<GlowPlayer> addRecipients = new ArrayList<>();
         List<Entry> entries = new ArrayList<>();
         for (GlowPlayer other : server.getRawOnlinePlayers()) {
             if (other != player && other.canSee(player)) {
-                other.getSession().send(addMessage);
+                addRecipients.add(other);
             }
             if (player.canSee(other)) {
                 entries.add(other.getUserListEntry());
             }
         }
+        EncodedMessage.broadcast(addMessage, addRecipients);
         send(new UserListItemMessage(Action.ADD_PLAYER, entries));
         send(server.createAdvancementsMessage(false, Collections.emptyList(), player));
     }
@@ -306,9 +332,49 @@ public class GlowSession extends BasicSession {
     public ChannelFuture sendWithFuture(Message message) {
         if (!isActive()) {
             // discard messages sent if we're closed, since this happens a lot
+            ReferenceCountUtil.release(message);
             return null;
         }
-        return super.sendWithFuture(message);
+        if (!batchWrites || !(getProtocol() instanceof PlayProtocol)) {
+            return super.sendWithFuture(message);
+        }
+        // buffer the message in the channel until the end of the tick, unless the buffer is
+        // already large enough that holding on to it only delays the client
+        ChannelFuture future = getChannel().write(message);
+        future.addListener(f -> {
+            if (f.cause() != null) {
+                onOutboundThrowable(f.cause());
+            }
+        });
+        if (unflushedMessages.incrementAndGet() >= MAX_UNFLUSHED_MESSAGES
+                || !getChannel().isWritable()) {
+            flush();
+        }
+        return future;
+    }
+
+    /**
+     * Flushes the messages buffered since the last flush to the network.
+     *
+     * <p>Called for every session at the end of each tick, so that all messages sent during the
+     * tick go out in as few writes as possible.
+     */
+    public void flush() {
+        int messages = unflushedMessages.getAndSet(0);
+        if (messages == 0) {
+            return;
+        }
+        Channel channel = getChannel();
+        try {
+            channel.eventLoop().execute(() -> {
+                ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+                long bytes = buffer == null ? 0 : buffer.totalPendingWriteBytes();
+                channel.flush();
+                server.getSessionRegistry().recordFlush(messages, bytes);
+            });
+        } catch (RejectedExecutionException e) {
+            // the event loop is shutting down, so there is nothing left to flush to
+        }
     }
 
     /**
@@ -388,6 +454,7 @@ public class GlowSession extends BasicSession {
             ChannelFuture future = sendWithFuture(new KickMessage(reason));
             if (future != null) {
                 future.addListener(ChannelFutureListener.CLOSE);
+                flush();
             }
         } else {
             getChannel().close();
@@ -468,8 +535,13 @@ public class GlowSession extends BasicSession {
     private void finalizeLogin(GlowPlayerProfile profile) {
         // enable compression if needed
         int compression = getServer().getCompressionThreshold();
+        int level = Deflater.DEFAULT_COMPRESSION;
+        if (connectionManager instanceof GameServer) {
+            compression = ((GameServer) connectionManager).getCompressionThreshold();
+            level = ((GameServer) connectionManager).getCompressionLevel();
+        }
         if (compression > 0) {
-            enableCompression(compression);
+            enableCompression(compression, level);
         }
 
         // send login response
@@ -508,10 +580,20 @@ public class GlowSession extends BasicSession {
      * @param threshold the minimum message size in bytes to compress
      */
     public void enableCompression(int threshold) {
+        enableCompression(threshold, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Enables compression if not already enabled.
+     *
+     * @param threshold the minimum message size in bytes to compress
+     * @param level the deflate level from 0 to 9, or -1 for the default level
+     */
+    public void enableCompression(int threshold, int level) {
         // set compression can only be sent once
         if (!compresssionSent) {
             send(new SetCompressionMessage(threshold));
-            updatePipeline("compression", new CompressionHandler(threshold));
+            updatePipeline("compression", new CompressionHandler(threshold, level));
             compresssionSent = true;
         }
     }
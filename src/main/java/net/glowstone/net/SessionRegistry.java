@@ -2,6 +2,7 @@ package net.glowstone.net;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A list of all the sessions which provides a convenient {@link #pulse()} method to pulse every
@@ -16,6 +17,13 @@ public final class SessionRegistry {
      */
     private final ConcurrentMap<GlowSession, Boolean> sessions = new ConcurrentHashMap<>();
 
+    /**
+     * The number of batched flushes performed, and the messages and bytes they carried.
+     */
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedMessages = new LongAdder();
+    private final LongAdder flushedBytes = new LongAdder();
+
     /**
      * Pulses all the sessions.
      */
@@ -23,6 +31,45 @@ public final class SessionRegistry {
         sessions.keySet().forEach(GlowSession::pulse);
     }
 
+    /**
+     * Flushes the messages buffered by all the sessions during this tick.
+     */
+    public void flush() {
+        sessions.keySet().forEach(GlowSession::flush);
+    }
+
+    /**
+     * Records the size of a batched flush.
+     *
+     * @param messages The number of messages flushed.
+     * @param bytes The approximate number of bytes flushed.
+     */
+    void recordFlush(int messages, long bytes) {
+        flushes.increment();
+        flushedMessages.add(messages);
+        flushedBytes.add(bytes);
+    }
+
+    /**
+     * Gets the average number of messages sent per batched flush since the server started.
+     *
+     * @return The average number of messages per flush.
+     */
+    public double getAverageMessagesPerFlush() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : (double) flushedMessages.sum() / count;
+    }
+
+    /**
+     * Gets the average number of bytes sent per batched flush since the server started.
+     *
+     * @return The approximate average number of bytes per flush.
+     */
+    public double getAverageBytesPerFlush() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : (double) flushedBytes.sum() / count;
+    }
+
     /**
      * Adds a new session.
      *
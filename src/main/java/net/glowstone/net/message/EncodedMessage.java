@@ -0,0 +1,102 @@
+package net.glowstone.net.message;
+
+import com.flowpowered.network.Codec.CodecRegistration;
+import com.flowpowered.network.Message;
+import com.flowpowered.network.util.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.DefaultByteBufHolder;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.logging.Level;
+import net.glowstone.GlowServer;
+import net.glowstone.entity.GlowPlayer;
+import net.glowstone.net.GlowSession;
+import net.glowstone.net.protocol.GlowProtocol;
+import net.glowstone.net.protocol.PlayProtocol;
+import net.glowstone.net.protocol.ProtocolType;
+
+/**
+ * A message which has already been encoded, opcode included, so that it can be sent to many
+ * sessions while only being encoded once.
+ *
+ * <p>Each session must be sent its own {@link #retainedDuplicate()}, which is released once it
+ * has been written.
+ */
+public final class EncodedMessage extends DefaultByteBufHolder implements Message {
+
+    private EncodedMessage(ByteBuf data) {
+        super(data);
+    }
+
+    /**
+     * Encodes a message for the given protocol.
+     *
+     * @param protocol the protocol the message will be sent in
+     * @param message the message to encode
+     * @return the encoded message, or {@code message} itself if the protocol has no codec for it
+     * @throws IOException if the message cannot be encoded
+     */
+    public static Message encode(GlowProtocol protocol, Message message) throws IOException {
+        CodecRegistration reg = protocol.getCodecRegistration(message.getClass());
+        if (reg == null) {
+            return message;
+        }
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            ByteBufUtils.writeVarInt(buf, reg.getOpcode());
+            return new EncodedMessage(reg.getCodec().encode(buf, message));
+        } catch (IOException | RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a message to many players, encoding it only once for all of them. Compression and
+     * encryption still happen separately for each session.
+     *
+     * @param message the message to send
+     * @param recipients the players to send it to
+     */
+    public static void broadcast(Message message, Collection<? extends GlowPlayer> recipients) {
+        if (recipients.size() < 2) {
+            // nothing to share
+            recipients.forEach(player -> player.getSession().send(message));
+            return;
+        }
+        Message encoded;
+        try {
+            encoded = encode(ProtocolType.PLAY.getProtocol(), message);
+        } catch (IOException e) {
+            // leave it to be encoded for each recipient, which will report the failure
+            GlowServer.logger.log(Level.FINE, "Failed to encode " + message, e);
+            encoded = message;
+        }
+        if (!(encoded instanceof EncodedMessage)) {
+            recipients.forEach(player -> player.getSession().send(message));
+            return;
+        }
+        EncodedMessage shared = (EncodedMessage) encoded;
+        try {
+            for (GlowPlayer player : recipients) {
+                GlowSession session = player.getSession();
+                // a player whose session is still logging in gets the message encoded as usual
+                session.send(session.getProtocol() instanceof PlayProtocol
+                        ? shared.retainedDuplicate() : message);
+            }
+        } finally {
+            shared.release();
+        }
+    }
+
+    @Override
+    public EncodedMessage replace(ByteBuf content) {
+        return new EncodedMessage(content);
+    }
+
+    @Override
+    public EncodedMessage retainedDuplicate() {
+        return (EncodedMessage) super.retainedDuplicate();
+    }
+}
@@ -11,6 +11,7 @@ import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageCodec;
 import java.util.List;
 import net.glowstone.GlowServer;
+import net.glowstone.net.message.EncodedMessage;
 import net.glowstone.net.protocol.GlowProtocol;
 
 /**
@@ -27,6 +28,12 @@ public final class CodecsHandler extends MessageToMessageCodec<ByteBuf, Message>
     @Override
     protected void encode(ChannelHandlerContext ctx, Message msg, List<Object> out)
         throws Exception {
+        if (msg instanceof EncodedMessage) {
+            // already encoded; the holder itself is released once this returns
+            out.add(((EncodedMessage) msg).content().retain());
+            return;
+        }
+
         // find codec
         Class<? extends Message> clazz = msg.getClass();
         CodecRegistration reg = protocol.getCodecRegistration(clazz);
@@ -8,19 +8,26 @@ import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageCodec;
 import java.util.List;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 /**
  * Experimental pipeline component.
+ *
+ * <p>Compresses directly between pooled heap buffers: the deflater and inflater read from the
+ * backing array of the incoming buffer and write into the backing array of a buffer from the
+ * channel's allocator. Direct buffers, which have no backing array, are copied into a scratch
+ * array which is reused for the lifetime of the channel.
  */
 public final class CompressionHandler extends MessageToMessageCodec<ByteBuf, ByteBuf> {
 
-    private static final int COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int MAX_VARINT_SIZE = 5;
 
     private final int threshold;
     private final Inflater inflater;
     private final Deflater deflater;
+    private byte[] scratch = new byte[0];
 
     /**
      * Creates an instance that compresses messages using an {@link Inflater} and {@link Deflater}.
@@ -28,54 +35,62 @@ public final class CompressionHandler extends MessageToMessageCodec<ByteBuf, Byt
      * @param threshold the smallest message length, in bytes, to compress
      */
     public CompressionHandler(int threshold) {
+        this(threshold, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates an instance that compresses messages using an {@link Inflater} and {@link Deflater}.
+     *
+     * @param threshold the smallest message length, in bytes, to compress
+     * @param level the compression level, from 0 to 9, or -1 for the default
+     */
+    public CompressionHandler(int threshold, int level) {
         this.threshold = threshold;
         inflater = new Inflater();
-        deflater = new Deflater(COMPRESSION_LEVEL);
+        deflater = new Deflater(level);
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out)
         throws Exception {
-        ByteBuf prefixBuf = ctx.alloc().buffer(5);
-        ByteBuf contentsBuf;
+        int index = msg.readerIndex();
+        int length = msg.readableBytes();
 
-        if (msg.readableBytes() >= threshold) {
+        if (length >= threshold) {
             // message should be compressed
-            int index = msg.readerIndex();
-            int length = msg.readableBytes();
-
-            byte[] sourceData = new byte[length];
-            msg.readBytes(sourceData);
-            deflater.setInput(sourceData);
+            setInput(deflater, msg);
             deflater.finish();
 
-            byte[] compressedData = new byte[length];
-            int compressedLength = deflater.deflate(compressedData);
+            // compressing must save space, so never compress into more than the original length
+            ByteBuf compressed = ctx.alloc().heapBuffer(MAX_VARINT_SIZE + length);
+            ByteBufUtils.writeVarInt(compressed, length);
+            int prefixLength = compressed.writerIndex();
+            int compressedLength = deflater.deflate(compressed.array(),
+                compressed.arrayOffset() + prefixLength, length);
+            boolean finished = deflater.finished();
             deflater.reset();
 
             if (compressedLength == 0) {
                 // compression failed in some weird way
+                compressed.release();
                 throw new EncoderException("Failed to compress message of size " + length);
-            } else if (compressedLength >= length) {
+            } else if (!finished || compressedLength >= length) {
                 // compression increased the size. threshold is probably too low
                 // send as an uncompressed packet
-                ByteBufUtils.writeVarInt(prefixBuf, 0);
+                compressed.release();
                 msg.readerIndex(index);
-                msg.retain();
-                contentsBuf = msg;
             } else {
                 // all is well
-                ByteBufUtils.writeVarInt(prefixBuf, length);
-                contentsBuf = Unpooled.wrappedBuffer(compressedData, 0, compressedLength);
+                compressed.writerIndex(prefixLength + compressedLength);
+                out.add(compressed);
+                return;
             }
-        } else {
-            // message should be sent through
-            ByteBufUtils.writeVarInt(prefixBuf, 0);
-            msg.retain();
-            contentsBuf = msg;
         }
 
-        out.add(Unpooled.wrappedBuffer(prefixBuf, contentsBuf));
+        // message should be sent through
+        ByteBuf prefixBuf = ctx.alloc().buffer(1);
+        ByteBufUtils.writeVarInt(prefixBuf, 0);
+        out.add(Unpooled.wrappedBuffer(prefixBuf, msg.retain()));
     }
 
     @Override
@@ -93,33 +108,85 @@ public final class CompressionHandler extends MessageToMessageCodec<ByteBuf, Byt
                         + threshold);
             }
 
-            ByteBuf buf = ctx.alloc().buffer(length);
-            msg.readBytes(buf, length);
-            out.add(buf);
+            out.add(msg.readRetainedSlice(length));
         } else {
             // message is compressed
-            byte[] sourceData = new byte[msg.readableBytes()];
-            msg.readBytes(sourceData);
-            inflater.setInput(sourceData);
-
-            byte[] destData = new byte[uncompressedSize];
-            int resultLength = inflater.inflate(destData);
-            inflater.reset();
+            setInput(inflater, msg);
+
+            ByteBuf decompressed = ctx.alloc().heapBuffer(uncompressedSize, uncompressedSize);
+            int resultLength;
+            try {
+                resultLength = inflater.inflate(decompressed.array(),
+                    decompressed.arrayOffset(), uncompressedSize);
+            } catch (DataFormatException e) {
+                decompressed.release();
+                throw new DecoderException(e);
+            } finally {
+                inflater.reset();
+            }
 
             if (resultLength == 0) {
                 // might be a leftover from before compression was enabled (no compression header)
                 // uncompressedSize is likely to be < threshold
+                decompressed.release();
                 msg.readerIndex(index);
                 msg.retain();
                 out.add(msg);
             } else if (resultLength != uncompressedSize) {
+                decompressed.release();
                 throw new DecoderException(
                     "Received compressed message claiming to be of size " + uncompressedSize
                         + " but actually " + resultLength);
             } else {
-                out.add(Unpooled.wrappedBuffer(destData));
+                decompressed.writerIndex(resultLength);
+                out.add(decompressed);
             }
         }
     }
 
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        inflater.end();
+        deflater.end();
+    }
+
+    /**
+     * Hands the readable bytes of a buffer to a deflater without copying them if possible, and
+     * consumes them from the buffer.
+     */
+    private void setInput(Deflater deflater, ByteBuf buf) {
+        int length = buf.readableBytes();
+        if (buf.hasArray()) {
+            deflater.setInput(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+        } else {
+            byte[] scratch = getScratch(length);
+            buf.getBytes(buf.readerIndex(), scratch, 0, length);
+            deflater.setInput(scratch, 0, length);
+        }
+        buf.skipBytes(length);
+    }
+
+    /**
+     * Hands the readable bytes of a buffer to an inflater without copying them if possible, and
+     * consumes them from the buffer.
+     */
+    private void setInput(Inflater inflater, ByteBuf buf) {
+        int length = buf.readableBytes();
+        if (buf.hasArray()) {
+            inflater.setInput(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+        } else {
+            byte[] scratch = getScratch(length);
+            buf.getBytes(buf.readerIndex(), scratch, 0, length);
+            inflater.setInput(scratch, 0, length);
+        }
+        buf.skipBytes(length);
+    }
+
+    private byte[] getScratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
 }
@@ -4,11 +4,15 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -38,6 +42,10 @@ public final class GlowScheduler implements BukkitScheduler {
      * The number of milliseconds between pulses.
      */
     static final int PULSE_EVERY = 50;
+    /**
+     * The number of buckets in the timing wheel. Must be a power of two.
+     */
+    private static final int WHEEL_SIZE = 512;
     /**
      * The server this scheduler is managing for.
      */
@@ -56,6 +64,26 @@ public final class GlowScheduler implements BukkitScheduler {
      * A list of active tasks.
      */
     private final ConcurrentMap<Integer, GlowTask> tasks = new ConcurrentHashMap<>();
+    /**
+     * Tasks which have been scheduled since the last pulse, and are not in the wheel yet.
+     */
+    private final Queue<GlowTask> newTasks = new ConcurrentLinkedQueue<>();
+    /**
+     * A timing wheel of the scheduled tasks: each task is kept in the bucket of the tick it is
+     * next due on, modulo the size of the wheel, so each pulse only visits the tasks in one
+     * bucket. Cancelled tasks are dropped when their bucket comes up. Only accessed from the
+     * primary thread.
+     */
+    private final List<GlowTask>[] wheel = newWheel();
+    /**
+     * The counters of each plugin which has scheduled a task since it was enabled, with null for
+     * the server itself.
+     */
+    private final Map<Plugin, TaskStatistics> statistics = new HashMap<>();
+    /**
+     * The number of pulses so far.
+     */
+    private long currentTick;
     /**
      * World tick scheduler.
      */
@@ -138,16 +166,60 @@ public final class GlowScheduler implements BukkitScheduler {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static List<GlowTask>[] newWheel() {
+        List<GlowTask>[] wheel = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        return wheel;
+    }
+
     /**
      * Schedules the specified task.
      *
      * @param task The task.
      */
     private GlowTask schedule(GlowTask task) {
+        synchronized (statistics) {
+            task.statistics = statistics
+                    .computeIfAbsent(task.getOwner(), plugin -> new TaskStatistics());
+        }
+        task.statistics.taskScheduled();
         tasks.put(task.getTaskId(), task);
+        newTasks.add(task);
         return task;
     }
 
+    /**
+     * Puts a task into the bucket of the tick it is next due on.
+     */
+    private void enqueue(GlowTask task, long tick) {
+        task.nextRun = tick;
+        wheel[(int) (tick & (WHEEL_SIZE - 1))].add(task);
+    }
+
+    /**
+     * Removes a task which has finished or been cancelled.
+     */
+    private void retire(GlowTask task) {
+        if (tasks.remove(task.getTaskId(), task)) {
+            task.statistics.taskRetired();
+        }
+    }
+
+    /**
+     * Returns the counters of the tasks scheduled by a plugin.
+     *
+     * @param plugin the plugin, or null for the tasks scheduled by the server itself
+     * @return the counters, or null if the plugin has never scheduled a task
+     */
+    public TaskStatistics getTaskStatistics(Plugin plugin) {
+        synchronized (statistics) {
+            return statistics.get(plugin);
+        }
+    }
+
     /**
      * Checks if the current {@link Thread} is the server's primary thread.
      *
@@ -177,28 +249,52 @@ public final class GlowScheduler implements BukkitScheduler {
      * Adds new tasks and updates existing tasks, removing them if necessary. <br/>
      * todo: Add watchdog system to make sure ticks advance
      */
-    private void pulse() {
+    void pulse() {
         primaryThread = Thread.currentThread();
+        currentTick++;
 
         // Process player packets
         sessionRegistry.pulse();
 
+        // Add the tasks scheduled since the last pulse, which counts as their first tick.
+        GlowTask newTask;
+        while ((newTask = newTasks.poll()) != null) {
+            enqueue(newTask, currentTick - 1 + newTask.getFirstRunDelay());
+        }
+
         // Run the relevant tasks.
-        for (Iterator<GlowTask> it = tasks.values().iterator(); it.hasNext(); ) {
+        List<GlowTask> due = new ArrayList<>();
+        for (Iterator<GlowTask> it = wheel[(int) (currentTick & (WHEEL_SIZE - 1))].iterator();
+                it.hasNext(); ) {
             GlowTask task = it.next();
-            switch (task.shouldExecute()) {
-                case RUN:
-                    if (task.isSync()) {
+            if (task.isDone() || tasks.get(task.getTaskId()) != task) {
+                // cancelled, failed, or removed by cancelTask
+                it.remove();
+                retire(task);
+            } else if (task.nextRun == currentTick) {
+                it.remove();
+                due.add(task);
+            }
+        }
+        for (GlowTask task : due) {
+            if (task.getPeriod() > 0) {
+                enqueue(task, currentTick + task.getPeriod());
+                if (task.isSync()) {
+                    task.run();
+                } else {
+                    asyncTaskExecutor.submit(task);
+                }
+            } else if (task.isSync()) {
+                task.run();
+                retire(task);
+            } else {
+                asyncTaskExecutor.submit(() -> {
+                    try {
                         task.run();
-                    } else {
-                        asyncTaskExecutor.submit(task);
+                    } finally {
+                        retire(task);
                     }
-                    break;
-                case STOP:
-                    it.remove();
-                    break;
-                default:
-                    // do nothing
+                });
             }
         }
         try {
@@ -220,6 +316,9 @@ public final class GlowScheduler implements BukkitScheduler {
                     inTickTaskCondition.wait();
                 }
             }
+
+            // send everything the tick produced in one write per session
+            sessionRegistry.flush();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -381,17 +480,36 @@ public final class GlowScheduler implements BukkitScheduler {
 
     @Override
     public void cancelTask(int taskId) {
-        tasks.remove(taskId);
+        GlowTask task = tasks.get(taskId);
+        if (task != null) {
+            // the wheel drops the task once its bucket comes up
+            task.cancel();
+            retire(task);
+        }
     }
 
     @Override
     public void cancelTasks(Plugin plugin) {
-        tasks.values().removeIf(glowTask -> glowTask.getOwner() == plugin);
+        for (GlowTask task : tasks.values()) {
+            if (task.getOwner() == plugin) {
+                task.cancel();
+                retire(task);
+            }
+        }
+        if (plugin != null) {
+            // called when the plugin is disabled, so don't keep it reachable from here
+            synchronized (statistics) {
+                statistics.remove(plugin);
+            }
+        }
     }
 
     @Override
     public void cancelAllTasks() {
-        tasks.clear();
+        for (GlowTask task : tasks.values()) {
+            task.cancel();
+            retire(task);
+        }
     }
 
     @Override
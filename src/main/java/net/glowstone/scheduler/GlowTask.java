@@ -54,17 +54,22 @@ public class GlowTask extends FutureTask<Void> implements BukkitTask, BukkitWork
      */
     private final String description;
     /**
-     * The current number of ticks since last initialization.
+     * The tick this task is next due on, as counted by the {@link GlowScheduler}. Only accessed
+     * from the scheduler's primary thread.
      */
-    private long counter;
+    long nextRun;
+    /**
+     * The counters of the plugin which owns this task, or null if it is not scheduled.
+     */
+    TaskStatistics statistics;
     /**
      * The thread this task has been last executed on, if this task is async.
      */
     @Getter
     private Thread thread;
     /**
-     * The last execution state returned by {@link #shouldExecute()} (most likely the state the task
-     * is currently in).
+     * The state this task is currently in: {@link TaskExecutionState#RUN} while it is running, or
+     * {@link TaskExecutionState#STOP} once it will never run again.
      */
     @Getter
     private volatile TaskExecutionState lastExecutionState = TaskExecutionState.WAIT;
@@ -77,7 +82,8 @@ public class GlowTask extends FutureTask<Void> implements BukkitTask, BukkitWork
      * @param task The runnable for this task.
      * @param sync If the task should be run synchronously.
      * @param delay The delay in ticks before running this task.
-     * @param period The delay in ticks before running this task again. -1 for no repeat.
+     * @param period The delay in ticks before running this task again. -1 for no repeat, and 0
+     *         to repeat every tick.
      */
     public GlowTask(Plugin owner, Runnable task, boolean sync, long delay, long period) {
         super(task, null);
@@ -85,8 +91,7 @@ public class GlowTask extends FutureTask<Void> implements BukkitTask, BukkitWork
         description = task.toString();
         this.owner = owner;
         this.delay = delay;
-        this.period = period;
-        counter = 0;
+        this.period = period == 0 ? 1 : Math.max(period, -1);
         this.sync = sync;
     }
 
@@ -109,41 +114,46 @@ public class GlowTask extends FutureTask<Void> implements BukkitTask, BukkitWork
     }
 
     /**
-     * Called every 'pulse' which is around 50ms in Minecraft.
+     * Returns the number of ticks from the one this task was scheduled in until its first run,
+     * counting the next tick as 1.
      *
-     * <p>This method updates the counters and returns whether execute() should be called
-     *
-     * @return Execution state for this task
+     * @return the number of ticks until the first run
      */
-    TaskExecutionState shouldExecute() {
-        TaskExecutionState execState = shouldExecuteUpdate();
-        lastExecutionState = execState;
-        return execState;
-    }
-
-    private TaskExecutionState shouldExecuteUpdate() {
-        // Stop running if cancelled, exception, or not repeating
-        if (isDone()) {
-            return TaskExecutionState.STOP;
-        }
-
-        ++counter;
-        if (counter >= delay) {
-            if (period == -1 || (counter - delay) % period == 0) {
-                return TaskExecutionState.RUN;
-            }
+    long getFirstRunDelay() {
+        long first = Math.max(delay, 1);
+        if (period > 0) {
+            // a repeating task runs on the ticks which are a whole number of periods after its
+            // delay
+            first += Math.floorMod(delay - first, period);
         }
+        return first;
+    }
 
-        return TaskExecutionState.WAIT;
+    /**
+     * Returns the number of ticks between runs.
+     *
+     * @return the period, or -1 if this task does not repeat
+     */
+    long getPeriod() {
+        return period;
     }
 
     @Override
     public void run() {
         thread = Thread.currentThread();
-        if (period == -1) {
-            super.run();
-        } else {
-            runAndReset();
+        lastExecutionState = TaskExecutionState.RUN;
+        long start = System.nanoTime();
+        try {
+            if (period == -1) {
+                super.run();
+            } else {
+                runAndReset();
+            }
+        } finally {
+            if (statistics != null) {
+                statistics.recordRun(System.nanoTime() - start);
+            }
+            lastExecutionState = isDone() ? TaskExecutionState.STOP : TaskExecutionState.WAIT;
         }
     }
 
@@ -0,0 +1,57 @@
+package net.glowstone.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the tasks a plugin has scheduled with the {@link GlowScheduler}, and of the time
+ * spent running them.
+ */
+public final class TaskStatistics {
+
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+
+    /**
+     * Returns the number of tasks which are scheduled and have not finished or been cancelled.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * Returns the number of times a task has run.
+     *
+     * @return the number of runs
+     */
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * Returns the total time spent running tasks, including async ones.
+     *
+     * @param unit the unit to return the time in
+     * @return the total run time
+     */
+    public long getRunTime(TimeUnit unit) {
+        return unit.convert(runNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    void taskScheduled() {
+        pendingTasks.incrementAndGet();
+    }
+
+    void taskRetired() {
+        pendingTasks.decrementAndGet();
+    }
+
+    void recordRun(long nanos) {
+        runs.increment();
+        runNanos.add(nanos);
+    }
+}
@@ -494,6 +494,9 @@ public final class ServerConfig implements DynamicallyTypedMap<ServerConfig.Key>
         COMPRESSION_THRESHOLD("advanced.compression-threshold", 256, Migrate.PROPS,
                 "network-compression-threshold",
                 typeCheck(Integer.class).and(value -> value >= -1)),
+        COMPRESSION_LEVEL("advanced.compression-level", -1,
+                typeCheck(Integer.class).and(value -> value >= -1 && value <= 9)),
+        BATCH_NETWORK_WRITES("advanced.batch-network-writes", true, Boolean.class::isInstance),
         PROXY_SUPPORT("advanced.proxy-support", false, Boolean.class::isInstance),
         PLAYER_SAMPLE_COUNT("advanced.player-sample-count", 12,
                 Validators.NON_NEGATIVE_INTEGER),
@@ -504,6 +507,12 @@ public final class ServerConfig implements DynamicallyTypedMap<ServerConfig.Key>
                 Validators.NON_NEGATIVE_INTEGER),
         REGION_COMPRESSION("advanced.region-file.compression", true,
                 Boolean.class::isInstance),
+        REGION_IO_THREADS("advanced.region-file.io-threads", 2,
+                Validators.POSITIVE_INTEGER),
+        CHUNKS_PER_TICK("advanced.chunks-per-tick", 16, Validators.POSITIVE_INTEGER),
+        GENERATION_THREADS("advanced.generation-threads", 0, Validators.NON_NEGATIVE_INTEGER),
+        AUTOSAVE_CHUNKS_PER_TICK("advanced.autosave-chunks-per-tick", 100,
+                Validators.POSITIVE_INTEGER),
         PROFILE_LOOKUP_TIMEOUT("advanced.profile-lookup-timeout", 5,
                 Validators.NON_NEGATIVE_INTEGER),
         SUGGEST_PLAYER_NAMES_WHEN_NULL_TAB_COMPLETIONS(
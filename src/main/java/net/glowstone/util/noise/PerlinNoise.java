@@ -5,6 +5,12 @@ import org.bukkit.util.noise.PerlinNoiseGenerator;
 
 public class PerlinNoise extends PerlinNoiseGenerator {
 
+    /**
+     * The Y and Z axes of the grid being generated, one pair per thread.
+     */
+    private static final ThreadLocal<Axis[]> AXES =
+            ThreadLocal.withInitial(() -> new Axis[]{new Axis(), new Axis()});
+
     /**
      * Creates an instance using the given PRNG.
      * @param rand the PRNG used to generate the seed permutation
@@ -67,6 +73,11 @@ public class PerlinNoise extends PerlinNoiseGenerator {
 
     protected double[] get2dNoise(double[] noise, double x, double z, int sizeX, int sizeZ,
         double scaleX, double scaleZ, double amplitude) {
+        Axis axisZ = AXES.get()[1];
+        axisZ.fill(z + offsetZ, scaleZ, sizeZ);
+        int[] cellsZ = axisZ.cells;
+        double[] offsetsZ = axisZ.offsets;
+        double[] fadesZ = axisZ.fades;
         int index = 0;
         for (int i = 0; i < sizeX; i++) {
             double dx = x + offsetX + i * scaleX;
@@ -74,21 +85,18 @@ public class PerlinNoise extends PerlinNoiseGenerator {
             int ix = floorX & 255;
             dx -= floorX;
             double fx = fade(dx);
+            int a = perm[ix];
+            int b = perm[ix + 1];
             for (int j = 0; j < sizeZ; j++) {
-                double dz = z + offsetZ + j * scaleZ;
-                int floorZ = floor(dz);
-                int iz = floorZ & 255;
-                dz -= floorZ;
-                double fz = fade(dz);
+                int iz = cellsZ[j];
+                double dz = offsetsZ[j];
                 // Hash coordinates of the square corners
-                int a = perm[ix];
                 int aa = perm[a] + iz;
-                int b = perm[ix + 1];
                 int ba = perm[b] + iz;
                 double x1 = lerp(fx, grad(perm[aa], dx, 0, dz), grad(perm[ba], dx - 1, 0, dz));
                 double x2 = lerp(fx, grad(perm[aa + 1], dx, 0, dz - 1),
                     grad(perm[ba + 1], dx - 1, 0, dz - 1));
-                noise[index++] += lerp(fz, x1, x2) * amplitude;
+                noise[index++] += lerp(fadesZ[j], x1, x2) * amplitude;
             }
         }
         return noise;
@@ -96,6 +104,17 @@ public class PerlinNoise extends PerlinNoiseGenerator {
 
     protected double[] get3dNoise(double[] noise, double x, double y, double z, int sizeX,
         int sizeY, int sizeZ, double scaleX, double scaleY, double scaleZ, double amplitude) {
+        Axis[] axes = AXES.get();
+        Axis axisY = axes[0];
+        Axis axisZ = axes[1];
+        axisY.fill(y + offsetY, scaleY, sizeY);
+        axisZ.fill(z + offsetZ, scaleZ, sizeZ);
+        int[] cellsY = axisY.cells;
+        double[] offsetsY = axisY.offsets;
+        double[] fadesY = axisY.fades;
+        int[] cellsZ = axisZ.cells;
+        double[] offsetsZ = axisZ.offsets;
+        double[] fadesZ = axisZ.fades;
         int n = -1;
         double x1 = 0;
         double x2 = 0;
@@ -108,25 +127,24 @@ public class PerlinNoise extends PerlinNoiseGenerator {
             int ix = floorX & 255;
             dx -= floorX;
             double fx = fade(dx);
+            int permA = perm[ix];
+            int permB = perm[ix + 1];
             for (int j = 0; j < sizeZ; j++) {
-                double dz = z + offsetZ + j * scaleZ;
-                int floorZ = floor(dz);
-                int iz = floorZ & 255;
-                dz -= floorZ;
-                double fz = fade(dz);
+                int iz = cellsZ[j];
+                double dz = offsetsZ[j];
+                double fz = fadesZ[j];
                 for (int k = 0; k < sizeY; k++) {
-                    double dy = y + offsetY + k * scaleY;
-                    int floorY = floor(dy);
-                    int iy = floorY & 255;
-                    dy -= floorY;
-                    double fy = fade(dy);
+                    int iy = cellsY[k];
+                    // the corners are only recomputed when entering a new cell, so the offset
+                    // within the cell where that happens is used for the rest of it
                     if (k == 0 || iy != n) {
                         n = iy;
+                        double dy = offsetsY[k];
                         // Hash coordinates of the cube corners
-                        int a = perm[ix] + iy;
+                        int a = permA + iy;
                         int aa = perm[a] + iz;
                         int ab = perm[a + 1] + iz;
-                        int b = perm[ix + 1] + iy;
+                        int b = permB + iy;
                         int ba = perm[b] + iz;
                         int bb = perm[b + 1] + iz;
                         x1 = lerp(fx, grad(perm[aa], dx, dy, dz), grad(perm[ba], dx - 1, dy, dz));
@@ -137,6 +155,7 @@ public class PerlinNoise extends PerlinNoiseGenerator {
                         x4 = lerp(fx, grad(perm[ab + 1], dx, dy - 1, dz - 1),
                             grad(perm[bb + 1], dx - 1, dy - 1, dz - 1));
                     }
+                    double fy = fadesY[k];
                     double y1 = lerp(fy, x1, x2);
                     double y2 = lerp(fy, x3, x4);
 
@@ -146,4 +165,33 @@ public class PerlinNoise extends PerlinNoiseGenerator {
         }
         return noise;
     }
+
+    /**
+     * The lattice cells, the offsets within them and their faded values of evenly spaced
+     * coordinates along one axis. They only depend on the coordinate along that axis, so
+     * computing them once per axis rather than once per grid point removes most of the work
+     * from the inner loops.
+     */
+    private static final class Axis {
+
+        int[] cells = new int[0];
+        double[] offsets = new double[0];
+        double[] fades = new double[0];
+
+        void fill(double start, double scale, int size) {
+            if (cells.length < size) {
+                cells = new int[size];
+                offsets = new double[size];
+                fades = new double[size];
+            }
+            for (int i = 0; i < size; i++) {
+                double d = start + i * scale;
+                int floored = floor(d);
+                cells[i] = floored & 255;
+                d -= floored;
+                offsets[i] = d;
+                fades[i] = fade(d);
+            }
+        }
+    }
 }
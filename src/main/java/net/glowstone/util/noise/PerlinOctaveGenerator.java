@@ -1,5 +1,6 @@
 package net.glowstone.util.noise;
 
+import java.util.Arrays;
 import java.util.Random;
 import lombok.Getter;
 import org.bukkit.util.noise.NoiseGenerator;
@@ -13,7 +14,11 @@ public class PerlinOctaveGenerator extends OctaveGenerator {
     protected final int sizeY;
     @Getter
     protected final int sizeZ;
-    protected double[] noise;
+    /**
+     * The array the noise is generated into, one per thread so that several chunks can be
+     * generated at once.
+     */
+    private final ThreadLocal<double[]> noise;
 
     public PerlinOctaveGenerator(Random rand, int octaves, int sizeX, int sizeZ) {
         this(rand, octaves, sizeX, 1, sizeZ);
@@ -38,7 +43,8 @@ public class PerlinOctaveGenerator extends OctaveGenerator {
         this.sizeX = sizeX;
         this.sizeY = sizeY;
         this.sizeZ = sizeZ;
-        noise = new double[sizeX * sizeY * sizeZ];
+        int size = sizeX * sizeY * sizeZ;
+        noise = ThreadLocal.withInitial(() -> new double[size]);
     }
 
     protected static NoiseGenerator[] createOctaves(Random rand, int octaves) {
@@ -51,6 +57,17 @@ public class PerlinOctaveGenerator extends OctaveGenerator {
         return result;
     }
 
+    /**
+     * Returns the calling thread's noise array, cleared.
+     *
+     * @return the noise array, which is overwritten by this thread's next call
+     */
+    protected double[] getNoiseArray() {
+        double[] noise = this.noise.get();
+        Arrays.fill(noise, 0);
+        return noise;
+    }
+
     protected static long floor(double x) {
         return x >= 0 ? (long) x : (long) x - 1;
     }
@@ -77,13 +94,11 @@ public class PerlinOctaveGenerator extends OctaveGenerator {
      * @param z the starting Z coordinate
      * @param lacunarity layer n's frequency as a fraction of layer {@code n - 1}'s frequency
      * @param persistence layer n's amplitude as a multiple of layer {@code n - 1}'s amplitude
-     * @return The noise array
+     * @return The noise array, which is reused by the calling thread's next call
      */
     public double[] getFractalBrownianMotion(double x, double y, double z, double lacunarity,
             double persistence) {
-        for (int i = 0; i < noise.length; i++) {
-            noise[i] = 0;
-        }
+        double[] noise = getNoiseArray();
 
         double freq = 1;
         double amp = 1;
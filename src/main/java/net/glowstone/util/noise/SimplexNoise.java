@@ -21,10 +21,11 @@ public class SimplexNoise extends PerlinNoise {
     protected static final double G3 = 1.0 / 6.0;
     protected static final double G32 = G3 * 2.0;
     protected static final double G33 = G3 * 3.0 - 1.0;
-    private static Grad[] grad3 = {new Grad(1, 1, 0), new Grad(-1, 1, 0), new Grad(1, -1, 0),
-        new Grad(-1, -1, 0),
-        new Grad(1, 0, 1), new Grad(-1, 0, 1), new Grad(1, 0, -1), new Grad(-1, 0, -1),
-        new Grad(0, 1, 1), new Grad(0, -1, 1), new Grad(0, 1, -1), new Grad(0, -1, -1)};
+    // the gradients of the 12 edges of a cube, split by component to avoid an indirection per
+    // corner in the inner loop
+    private static final double[] GRAD_X = {1, -1, 1, -1, 1, -1, 1, -1, 0, 0, 0, 0};
+    private static final double[] GRAD_Y = {1, 1, -1, -1, 0, 0, 0, 0, 1, -1, 1, -1};
+    private static final double[] GRAD_Z = {0, 0, 0, 0, 1, 1, -1, -1, 1, 1, -1, -1};
     protected final int[] permMod12 = new int[512];
 
     /**
@@ -43,12 +44,12 @@ public class SimplexNoise extends PerlinNoise {
         return x > 0 ? (int) x : (int) x - 1;
     }
 
-    protected static double dot(Grad g, double x, double y) {
-        return g.x * x + g.y * y;
+    protected static double dot(int gradient, double x, double y) {
+        return GRAD_X[gradient] * x + GRAD_Y[gradient] * y;
     }
 
-    protected static double dot(Grad g, double x, double y, double z) {
-        return g.x * x + g.y * y + g.z * z;
+    protected static double dot(int gradient, double x, double y, double z) {
+        return GRAD_X[gradient] * x + GRAD_Y[gradient] * y + GRAD_Z[gradient] * z;
     }
 
     @Override
@@ -144,7 +145,7 @@ public class SimplexNoise extends PerlinNoise {
             n0 = 0.0;
         } else {
             t0 *= t0;
-            n0 = t0 * t0 * dot(grad3[gi0], x0, y0); // (x,y) of grad3 used for 2D gradient
+            n0 = t0 * t0 * dot(gi0, x0, y0); // (x,y) of the 3D gradients used for 2D
         }
 
         double t1 = 0.5 - x1 * x1 - y1 * y1;
@@ -153,7 +154,7 @@ public class SimplexNoise extends PerlinNoise {
             n1 = 0.0;
         } else {
             t1 *= t1;
-            n1 = t1 * t1 * dot(grad3[gi1], x1, y1);
+            n1 = t1 * t1 * dot(gi1, x1, y1);
         }
 
         double t2 = 0.5 - x2 * x2 - y2 * y2;
@@ -162,7 +163,7 @@ public class SimplexNoise extends PerlinNoise {
             n2 = 0.0;
         } else {
             t2 *= t2;
-            n2 = t2 * t2 * dot(grad3[gi2], x2, y2);
+            n2 = t2 * t2 * dot(gi2, x2, y2);
         }
 
         // Add contributions from each corner to get the final noise value.
@@ -269,7 +270,7 @@ public class SimplexNoise extends PerlinNoise {
             n0 = 0.0;
         } else {
             t0 *= t0;
-            n0 = t0 * t0 * dot(grad3[gi0], x0, y0, z0);
+            n0 = t0 * t0 * dot(gi0, x0, y0, z0);
         }
 
         double t1 = 0.5 - x1 * x1 - y1 * y1 - z1 * z1;
@@ -278,7 +279,7 @@ public class SimplexNoise extends PerlinNoise {
             n1 = 0.0;
         } else {
             t1 *= t1;
-            n1 = t1 * t1 * dot(grad3[gi1], x1, y1, z1);
+            n1 = t1 * t1 * dot(gi1, x1, y1, z1);
         }
 
         double t2 = 0.5 - x2 * x2 - y2 * y2 - z2 * z2;
@@ -287,7 +288,7 @@ public class SimplexNoise extends PerlinNoise {
             n2 = 0.0;
         } else {
             t2 *= t2;
-            n2 = t2 * t2 * dot(grad3[gi2], x2, y2, z2);
+            n2 = t2 * t2 * dot(gi2, x2, y2, z2);
         }
 
         double x3 = x0 + G33; // Offsets for last corner in (x,y,z) coords
@@ -299,26 +300,11 @@ public class SimplexNoise extends PerlinNoise {
             n3 = 0.0;
         } else {
             t3 *= t3;
-            n3 = t3 * t3 * dot(grad3[gi3], x3, y3, z3);
+            n3 = t3 * t3 * dot(gi3, x3, y3, z3);
         }
 
         // Add contributions from each corner to get the final noise value.
         // The result is scaled to stay just inside [-1,1]
         return 32.0 * (n0 + n1 + n2 + n3);
     }
-
-    // Inner class to speed up gradient computations
-    // (array access is a lot slower than member access)
-    private static class Grad {
-
-        public double x;
-        public double y;
-        public double z;
-
-        Grad(double x, double y, double z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-    }
 }
@@ -0,0 +1,81 @@
+package net.glowstone.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import net.glowstone.GlowWorld;
+import net.glowstone.chunk.ChunkSection;
+import net.glowstone.chunk.GlowChunk;
+import net.glowstone.entity.GlowPlayer;
+import net.glowstone.net.message.play.game.BlockChangeMessage;
+import net.glowstone.net.message.play.game.ChunkDataMessage;
+import org.bukkit.Material;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class BlockEditSessionTest {
+
+    private GlowChunk chunk;
+    private GlowPlayer viewer;
+    private BlockEditSession session;
+
+    @Before
+    public void setUp() {
+        GlowWorld world = Mockito.mock(GlowWorld.class);
+        chunk = new GlowChunk(world, 1, 2);
+        chunk.initializeSections(new ChunkSection[GlowChunk.SEC_COUNT]);
+        when(world.getChunkAt(1, 2)).thenReturn(chunk);
+        viewer = Mockito.mock(GlowPlayer.class);
+        chunk.addViewer(viewer);
+        session = new BlockEditSession(world, false);
+    }
+
+    @Test
+    public void testBlocksAreWrittenImmediatelyAndSentOnFlush() {
+        session.setTypeIdAndData(17, 64, 33, Material.WOOL.getId(), 14);
+        session.setType(17, 64, 33, Material.STONE);
+        session.setTypeIdAndData(18, 70, 34, Material.WOOL.getId(), 3);
+        assertEquals(Material.STONE.getId(), chunk.getType(1, 1, 64));
+        assertEquals(0, chunk.getMetaData(1, 1, 64));
+        assertEquals(3, chunk.getMetaData(2, 2, 70));
+        assertEquals(71, chunk.getHeight(2, 2));
+        assertEquals(2, session.getChangeCount());
+        verify(viewer, never()).sendBlockChangeForce(any());
+
+        session.flush();
+        verify(viewer).sendBlockChangeForce(
+                new BlockChangeMessage(17, 64, 33, Material.STONE.getId(), 0));
+        verify(viewer).sendBlockChangeForce(
+                new BlockChangeMessage(18, 70, 34, Material.WOOL.getId(), 3));
+        assertEquals(0, session.getChangeCount());
+    }
+
+    @Test
+    public void testManyChangesResendChunk() {
+        for (int y = 0; y < 100; y++) {
+            session.setType(20, y, 40, Material.STONE);
+        }
+        session.flush();
+        verify(viewer, never()).sendBlockChangeForce(any());
+        verify(viewer, times(1)).sendAfterBlockChanges(any(ChunkDataMessage.class));
+    }
+
+    @Test
+    public void testPendingViewerIsSentEveryChange() {
+        GlowPlayer waiting = Mockito.mock(GlowPlayer.class);
+        chunk.addPendingViewer(waiting);
+        for (int y = 0; y < 100; y++) {
+            session.setType(20, y, 40, Material.STONE);
+        }
+        session.flush();
+        // the chunk it will be sent may have been serialized before the changes
+        verify(waiting, times(100)).sendBlockChangeForce(any());
+        verify(waiting, never()).sendAfterBlockChanges(any());
+        verify(viewer, never()).sendBlockChangeForce(any());
+    }
+}
@@ -0,0 +1,65 @@
+package net.glowstone.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import net.glowstone.block.BlockTickScheduler.ScheduledTick;
+import org.junit.Test;
+
+public class BlockTickSchedulerTest {
+
+    @Test
+    public void testPackRoundTrip() {
+        long position = BlockTickScheduler.pack(-30_000_000, 255, 29_999_999);
+        assertEquals(-30_000_000, BlockTickScheduler.unpackX(position));
+        assertEquals(255, BlockTickScheduler.unpackY(position));
+        assertEquals(29_999_999, BlockTickScheduler.unpackZ(position));
+    }
+
+    @Test
+    public void testTicksAreDueInOrder() {
+        BlockTickScheduler scheduler = new BlockTickScheduler();
+        scheduler.schedule(1, 64, 1, 2, 1);
+        scheduler.schedule(2, 64, 2, 2, 0);
+        scheduler.schedule(3, 64, 3, 1, 0);
+
+        List<ScheduledTick> first = scheduler.pollDue();
+        assertEquals(1, first.size());
+        assertEquals(3, first.get(0).getX());
+
+        List<ScheduledTick> second = scheduler.pollDue();
+        assertEquals(2, second.size());
+        assertEquals(2, second.get(0).getX());
+        assertEquals(1, second.get(1).getX());
+
+        assertTrue(scheduler.pollDue().isEmpty());
+    }
+
+    @Test
+    public void testCancel() {
+        BlockTickScheduler scheduler = new BlockTickScheduler();
+        scheduler.schedule(1, 64, 1, 1, 0);
+        assertFalse(scheduler.schedule(1, 64, 1, 5, 0));
+        scheduler.cancel(1, 64, 1);
+        assertFalse(scheduler.isScheduled(1, 64, 1));
+        assertTrue(scheduler.pollDue().isEmpty());
+    }
+
+    @Test
+    public void testChunkOwnership() {
+        BlockTickScheduler scheduler = new BlockTickScheduler();
+        scheduler.schedule(-1, 10, 17, 4, 3);
+        scheduler.schedule(20, 10, 17, 4, 0);
+
+        List<ScheduledTick> ticks = scheduler.getScheduledTicks(-1, 1);
+        assertEquals(1, ticks.size());
+        assertEquals(4, scheduler.getDelay(ticks.get(0)));
+        assertEquals(3, ticks.get(0).getPriority());
+
+        scheduler.unloadChunk(-1, 1);
+        assertFalse(scheduler.isScheduled(-1, 10, 17));
+        assertTrue(scheduler.isScheduled(20, 10, 17));
+    }
+}
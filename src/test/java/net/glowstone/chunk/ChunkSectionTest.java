@@ -0,0 +1,99 @@
+package net.glowstone.chunk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+public class ChunkSectionTest {
+
+    private static int bitsPerBlock(ChunkSection section) {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            section.writeToBuf(buf, true);
+            return buf.getUnsignedByte(0);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testLoadTypeArrayRoundTrip() {
+        char[] types = new char[ChunkSection.ARRAY_SIZE];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = (char) ((i % 40) << 4);
+        }
+        ChunkSection section = new ChunkSection(types.clone());
+        assertArrayEquals(types, section.getTypes());
+        assertEquals(6, bitsPerBlock(section));
+    }
+
+    @Test
+    public void testLoadTypeArrayGlobalPalette() {
+        char[] types = new char[ChunkSection.ARRAY_SIZE];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = (char) i;
+        }
+        ChunkSection section = new ChunkSection(types.clone());
+        assertArrayEquals(types, section.getTypes());
+        assertEquals(ChunkSection.GLOBAL_PALETTE_BITS_PER_BLOCK, bitsPerBlock(section));
+    }
+
+    @Test
+    public void testSetTypeGrowsPalette() {
+        ChunkSection section = new ChunkSection();
+        for (int i = 1; i <= 300; i++) {
+            section.setType(i & 0xF, i >> 8, i >> 4 & 0xF, (char) (i << 4));
+            if (i == 15) {
+                assertEquals(4, bitsPerBlock(section));
+            } else if (i == 16) {
+                assertEquals(5, bitsPerBlock(section));
+            } else if (i == 255) {
+                assertEquals(8, bitsPerBlock(section));
+            } else if (i == 256) {
+                assertEquals(ChunkSection.GLOBAL_PALETTE_BITS_PER_BLOCK, bitsPerBlock(section));
+            }
+        }
+        for (int i = 1; i <= 300; i++) {
+            assertEquals(i << 4, section.getType(i & 0xF, i >> 8, i >> 4 & 0xF));
+        }
+        assertEquals(0, section.getType(0, 0, 0));
+    }
+
+    @Test
+    public void testCountAndSnapshot() {
+        ChunkSection section = new ChunkSection();
+        assertTrue(section.isEmpty());
+        section.setType(1, 2, 3, (char) 16);
+        section.setType(1, 2, 3, (char) 32);
+        ChunkSection snapshot = section.snapshot();
+        section.setType(1, 2, 3, (char) 0);
+        assertTrue(section.isEmpty());
+        assertFalse(snapshot.isEmpty());
+        assertEquals(32, snapshot.getType(1, 2, 3));
+    }
+
+    @Test
+    public void testSnapshotIsCopiedOnWrite() {
+        ChunkSection section = new ChunkSection();
+        section.setType(4, 5, 6, (char) 16);
+        section.setBlockLight(4, 5, 6, (byte) 7);
+        ChunkSection snapshot = section.snapshot();
+
+        section.setBlockLight(4, 5, 6, (byte) 12);
+        section.setSkyLight(4, 5, 6, (byte) 3);
+        section.setType(4, 5, 6, (char) 32);
+        assertEquals(7, snapshot.getBlockLight(4, 5, 6));
+        assertEquals(ChunkSection.DEFAULT_SKYLIGHT, snapshot.getSkyLight(4, 5, 6));
+        assertEquals(16, snapshot.getType(4, 5, 6));
+
+        snapshot.setType(1, 1, 1, (char) 48);
+        assertEquals(0, section.getType(1, 1, 1));
+        assertEquals(32, section.getType(4, 5, 6));
+        assertEquals(12, section.getBlockLight(4, 5, 6));
+    }
+}
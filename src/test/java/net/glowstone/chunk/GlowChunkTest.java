@@ -0,0 +1,124 @@
+package net.glowstone.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import net.glowstone.GlowWorld;
+import net.glowstone.block.BlockTickScheduler;
+import net.glowstone.chunk.GlowChunk.Key;
+import net.glowstone.entity.GlowPlayer;
+import net.glowstone.net.message.play.game.ChunkDataMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class GlowChunkTest {
+
+    private GlowWorld world;
+    private BlockTickScheduler blockTicks;
+    private GlowChunk chunk;
+
+    @Before
+    public void setUp() {
+        world = Mockito.mock(GlowWorld.class);
+        blockTicks = new BlockTickScheduler((chunkX, chunkZ) -> {
+            if (chunkX == chunk.getX() && chunkZ == chunk.getZ()) {
+                chunk.markChanged();
+            }
+        });
+        when(world.getBlockTicks()).thenReturn(blockTicks);
+        chunk = new GlowChunk(world, 1, 2);
+        chunk.initializeSections(new ChunkSection[GlowChunk.SEC_COUNT]);
+    }
+
+    @Test
+    public void testDirtyUntilSaved() {
+        assertTrue(chunk.isDirty());
+        chunk.markSaved(chunk.getVersion());
+        assertFalse(chunk.isDirty());
+
+        chunk.setBiome(3, 4, 5);
+        assertTrue(chunk.isDirty());
+        chunk.markSaved(chunk.getVersion());
+        assertFalse(chunk.isDirty());
+
+        chunk.setPopulated(true);
+        assertTrue(chunk.isDirty());
+    }
+
+    @Test
+    public void testChangedDuringSaveStaysDirty() {
+        int version = chunk.getVersion();
+        chunk.setBiome(0, 0, 1);
+        chunk.markSaved(version);
+        assertTrue(chunk.isDirty());
+    }
+
+    @Test
+    public void testScheduledTicksAreDirtyUntilSaved() {
+        chunk.markSaved(chunk.getVersion());
+        blockTicks.schedule(16, 64, 32, 5, 0);
+        assertTrue(chunk.isDirty());
+        chunk.markSaved(chunk.getVersion());
+        assertFalse(chunk.isDirty());
+
+        blockTicks.cancel(16, 64, 32);
+        assertTrue(chunk.isDirty());
+        chunk.markSaved(chunk.getVersion());
+        assertFalse(chunk.isDirty());
+
+        blockTicks.schedule(16, 64, 32, 1, 0);
+        chunk.markSaved(chunk.getVersion());
+        blockTicks.pollDue();
+        assertTrue(chunk.isDirty());
+    }
+
+    @Test
+    public void testCapturedMessageIgnoresLaterChanges() {
+        chunk.setType(1, 1, 10, 1);
+        Supplier<ChunkDataMessage> captured = chunk.captureMessage(true);
+        chunk.setType(1, 1, 10, 0);
+        chunk.setType(1, 1, 40, 1);
+
+        ChunkDataMessage message = captured.get();
+        ChunkDataMessage current = chunk.toMessage(true);
+        try {
+            assertEquals(1, message.getPrimaryMask());
+            assertEquals(1 << 2, current.getPrimaryMask());
+        } finally {
+            message.getData().release();
+            current.getData().release();
+        }
+    }
+
+    @Test
+    public void testViewersAreFoundWhenLoaded() {
+        Key key = Key.of(3, 4);
+        GlowPlayer viewer = Mockito.mock(GlowPlayer.class);
+        GlowPlayer waiting = Mockito.mock(GlowPlayer.class);
+        GlowPlayer elsewhere = Mockito.mock(GlowPlayer.class);
+        when(viewer.canSeeChunk(key)).thenReturn(true);
+        when(waiting.isChunkPending(key)).thenReturn(true);
+        when(world.getRawPlayers()).thenReturn(Arrays.asList(viewer, waiting, elsewhere));
+
+        GlowChunk loaded = new GlowChunk(world, 3, 4);
+        loaded.initializeSections(new ChunkSection[GlowChunk.SEC_COUNT]);
+        assertEquals(1, loaded.getRawViewers().size());
+        assertTrue(loaded.getRawViewers().contains(viewer));
+        assertEquals(1, loaded.getRawPendingViewers().size());
+        assertTrue(loaded.getRawPendingViewers().contains(waiting));
+
+        // once sent, a pending viewer is an ordinary one
+        loaded.addViewer(waiting);
+        assertTrue(loaded.getRawViewers().contains(waiting));
+        assertTrue(loaded.getRawPendingViewers().isEmpty());
+
+        loaded.removeViewer(viewer);
+        loaded.removeViewer(waiting);
+        assertTrue(loaded.getRawViewers().isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package net.glowstone.entity;
+
+import static net.glowstone.entity.EntityCandidates.RESCAN_INTERVAL;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityCandidatesTest {
+
+    private final Set<GlowEntity> inView = new HashSet<>();
+    private final Set<GlowEntity> untrackable = new HashSet<>();
+    private final List<GlowEntity> checked = new ArrayList<>();
+    private final List<GlowEntity> spawned = new ArrayList<>();
+    private EntityCandidates candidates;
+
+    @Before
+    public void setUp() {
+        candidates = new EntityCandidates();
+    }
+
+    private boolean settle(GlowEntity entity) {
+        checked.add(entity);
+        if (untrackable.contains(entity)) {
+            return true;
+        }
+        if (inView.contains(entity)) {
+            spawned.add(entity);
+            return true;
+        }
+        return false;
+    }
+
+    private void update(int tick) {
+        checked.clear();
+        candidates.update(tick, this::settle);
+    }
+
+    @Test
+    public void testOfferedEntityInViewIsSpawnedStraightAway() {
+        GlowEntity entity = mock(GlowEntity.class);
+        inView.add(entity);
+        candidates.offer(entity);
+        update(1);
+        assertEquals(1, spawned.size());
+        assertEquals(0, candidates.size());
+    }
+
+    @Test
+    public void testWaitingEntityIsOnlyCheckedOnRescanTicks() {
+        GlowEntity entity = mock(GlowEntity.class);
+        candidates.offer(entity);
+        update(1);
+        assertEquals(1, candidates.size());
+
+        inView.add(entity);
+        for (int tick = 2; tick < RESCAN_INTERVAL; tick++) {
+            update(tick);
+            assertEquals(0, checked.size());
+        }
+        update(RESCAN_INTERVAL);
+        assertEquals(1, checked.size());
+        assertEquals(1, spawned.size());
+        assertEquals(0, candidates.size());
+    }
+
+    @Test
+    public void testAwaitedEntityWaitsForRescan() {
+        GlowEntity entity = mock(GlowEntity.class);
+        inView.add(entity);
+        candidates.await(entity);
+        update(1);
+        assertEquals(0, spawned.size());
+        update(2 * RESCAN_INTERVAL);
+        assertEquals(1, spawned.size());
+    }
+
+    @Test
+    public void testUntrackableEntitiesAreDropped() {
+        GlowEntity offered = mock(GlowEntity.class);
+        GlowEntity waiting = mock(GlowEntity.class);
+        candidates.offer(offered);
+        candidates.await(waiting);
+        untrackable.add(offered);
+        untrackable.add(waiting);
+        update(-RESCAN_INTERVAL);
+        assertEquals(0, candidates.size());
+        assertEquals(0, spawned.size());
+    }
+}
@@ -0,0 +1,161 @@
+package net.glowstone.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.flowpowered.network.Message;
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import net.glowstone.entity.objects.GlowEnderCrystal;
+import net.glowstone.entity.physics.BoundingBox;
+import net.glowstone.net.GlowSession;
+import net.glowstone.net.message.EncodedMessage;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.Vector;
+import org.junit.Test;
+
+public class EntityManagerTest extends GlowEntityTest<GlowEnderCrystal> {
+
+    public EntityManagerTest() {
+        super(GlowEnderCrystal::new);
+    }
+
+    private GlowEnderCrystal spawn(double x, double y, double z) {
+        return new GlowEnderCrystal(new Location(world, x, y, z));
+    }
+
+    private List<Entity> inside(double minX, double minY, double minZ, double maxX, double maxY,
+            double maxZ, GlowEntity except) {
+        return entityManager.getEntitiesInside(BoundingBox.fromCorners(
+                new Vector(minX, minY, minZ), new Vector(maxX, maxY, maxZ)), except);
+    }
+
+    @Test
+    public void testFindsOnlyEntitiesInsideBox() {
+        GlowEnderCrystal near = spawn(100.5, 64, 100.5);
+        GlowEnderCrystal far = spawn(500.5, 64, 500.5);
+
+        List<Entity> found = inside(90, 60, 90, 110, 70, 110, null);
+        assertTrue(found.contains(near));
+        assertFalse(found.contains(far));
+        assertFalse(found.contains(entity));
+        assertEquals(1, found.size());
+    }
+
+    @Test
+    public void testExcludesGivenEntity() {
+        GlowEnderCrystal first = spawn(100.5, 64, 100.5);
+        GlowEnderCrystal second = spawn(101.5, 64, 101.5);
+
+        List<Entity> found = inside(90, 60, 90, 110, 70, 110, first);
+        assertFalse(found.contains(first));
+        assertTrue(found.contains(second));
+    }
+
+    @Test
+    public void testFindsBoundingBoxReachingIntoNeighborSection() {
+        // the crystal is filed under the section from x = 16, but its box reaches back to 15
+        GlowEnderCrystal crystal = spawn(16.5, 64, 8.5);
+
+        assertTrue(inside(14, 64, 8, 15.75, 65, 9, null).contains(crystal));
+        assertFalse(inside(10, 64, 8, 15, 65, 9, null).contains(crystal));
+    }
+
+    @Test
+    public void testMovedEntityIsReindexed() {
+        GlowEnderCrystal crystal = spawn(100.5, 64, 100.5);
+        crystal.setRawLocation(new Location(world, 300.5, 64, 300.5), false);
+
+        assertFalse(inside(90, 60, 90, 110, 70, 110, null).contains(crystal));
+        assertTrue(inside(290, 60, 290, 310, 70, 310, null).contains(crystal));
+    }
+
+    @Test
+    public void testUnregisteredEntityIsNotFound() {
+        GlowEnderCrystal crystal = spawn(100.5, 64, 100.5);
+        entityManager.unregister(crystal);
+
+        assertFalse(inside(90, 60, 90, 110, 70, 110, null).contains(crystal));
+        // moving an unregistered entity doesn't file it again
+        crystal.setRawLocation(new Location(world, 102.5, 64, 102.5), false);
+        assertFalse(inside(90, 60, 90, 110, 70, 110, null).contains(crystal));
+    }
+
+    @Test
+    public void testLargeBoxFindsEntitiesInAllSections() {
+        GlowEnderCrystal near = spawn(100.5, 64, 100.5);
+        GlowEnderCrystal far = spawn(-50000.5, 200, 50000.5);
+
+        List<Entity> found = inside(-1e6, 0, -1e6, 1e6, 256, 1e6, null);
+        assertTrue(found.contains(near));
+        assertTrue(found.contains(far));
+        assertTrue(found.contains(entity));
+    }
+
+    private EncodedMessage encodedUpdate(GlowEntity entity) {
+        List<Message> messages = entity.createUpdateMessage(mock(GlowSession.class));
+        EncodedMessage found = null;
+        for (Message message : messages) {
+            if (message instanceof EncodedMessage) {
+                assertNull(found);
+                found = (EncodedMessage) message;
+            }
+        }
+        assertNotNull(found);
+        return found;
+    }
+
+    @Test
+    public void testSharedUpdateIsReleasedOnReset() {
+        GlowEnderCrystal crystal = spawn(100.5, 64, 100.5);
+        crystal.reset();
+        crystal.setVelocity(new Vector(0, 1, 0));
+
+        EncodedMessage first = encodedUpdate(crystal);
+        EncodedMessage second = encodedUpdate(crystal);
+        // both viewers are sent duplicates of the buffer held by the entity
+        ByteBuf shared = first.content().unwrap();
+        assertSame(shared, second.content().unwrap());
+        assertEquals(3, shared.refCnt());
+        first.release();
+        second.release();
+        assertEquals(1, shared.refCnt());
+        crystal.reset();
+        assertEquals(0, shared.refCnt());
+    }
+
+    @Test
+    public void testSharedUpdateIsInvalidatedOnRegisterAndUnregister() {
+        GlowEnderCrystal crystal = spawn(100.5, 64, 100.5);
+        crystal.reset();
+        crystal.setVelocity(new Vector(0, 1, 0));
+
+        EncodedMessage beforeRemoval = encodedUpdate(crystal);
+        ByteBuf removed = beforeRemoval.content().unwrap();
+        entityManager.unregister(crystal);
+        // only the viewer's duplicate is left
+        assertEquals(1, removed.refCnt());
+        beforeRemoval.release();
+        assertEquals(0, removed.refCnt());
+
+        EncodedMessage beforeAdding = encodedUpdate(crystal);
+        ByteBuf added = beforeAdding.content().unwrap();
+        entityManager.register(crystal);
+        assertEquals(1, added.refCnt());
+        beforeAdding.release();
+
+        EncodedMessage afterAdding = encodedUpdate(crystal);
+        ByteBuf fresh = afterAdding.content().unwrap();
+        assertNotSame(added, fresh);
+        afterAdding.release();
+        crystal.reset();
+        assertEquals(0, fresh.refCnt());
+    }
+}
@@ -113,6 +113,8 @@ public abstract class GlowEntityTest<T extends GlowEntity> {
         when(server.getWorlds()).thenReturn(Collections.singletonList(world));
         when(world.getBlockAt(any(Location.class))).thenReturn(block);
         when(block.getType()).thenReturn(Material.DIRT);
+        when(world.getBlockTypeIdAt(anyInt(), anyInt(), anyInt()))
+                .thenReturn(Material.DIRT.getId());
         when(block.getRelative(any(BlockFace.class))).thenReturn(block);
         when(world.getChunkAt(any(Location.class))).thenReturn(chunk);
         when(world.getChunkAt(any(Block.class))).thenReturn(chunk);
@@ -0,0 +1,96 @@
+package net.glowstone.entity.physics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+
+public class BlockCollisionTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * A floor below y = 64 and a wall one block thick at x = 10.
+     */
+    private final BlockCollision collision = new BlockCollision(
+            (x, y, z) -> y < 64 || x == 10);
+
+    private static EntityBoundingBox box(double x, double y, double z) {
+        EntityBoundingBox box = new EntityBoundingBox(0.5, 0.5);
+        box.setCenter(x, y, z);
+        return box;
+    }
+
+    @Test
+    public void testMovesFreelyInAir() {
+        collision.sweep(box(0.5, 70, 0.5), 0.3, -0.5, 0.2);
+        assertFalse(collision.isCollided());
+        assertEquals(0.3, collision.getMoveX(), DELTA);
+        assertEquals(-0.5, collision.getMoveY(), DELTA);
+        assertEquals(0.2, collision.getMoveZ(), DELTA);
+    }
+
+    @Test
+    public void testLandsOnFloor() {
+        collision.sweep(box(0.5, 64.5, 0.5), 0, -1, 0);
+        assertTrue(collision.isCollidedY());
+        assertFalse(collision.isCollidedX());
+        assertEquals(-0.5, collision.getMoveY(), DELTA);
+        assertEquals(0, collision.getBlockX());
+        assertEquals(63, collision.getBlockY());
+        assertEquals(0, collision.getBlockZ());
+
+        // resting on the floor, gravity doesn't move it
+        collision.sweep(box(0.5, 64, 0.5), 0, -0.04, 0);
+        assertTrue(collision.isCollidedY());
+        assertEquals(0, collision.getMoveY(), DELTA);
+    }
+
+    @Test
+    public void testFastMoveStopsAtThinWall() {
+        // the point 20 blocks ahead is past the wall, but the wall is in the way
+        collision.sweep(box(5.5, 70, 0.5), 20, 0, 0);
+        assertTrue(collision.isCollidedX());
+        assertEquals(10 - 5.75, collision.getMoveX(), DELTA);
+        assertEquals(10, collision.getBlockX());
+        assertEquals(70, collision.getBlockY());
+    }
+
+    @Test
+    public void testSlidesAlongWall() {
+        collision.sweep(box(9.5, 64, 0.5), 0.5, -0.1, 0.5);
+        assertTrue(collision.isCollidedX());
+        assertTrue(collision.isCollidedY());
+        assertFalse(collision.isCollidedZ());
+        assertEquals(0.25, collision.getMoveX(), DELTA);
+        assertEquals(0, collision.getMoveY(), DELTA);
+        assertEquals(0.5, collision.getMoveZ(), DELTA);
+    }
+
+    @Test
+    public void testSweepDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+        EntityBoundingBox box = box(9.5, 64.5, 0.5);
+
+        int ticks = 10_000;
+        for (int i = 0; i < ticks; i++) {
+            collision.sweep(box, 0.5, -1, 0.5);
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ticks; i++) {
+            collision.sweep(box, 0.5, -1, 0.5);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        // anything allocated per tick would take at least 16 bytes each time
+        assertTrue("allocated " + allocated + " bytes in " + ticks + " ticks",
+                allocated < ticks);
+    }
+}
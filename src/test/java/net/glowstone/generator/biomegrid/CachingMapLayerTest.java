@@ -0,0 +1,30 @@
+package net.glowstone.generator.biomegrid;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import net.glowstone.generator.biomegrid.WhittakerMapLayer.ClimateType;
+import org.junit.Test;
+
+public class CachingMapLayerTest {
+
+    private static MapLayer createLayer() {
+        MapLayer layer = new NoiseMapLayer(42);
+        layer = new WhittakerMapLayer(43, layer, ClimateType.WARM_WET);
+        layer = new ZoomMapLayer(44, layer);
+        layer = new ErosionMapLayer(45, layer);
+        layer = new ZoomMapLayer(46, layer);
+        return new SmoothMapLayer(47, layer);
+    }
+
+    @Test
+    public void testSameValuesAsUncached() {
+        MapLayer layer = createLayer();
+        MapLayer cached = new CachingMapLayer(createLayer(), 4);
+        int[][] areas = {{0, 0, 16, 16}, {-40, -3, 10, 10}, {-33, 31, 70, 2}, {5, -64, 1, 1},
+            {-2, -2, 16, 16}, {0, 0, 16, 16}};
+        for (int[] area : areas) {
+            assertArrayEquals(layer.generateValues(area[0], area[1], area[2], area[3]),
+                    cached.generateValues(area[0], area[1], area[2], area[3]));
+        }
+    }
+}
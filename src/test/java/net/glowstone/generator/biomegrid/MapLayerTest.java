@@ -0,0 +1,46 @@
+package net.glowstone.generator.biomegrid;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bukkit.World.Environment;
+import org.bukkit.WorldType;
+import org.junit.Test;
+
+public class MapLayerTest {
+
+    private static final int CHUNKS = 96;
+
+    private static int[] generate(MapLayer layer, int chunk) {
+        // neighbouring chunks, as a chunk generator asks for them
+        return layer.generateValues((chunk % 12) * 16 - 40, (chunk / 12) * 16 + 8, 16, 16);
+    }
+
+    @Test
+    public void testSameBiomesWhenGeneratedInParallel() throws Exception {
+        MapLayer serial = MapLayer.initialize(1234, Environment.NORMAL, WorldType.NORMAL)[0];
+        int[][] expected = new int[CHUNKS][];
+        for (int i = 0; i < CHUNKS; i++) {
+            expected[i] = generate(serial, i);
+        }
+
+        // a separate chain, so that nothing is served from the serial run's caches
+        MapLayer parallel = MapLayer.initialize(1234, Environment.NORMAL, WorldType.NORMAL)[0];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<int[]> actual = pool.submit(() -> IntStream.range(0, CHUNKS)
+                    .parallel()
+                    .mapToObj(i -> generate(parallel, i))
+                    .collect(Collectors.toList())).get(60, TimeUnit.SECONDS);
+            for (int i = 0; i < CHUNKS; i++) {
+                assertArrayEquals(expected[i], actual.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
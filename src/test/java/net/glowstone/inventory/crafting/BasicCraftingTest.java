@@ -5,8 +5,10 @@ import static org.junit.Assert.assertThat;
 
 import net.glowstone.testutils.ServerShim;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.ShapelessRecipe;
 import org.hamcrest.core.IsNull;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -39,4 +41,35 @@ public class BasicCraftingTest {
             is(recipe.getResult().getType()));
         assertThat("Crafting manager got wrong amount", 4, is(recipe.getResult().getAmount()));
     }
+
+    @Test
+    public void finds_shaped_recipe_at_any_position() {
+        ItemStack[] items = new ItemStack[9];
+        items[4] = new ItemStack(Material.WOOD, 1, (short) 0);
+        items[7] = new ItemStack(Material.WOOD, 1, (short) 0);
+        Recipe recipe = cm.getCraftingRecipe(items);
+        assertThat("Crafting manager did not get recipe", recipe, IsNull.notNullValue());
+        assertThat("Crafting manager got wrong material", Material.STICK,
+            is(recipe.getResult().getType()));
+
+        items[8] = new ItemStack(Material.WOOD, 1, (short) 0);
+        assertThat("Crafting manager matched extra items", cm.getCraftingRecipe(items),
+            IsNull.nullValue());
+    }
+
+    @Test
+    public void finds_recipe_added_after_lookup() {
+        ItemStack[] items = new ItemStack[4];
+        items[3] = new ItemStack(Material.BEDROCK);
+        items[0] = new ItemStack(Material.FLINT);
+        assertThat(cm.getCraftingRecipe(items.clone()), IsNull.nullValue());
+
+        NamespacedKey key = NamespacedKey.minecraft("test_bedrock_flint");
+        ShapelessRecipe added = new ShapelessRecipe(key, new ItemStack(Material.BARRIER));
+        added.addIngredient(Material.FLINT);
+        added.addIngredient(Material.BEDROCK);
+        cm.addRecipe(added);
+        assertThat(cm.getCraftingRecipe(items.clone()), is(added));
+        assertThat(cm.getRecipeByKey(key), is(added));
+    }
 }
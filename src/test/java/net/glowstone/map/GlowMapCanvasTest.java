@@ -0,0 +1,29 @@
+package net.glowstone.map;
+
+import static net.glowstone.map.GlowMapCanvas.MAP_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import net.glowstone.net.message.play.game.MapDataMessage.Section;
+import org.bukkit.map.MapView;
+import org.junit.Test;
+
+public class GlowMapCanvasTest {
+
+    @Test
+    public void testSectionCoversWholeMap() {
+        GlowMapCanvas canvas = new GlowMapCanvas(mock(MapView.class));
+        canvas.setPixel(10, 20, (byte) 4);
+        Section section = canvas.toSection();
+        assertEquals(MAP_SIZE, section.width);
+        assertEquals(MAP_SIZE, section.height);
+        // the offset is in pixels, not blocks
+        assertEquals(0, section.x);
+        assertEquals(0, section.y);
+        assertEquals(4, section.data[20 * MAP_SIZE + 10]);
+
+        // the section is a copy
+        canvas.setPixel(10, 20, (byte) 8);
+        assertEquals(4, section.data[20 * MAP_SIZE + 10]);
+    }
+}
@@ -0,0 +1,87 @@
+package net.glowstone.net.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.flowpowered.network.Message;
+import io.netty.buffer.ByteBuf;
+import java.util.Arrays;
+import java.util.Collections;
+import net.glowstone.entity.GlowPlayer;
+import net.glowstone.net.GlowSession;
+import net.glowstone.net.message.play.game.TimeMessage;
+import net.glowstone.net.protocol.GlowProtocol;
+import net.glowstone.net.protocol.LoginProtocol;
+import net.glowstone.net.protocol.ProtocolType;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class EncodedMessageTest {
+
+    private final Message message = new TimeMessage(1000, 6000);
+
+    private static GlowPlayer player(GlowProtocol protocol) {
+        GlowSession session = Mockito.mock(GlowSession.class);
+        when(session.getProtocol()).thenReturn(protocol);
+        GlowPlayer player = Mockito.mock(GlowPlayer.class);
+        when(player.getSession()).thenReturn(session);
+        return player;
+    }
+
+    private static Message sent(GlowPlayer player) {
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(player.getSession()).send(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void testBroadcastEncodesOnceForAllRecipients() throws Exception {
+        GlowProtocol play = ProtocolType.PLAY.getProtocol();
+        GlowPlayer first = player(play);
+        GlowPlayer second = player(play);
+        EncodedMessage.broadcast(message, Arrays.asList(first, second));
+
+        EncodedMessage firstSent = (EncodedMessage) sent(first);
+        EncodedMessage secondSent = (EncodedMessage) sent(second);
+        ByteBuf shared = firstSent.content().unwrap();
+        assertSame(shared, secondSent.content().unwrap());
+        // one reference for each recipient, none left over for the broadcast itself
+        assertEquals(2, shared.refCnt());
+
+        EncodedMessage expected = (EncodedMessage) EncodedMessage.encode(play, message);
+        try {
+            assertEquals(expected.content(), firstSent.content());
+            assertEquals(expected.content(), secondSent.content());
+        } finally {
+            expected.release();
+        }
+
+        firstSent.release();
+        secondSent.release();
+        assertEquals(0, shared.refCnt());
+    }
+
+    @Test
+    public void testRecipientNotInPlayGetsPlainMessage() {
+        GlowPlayer playing = player(ProtocolType.PLAY.getProtocol());
+        GlowPlayer loggingIn = player(new LoginProtocol());
+        EncodedMessage.broadcast(message, Arrays.asList(playing, loggingIn));
+
+        assertSame(message, sent(loggingIn));
+        Message playingSent = sent(playing);
+        assertTrue(playingSent instanceof EncodedMessage);
+        ((EncodedMessage) playingSent).release();
+        assertEquals(0, ((EncodedMessage) playingSent).content().unwrap().refCnt());
+    }
+
+    @Test
+    public void testSingleRecipientGetsPlainMessage() {
+        GlowPlayer player = player(ProtocolType.PLAY.getProtocol());
+        EncodedMessage.broadcast(message, Collections.singletonList(player));
+        assertSame(message, sent(player));
+    }
+}
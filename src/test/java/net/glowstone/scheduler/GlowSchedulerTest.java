@@ -0,0 +1,121 @@
+package net.glowstone.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.glowstone.net.SessionRegistry;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GlowSchedulerTest {
+
+    private final Plugin plugin = mock(Plugin.class);
+    private final AtomicInteger runs = new AtomicInteger();
+    private GlowScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new GlowScheduler(mock(Server.class), new WorldScheduler(),
+                new SessionRegistry());
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    private void pulse(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            scheduler.pulse();
+        }
+    }
+
+    @Test
+    public void testDelayedTaskRunsOnce() {
+        BukkitTask task = scheduler.runTaskLater(plugin, runs::incrementAndGet, 3);
+        pulse(2);
+        assertEquals(0, runs.get());
+        pulse(1);
+        assertEquals(1, runs.get());
+        assertFalse(scheduler.isQueued(task.getTaskId()));
+        pulse(10);
+        assertEquals(1, runs.get());
+        assertEquals(0, scheduler.getTaskStatistics(plugin).getPendingTasks());
+    }
+
+    @Test
+    public void testTaskWithoutDelayRunsNextTick() {
+        scheduler.runTask(plugin, runs::incrementAndGet);
+        pulse(1);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testRepeatingTaskRunsEveryPeriod() {
+        BukkitTask task = scheduler.runTaskTimer(plugin, runs::incrementAndGet, 2, 3);
+        pulse(1);
+        assertEquals(0, runs.get());
+        pulse(1);
+        assertEquals(1, runs.get());
+        pulse(3);
+        assertEquals(2, runs.get());
+        pulse(6);
+        assertEquals(4, runs.get());
+        assertTrue(scheduler.isQueued(task.getTaskId()));
+        assertEquals(4, scheduler.getTaskStatistics(plugin).getRuns());
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() {
+        BukkitTask task = scheduler.runTaskTimer(plugin, runs::incrementAndGet, 1, 1);
+        pulse(2);
+        assertEquals(2, runs.get());
+        scheduler.cancelTask(task.getTaskId());
+        assertFalse(scheduler.isQueued(task.getTaskId()));
+        pulse(5);
+        assertEquals(2, runs.get());
+
+        // cancelled before it is ever added to the wheel
+        task = scheduler.runTaskLater(plugin, runs::incrementAndGet, 1);
+        task.cancel();
+        pulse(2);
+        assertEquals(2, runs.get());
+        assertEquals(0, scheduler.getTaskStatistics(plugin).getPendingTasks());
+    }
+
+    @Test
+    public void testLongDelayWrapsAroundWheel() {
+        // longer than one turn of the wheel, so the task's bucket comes up once too early
+        scheduler.runTaskLater(plugin, runs::incrementAndGet, 700);
+        scheduler.runTaskTimer(plugin, runs::incrementAndGet, 1000, 1000);
+        pulse(699);
+        assertEquals(0, runs.get());
+        pulse(1);
+        assertEquals(1, runs.get());
+        pulse(299);
+        assertEquals(1, runs.get());
+        pulse(1);
+        assertEquals(2, runs.get());
+        pulse(1000);
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void testCancellingPluginTasksDropsStatistics() {
+        scheduler.runTaskLater(plugin, runs::incrementAndGet, 5);
+        assertNotNull(scheduler.getTaskStatistics(plugin));
+        scheduler.cancelTasks(plugin);
+        assertNull(scheduler.getTaskStatistics(plugin));
+        pulse(10);
+        assertEquals(0, runs.get());
+    }
+}
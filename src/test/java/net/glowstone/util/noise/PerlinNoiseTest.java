@@ -0,0 +1,153 @@
+package net.glowstone.util.noise;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class PerlinNoiseTest {
+
+    private static void assertSameNoise(PerlinNoise expected, PerlinNoise actual, double x,
+            double y, double z, int sizeX, int sizeY, int sizeZ, double scale) {
+        double[] expectedNoise = expected.getNoise(new double[sizeX * sizeY * sizeZ], x, y, z,
+                sizeX, sizeY, sizeZ, scale, scale / 2, scale, 0.75);
+        double[] actualNoise = actual.getNoise(new double[sizeX * sizeY * sizeZ], x, y, z,
+                sizeX, sizeY, sizeZ, scale, scale / 2, scale, 0.75);
+        assertArrayEquals(expectedNoise, actualNoise, 0);
+    }
+
+    @Test
+    public void testSameAsPointwise3d() {
+        PerlinNoise expected = new PointwisePerlinNoise(new Random(7));
+        PerlinNoise actual = new PerlinNoise(new Random(7));
+        assertSameNoise(expected, actual, 0, 0, 0, 5, 33, 5, 684.412);
+        assertSameNoise(expected, actual, -3213.5, 11.25, 9084.0, 5, 33, 5, 8.555);
+        assertSameNoise(expected, actual, 1e6, -40, -1e6, 4, 17, 6, 0.3);
+    }
+
+    @Test
+    public void testSameAsPointwise2d() {
+        PerlinNoise expected = new PointwisePerlinNoise(new Random(11));
+        PerlinNoise actual = new PerlinNoise(new Random(11));
+        assertSameNoise(expected, actual, 0, 0, 0, 5, 1, 5, 200);
+        assertSameNoise(expected, actual, -77.125, 0, 1234.5, 16, 1, 16, 0.0625);
+    }
+
+    @Test
+    public void testSameAsPointwiseSimplex() {
+        SimplexNoise noise = new SimplexNoise(new Random(3));
+        double x = -12.5;
+        double y = 4;
+        double z = 40.25;
+        double scale = 0.05;
+        double[] batch = noise.getNoise(new double[4 * 3 * 5], x, y, z, 4, 3, 5, scale, scale,
+                scale, 2);
+        double[] pointwise = new double[batch.length];
+        int index = 0;
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 4; j++) {
+                for (int k = 0; k < 3; k++) {
+                    pointwise[index++] += noise.noise((x + j) * scale, (y + k) * scale,
+                            (z + i) * scale) * 2;
+                }
+            }
+        }
+        assertArrayEquals(pointwise, batch, 0);
+    }
+
+    /**
+     * Evaluates every grid point on its own, as {@link PerlinNoise} did before it shared the
+     * per-axis work between points.
+     */
+    private static class PointwisePerlinNoise extends PerlinNoise {
+
+        PointwisePerlinNoise(Random rand) {
+            super(rand);
+        }
+
+        @Override
+        protected double[] get2dNoise(double[] noise, double x, double z, int sizeX, int sizeZ,
+            double scaleX, double scaleZ, double amplitude) {
+            int index = 0;
+            for (int i = 0; i < sizeX; i++) {
+                double dx = x + offsetX + i * scaleX;
+                int floorX = floor(dx);
+                int ix = floorX & 255;
+                dx -= floorX;
+                double fx = fade(dx);
+                for (int j = 0; j < sizeZ; j++) {
+                    double dz = z + offsetZ + j * scaleZ;
+                    int floorZ = floor(dz);
+                    int iz = floorZ & 255;
+                    dz -= floorZ;
+                    double fz = fade(dz);
+                    // Hash coordinates of the square corners
+                    int a = perm[ix];
+                    int aa = perm[a] + iz;
+                    int b = perm[ix + 1];
+                    int ba = perm[b] + iz;
+                    double x1 = lerp(fx, grad(perm[aa], dx, 0, dz), grad(perm[ba], dx - 1, 0, dz));
+                    double x2 = lerp(fx, grad(perm[aa + 1], dx, 0, dz - 1),
+                        grad(perm[ba + 1], dx - 1, 0, dz - 1));
+                    noise[index++] += lerp(fz, x1, x2) * amplitude;
+                }
+            }
+            return noise;
+        }
+
+        @Override
+        protected double[] get3dNoise(double[] noise, double x, double y, double z, int sizeX,
+            int sizeY, int sizeZ, double scaleX, double scaleY, double scaleZ, double amplitude) {
+            int n = -1;
+            double x1 = 0;
+            double x2 = 0;
+            double x3 = 0;
+            double x4 = 0;
+            int index = 0;
+            for (int i = 0; i < sizeX; i++) {
+                double dx = x + offsetX + i * scaleX;
+                int floorX = floor(dx);
+                int ix = floorX & 255;
+                dx -= floorX;
+                double fx = fade(dx);
+                for (int j = 0; j < sizeZ; j++) {
+                    double dz = z + offsetZ + j * scaleZ;
+                    int floorZ = floor(dz);
+                    int iz = floorZ & 255;
+                    dz -= floorZ;
+                    double fz = fade(dz);
+                    for (int k = 0; k < sizeY; k++) {
+                        double dy = y + offsetY + k * scaleY;
+                        int floorY = floor(dy);
+                        int iy = floorY & 255;
+                        dy -= floorY;
+                        double fy = fade(dy);
+                        if (k == 0 || iy != n) {
+                            n = iy;
+                            // Hash coordinates of the cube corners
+                            int a = perm[ix] + iy;
+                            int aa = perm[a] + iz;
+                            int ab = perm[a + 1] + iz;
+                            int b = perm[ix + 1] + iy;
+                            int ba = perm[b] + iz;
+                            int bb = perm[b + 1] + iz;
+                            x1 = lerp(fx, grad(perm[aa], dx, dy, dz),
+                                grad(perm[ba], dx - 1, dy, dz));
+                            x2 = lerp(fx, grad(perm[ab], dx, dy - 1, dz),
+                                grad(perm[bb], dx - 1, dy - 1, dz));
+                            x3 = lerp(fx, grad(perm[aa + 1], dx, dy, dz - 1),
+                                grad(perm[ba + 1], dx - 1, dy, dz - 1));
+                            x4 = lerp(fx, grad(perm[ab + 1], dx, dy - 1, dz - 1),
+                                grad(perm[bb + 1], dx - 1, dy - 1, dz - 1));
+                        }
+                        double y1 = lerp(fy, x1, x2);
+                        double y2 = lerp(fy, x3, x4);
+
+                        noise[index++] += lerp(fz, y1, y2) * amplitude;
+                    }
+                }
+            }
+            return noise;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package net.glowstone.util.noise;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class PerlinOctaveGeneratorTest {
+
+    private static double[] generate(PerlinOctaveGenerator generator, int i) {
+        // the result is overwritten by the thread's next call
+        return generator.getFractalBrownianMotion(i * 4, -i * 3, i * 4, 0.5, 2).clone();
+    }
+
+    @Test
+    public void testSameNoiseWhenGeneratedInParallel() throws Exception {
+        PerlinOctaveGenerator generator = new PerlinOctaveGenerator(new Random(5), 8, 5, 17, 5);
+        generator.setScale(684.412);
+        double[][] expected = new double[64][];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = generate(generator, i);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<double[]> actual = pool.submit(() -> IntStream.range(0, expected.length)
+                    .parallel()
+                    .mapToObj(i -> generate(generator, i))
+                    .collect(Collectors.toList())).get(30, TimeUnit.SECONDS);
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], actual.get(i), 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEachThreadHasItsOwnArray() throws Exception {
+        PerlinOctaveGenerator generator = new PerlinOctaveGenerator(new Random(5), 4, 16, 16);
+        double[] mine = generator.getFractalBrownianMotion(0, 0, 0.5, 2);
+        double[][] other = new double[1][];
+        Thread thread = new Thread(() -> other[0] = generator.getFractalBrownianMotion(0, 0, 0.5,
+                2));
+        thread.start();
+        thread.join();
+        assertNotSame(mine, other[0]);
+        assertArrayEquals(mine, other[0], 0);
+    }
+}